@@ -0,0 +1,121 @@
+package com.orangomango.labyrinth;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.orangomango.labyrinth.menu.editor.LevelExe.PWS;
+
+/**
+  One clock for all the sprite animations of a world. Animated objects compute their frame from
+  getTime() when they are drawn, the clock only tells them when a new frame starts so that they
+  can damage their area, and then it requests a single update of the world.
+*/
+public class AnimationClock {
+	/**
+	  Something drawn with a frame that depends on the time
+	*/
+	public interface Animated {
+		/**
+		  @return duration of a frame in milliseconds
+		*/
+		int getFrameTime();
+
+		/**
+		  Called at the start of every frame
+		  @param time - time of the clock in milliseconds
+		  @return true if the world must be repainted
+		*/
+		boolean frameChanged(long time);
+	}
+
+	private static class Entry {
+		private Animated animated;
+		private long frame = -1;
+
+		private Entry(Animated a){
+			this.animated = a;
+		}
+	}
+
+	private World world;
+	private List<Entry> entries = new ArrayList<>();
+	private long start = System.nanoTime();
+	private AnimationTimer timer;
+
+	public AnimationClock(World w){
+		this.world = w;
+	}
+
+	/**
+	  @return milliseconds since the clock has been created
+	*/
+	public long getTime(){
+		return (System.nanoTime() - this.start) / 1000000;
+	}
+
+	/**
+	  @param frames - number of frames of the animation
+	  @param frameTime - duration of a frame in milliseconds
+	  @return current frame of a looping animation, from 0 to frames-1
+	*/
+	public int getFrame(int frames, int frameTime){
+		return (int)(getTime() / frameTime % frames);
+	}
+
+	public void register(Animated a){
+		if (!Platform.isFxApplicationThread()){
+			Platform.runLater(() -> register(a));
+			return;
+		}
+		for (Entry e : this.entries){
+			if (e.animated == a){
+				return;
+			}
+		}
+		this.entries.add(new Entry(a));
+		if (this.timer == null){
+			this.timer = new AnimationTimer(){
+				@Override
+				public void handle(long now){
+					tick();
+				}
+			};
+		}
+		this.timer.start();
+	}
+
+	public void unregister(Animated a){
+		if (!Platform.isFxApplicationThread()){
+			Platform.runLater(() -> unregister(a));
+			return;
+		}
+		this.entries.removeIf(e -> e.animated == a);
+		if (this.entries.isEmpty() && this.timer != null){
+			this.timer.stop();
+		}
+	}
+
+	private void tick(){
+		long time = getTime();
+		boolean changed = false;
+		for (int i = 0; i < this.entries.size(); i++){
+			Entry e = this.entries.get(i);
+			long frame = time / e.animated.getFrameTime();
+			if (frame != e.frame){
+				e.frame = frame;
+				changed |= e.animated.frameChanged(time);
+			}
+		}
+		if (changed){
+			Player player = this.world.getPlayer();
+			if (this.world.getPlayerView() && player != null){
+				this.world.update(player.getX()-PWS, player.getY()-PWS, player.getX()+PWS, player.getY()+PWS);
+			} else {
+				this.world.update(0, 0, 0, 0);
+			}
+		}
+	}
+}
@@ -0,0 +1,242 @@
+package com.orangomango.labyrinth;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+  Table of contents of an arcade (.arc) file. The second line of the file lists where every
+  pattern starts, line and byte offset of its "#World k" line:
+  <pre>
+  #NumWorlds:2
+  #Index:3@0,10@1532
+  #World 1
+  ...
+  </pre>
+  Byte offsets are relative to the first byte after the index line. Files without the index
+  (older versions) are indexed with a single scan.
+*/
+public class ArcadeIndex {
+	public static final String NUM_WORLDS = "#NumWorlds:";
+	public static final String INDEX = "#Index:";
+	public static final String WORLD = "#World ";
+
+	private int[] lines;
+	private long[] offsets; // absolute
+	private boolean fromHeader;
+
+	private ArcadeIndex(int count){
+		this.lines = new int[count];
+		this.offsets = new long[count];
+	}
+
+	public int getCount(){
+		return this.lines.length;
+	}
+
+	/**
+	  @return line number (from 1) of "#World k+1", same value of World.getFilePathIndex()
+	*/
+	public int getLine(int k){
+		return this.lines[k];
+	}
+
+	public long getOffset(int k){
+		return this.offsets[k];
+	}
+
+	/**
+	  @return the index of the file or null if it's not an arcade file
+	*/
+	public static ArcadeIndex read(String path){
+		try (InputStream in = new BufferedInputStream(LevelPack.openStream(path))){
+			long[] pos = {0};
+			String first = readLine(in, pos);
+			if (first == null || !first.startsWith(NUM_WORLDS)){
+				return null;
+			}
+			int count = Integer.parseInt(first.substring(NUM_WORLDS.length()).trim());
+			String second = readLine(in, pos);
+			if (second != null && second.startsWith(INDEX)){
+				String[] entries = second.substring(INDEX.length()).split(",");
+				if (entries.length == count){
+					ArcadeIndex index = new ArcadeIndex(count);
+					for (int k = 0; k < count; k++){
+						String[] e = entries[k].split("@");
+						index.lines[k] = Integer.parseInt(e[0]);
+						index.offsets[k] = pos[0] + Long.parseLong(e[1]);
+					}
+					index.fromHeader = true;
+					return index;
+				}
+			}
+		} catch (IOException | RuntimeException e){
+			Logger.warning("Could not read arcade index of "+path+": "+e.getMessage());
+		}
+		return scan(path);
+	}
+
+	/**
+	  Index a file without the header, reading it once
+	*/
+	private static ArcadeIndex scan(String path){
+		try (InputStream in = new BufferedInputStream(LevelPack.openStream(path))){
+			long[] pos = {0};
+			String first = readLine(in, pos);
+			if (first == null || !first.startsWith(NUM_WORLDS)){
+				return null;
+			}
+			ArcadeIndex index = new ArcadeIndex(Integer.parseInt(first.substring(NUM_WORLDS.length()).trim()));
+			int line = 1;
+			long start = pos[0];
+			String l;
+			while ((l = readLine(in, pos)) != null){
+				line++;
+				if (l.startsWith(WORLD)){
+					int k = Integer.parseInt(l.substring(WORLD.length()).trim()) - 1;
+					if (k >= 0 && k < index.getCount() && index.lines[k] == 0){
+						index.lines[k] = line;
+						index.offsets[k] = start;
+					}
+				}
+				start = pos[0];
+			}
+			return index;
+		} catch (IOException | RuntimeException e){
+			Logger.error("Could not index arcade file "+path+": "+e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	  Bytes of a line, without the line terminator. Level lines are ASCII, longer lines (tiles) are skipped and returned empty.
+	*/
+	private static String readLine(InputStream in, long[] pos) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		int c;
+		boolean read = false;
+		while ((c = in.read()) >= 0){
+			pos[0]++;
+			read = true;
+			if (c == '\n'){
+				break;
+			}
+			if (sb.length() < 64){
+				sb.append((char)c);
+			}
+		}
+		if (!read){
+			return null;
+		}
+		int len = sb.length();
+		if (len > 0 && sb.charAt(len-1) == '\r'){
+			sb.setLength(len-1);
+		}
+		return sb.toString();
+	}
+
+	/**
+	  Read all the patterns of an arcade file in one pass, their number is taken from the header
+	*/
+	public static List<LevelData> readAll(String path) throws IOException {
+		List<LevelData> output = new ArrayList<>();
+		try (BufferedReader reader = LevelPack.openReader(path)){
+			String first = reader.readLine();
+			if (first == null || !first.startsWith(NUM_WORLDS)){
+				throw new IOException("Not an arcade file");
+			}
+			int count;
+			try {
+				count = Integer.parseInt(first.substring(NUM_WORLDS.length()).trim());
+			} catch (NumberFormatException e){
+				throw new IOException("Invalid header: "+first);
+			}
+			LevelTokenizer tokenizer = new LevelTokenizer(reader); // #Index and #World lines are comments
+			for (int k = 0; k < count; k++){
+				output.add(LevelData.readText(tokenizer));
+			}
+		}
+		return output;
+	}
+
+	/**
+	  Read only the pattern k (from 0), skipping the others
+	*/
+	public LevelData readLevel(String path, int k) throws IOException {
+		try (InputStream in = LevelPack.openStream(path)){
+			in.skipNBytes(this.offsets[k]); // A seek for files and mapped packs
+			BufferedReader reader = new BufferedReader(new InputStreamReader(in, Charset.defaultCharset()));
+			String header = reader.readLine();
+			if (header == null || !header.trim().equals(WORLD+(k+1))){
+				if (this.fromHeader){
+					// The file has been changed without updating the index
+					ArcadeIndex scanned = scan(path);
+					if (scanned != null && scanned.getCount() > k){
+						return scanned.readLevel(path, k);
+					}
+				}
+				throw new IOException("Pattern "+(k+1)+" not found");
+			}
+			return LevelData.readText(reader);
+		}
+	}
+
+	/**
+	  Write an arcade file with its index. The patterns are written twice: the first time only
+	  to count their bytes and lines for the index, that comes before them.
+	  @param writer - output, it's flushed but not closed (FileSaver syncs the file after)
+	*/
+	public static void write(BufferedWriter writer, LevelData[] worlds) throws IOException {
+		CountingStream counter = new CountingStream();
+		BufferedWriter w = new BufferedWriter(new OutputStreamWriter(counter, Charset.defaultCharset()));
+		StringBuilder index = new StringBuilder(INDEX);
+		for (int k = 0; k < worlds.length; k++){
+			w.flush();
+			index.append(k > 0 ? "," : "").append(3+counter.lines).append('@').append(counter.bytes);
+			writePattern(w, worlds, k);
+		}
+		writer.write(NUM_WORLDS+worlds.length);
+		writer.newLine();
+		writer.write(index.toString());
+		writer.newLine();
+		for (int k = 0; k < worlds.length; k++){
+			writePattern(writer, worlds, k);
+		}
+		writer.flush();
+	}
+
+	private static void writePattern(BufferedWriter writer, LevelData[] worlds, int k) throws IOException {
+		writer.write(WORLD+(k+1)+"\n");
+		worlds[k].writeText(writer);
+		if (k+1 < worlds.length){
+			writer.newLine();
+		}
+	}
+
+	/**
+	  Output that only counts bytes and lines
+	*/
+	private static class CountingStream extends OutputStream {
+		private long bytes = 0;
+		private int lines = 0;
+
+		@Override
+		public void write(int b){
+			this.bytes++;
+			if (b == '\n'){
+				this.lines++;
+			}
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len){
+			this.bytes += len;
+			for (int i = off; i < off+len; i++){
+				if (b[i] == '\n'){
+					this.lines++;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,381 @@
+package com.orangomango.labyrinth;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritablePixelFormat;
+import javafx.scene.text.Font;
+import javafx.scene.paint.Color;
+
+import com.orangomango.labyrinth.menu.editor.Editor;
+import static com.orangomango.labyrinth.menu.editor.Editor.PATH;
+
+/**
+  Loads every sprite under .labyrinthgame/Images once and packs them in a single atlas.
+  Fonts loaded from .labyrinthgame/Fonts are cached too.
+  In headless mode (no FX toolkit, see setHeadless) images are decoded with ImageIO
+  and sprites keep only their pixels.
+*/
+public class AssetManager {
+	public static final int ATLAS_WIDTH = 1024;
+	public static final int ATLAS_MAX_SPRITE_HEIGHT = 128;
+	public static final int ATLAS_PADDING = 2;
+
+	private static WritableImage atlas = null;
+	private static boolean loaded = false;
+	private static Map<String, Sprite> sprites = new HashMap<>();
+	private static Map<String, Sprite> variants = new HashMap<>();
+	private static Map<String, Font> fonts = new HashMap<>();
+	private static boolean headless = false;
+
+	/**
+	  Call it with true before rendering without the FX toolkit (batch exports, tests),
+	  JavaFX images can't be created when the toolkit is not running.
+	*/
+	public static synchronized void setHeadless(boolean value){
+		if (headless != value){
+			headless = value;
+			reload();
+		}
+	}
+
+	public static synchronized boolean isHeadless(){
+		return headless;
+	}
+
+	/**
+	  Load an image without the FX toolkit
+	  @return null if the image can't be read
+	*/
+	private static Sprite loadHeadless(File file){
+		try {
+			BufferedImage img = ImageIO.read(file);
+			if (img == null){
+				return null;
+			}
+			RenderStats.imageLoaded();
+			int w = img.getWidth();
+			int h = img.getHeight();
+			return new Sprite(img.getRGB(0, 0, w, h, null, 0, w), w, h);
+		} catch (IOException e){
+			return null;
+		}
+	}
+
+	private static String getImagesPath(){
+		return PATH + ".labyrinthgame" + File.separator + "Images" + File.separator;
+	}
+
+	private static void collectImages(File dir, String prefix, Map<String, Image> output){
+		File[] files = dir.listFiles();
+		if (files == null){
+			return;
+		}
+		Arrays.sort(files);
+		for (File f : files){
+			if (f.isDirectory()){
+				collectImages(f, prefix + f.getName() + "/", output);
+			} else if (f.getName().endsWith(".png")){
+				Image img = new Image("file://" + Editor.changeSlash(f.getAbsolutePath()));
+				RenderStats.imageLoaded();
+				if (img.isError()){
+					Logger.warning("Could not load image " + prefix + f.getName());
+					continue;
+				}
+				output.put(prefix + f.getName(), img);
+			}
+		}
+	}
+
+	/**
+	  Build the atlas: images are packed in shelves sorted by height,
+	  big images (backgrounds) are kept as standalone sprites.
+	*/
+	private static void buildAtlas(){
+		if (isHeadless()){
+			return; // Sprites are loaded one by one
+		}
+		Map<String, Image> images = new HashMap<>();
+		collectImages(new File(getImagesPath()), "", images);
+
+		List<String> names = new ArrayList<>(images.keySet());
+		names.sort((a, b) -> {
+			int c = Double.compare(images.get(b).getHeight(), images.get(a).getHeight());
+			return c != 0 ? c : a.compareTo(b);
+		});
+
+		Map<String, int[]> rects = new HashMap<>();
+		int shelfX = 0, shelfY = 0, shelfHeight = 0;
+		for (String name : names){
+			Image img = images.get(name);
+			int w = (int)img.getWidth();
+			int h = (int)img.getHeight();
+			if (w > ATLAS_WIDTH || h > ATLAS_MAX_SPRITE_HEIGHT){
+				sprites.put(name, new Sprite(img, 0, 0, w, h));
+				continue;
+			}
+			if (shelfX + w > ATLAS_WIDTH){
+				shelfX = 0;
+				shelfY += shelfHeight + ATLAS_PADDING;
+				shelfHeight = 0;
+			}
+			rects.put(name, new int[]{shelfX, shelfY, w, h});
+			shelfX += w + ATLAS_PADDING;
+			shelfHeight = Math.max(shelfHeight, h);
+		}
+
+		if (rects.size() == 0){
+			return;
+		}
+		atlas = new WritableImage(ATLAS_WIDTH, shelfY + shelfHeight);
+		PixelWriter writer = atlas.getPixelWriter();
+		for (Map.Entry<String, int[]> entry : rects.entrySet()){
+			int[] r = entry.getValue();
+			writer.setPixels(r[0], r[1], r[2], r[3], images.get(entry.getKey()).getPixelReader(), 0, 0);
+			sprites.put(entry.getKey(), new Sprite(atlas, r[0], r[1], r[2], r[3]));
+		}
+		Logger.info("Packed " + rects.size() + " images in a " + ATLAS_WIDTH + "x" + (int)atlas.getHeight() + " atlas");
+	}
+
+	/**
+	  Get a sprite handle
+	  @param name - image path relative to .labyrinthgame/Images (e.g. blocks/block_wall.png)
+	*/
+	public static synchronized Sprite getSprite(String name){
+		if (!loaded){
+			buildAtlas();
+			loaded = true;
+		}
+		Sprite sprite = sprites.get(name);
+		if (sprite == null && isHeadless()){
+			sprite = loadHeadless(new File(getImagesPath() + name));
+			if (sprite == null){
+				Logger.warning("Could not load image " + name);
+				sprite = new Sprite(new int[0], 0, 0);
+			}
+			sprites.put(name, sprite);
+		} else if (sprite == null){
+			// Not in the atlas (downloaded later?), load it alone
+			Image img = new Image("file://" + Editor.changeSlash(getImagesPath()) + name);
+			RenderStats.imageLoaded();
+			sprite = new Sprite(img, 0, 0, img.getWidth(), img.getHeight());
+			if (!img.isError()){
+				sprites.put(name, sprite);
+			} else {
+				Logger.warning("Could not load image " + name);
+			}
+		}
+		return sprite;
+	}
+
+	/**
+	  Get a sprite with a brightness already applied (see Block.DARK and Block.LIGHT),
+	  same result of drawing it with a ColorAdjust effect.
+	*/
+	public static Sprite getSprite(String name, double brightness){
+		return getSprite(name, null, brightness);
+	}
+
+	/**
+	  Get a sprite rotated to a direction (NORTH: 0, EAST: 90, SOUTH: 180, WEST: -90), every frame is rotated
+	  @param direction - World.NORTH, World.EAST, World.SOUTH or World.WEST
+	*/
+	public static synchronized Sprite getSprite(String name, String direction, double brightness){
+		if ((direction == null || direction.equals(World.NORTH)) && brightness == 0){
+			return getSprite(name);
+		}
+		String key = name + "|" + (direction == null ? World.NORTH : direction) + "|" + brightness;
+		Sprite sprite = variants.get(key);
+		if (sprite == null){
+			sprite = bake(getSprite(name), direction, brightness);
+			variants.put(key, sprite);
+		}
+		return sprite;
+	}
+
+	/**
+	  Get a sprite already scaled for tiles of the given size, so it can be drawn 1:1.
+	  Each scale has its own cached sprite set.
+	  @param size - tile size in pixels (World.DEFAULT_BLOCK_WIDTH means no scaling)
+	*/
+	public static Sprite getSprite(String name, String direction, double brightness, int size){
+		if (size == World.DEFAULT_BLOCK_WIDTH || size <= 0){
+			return getSprite(name, direction, brightness);
+		}
+		Sprite source = getSprite(name, direction, brightness);
+		synchronized (AssetManager.class){
+			String key = name + "|" + (direction == null ? World.NORTH : direction) + "|" + brightness + "@" + size;
+			Sprite sprite = variants.get(key);
+			if (sprite == null){
+				sprite = scale(source, (double)size/World.DEFAULT_BLOCK_WIDTH);
+				variants.put(key, sprite);
+			}
+			return sprite;
+		}
+	}
+
+	/**
+	  Scale every frame of a sprite, each output pixel is the average of the source pixels it covers
+	*/
+	private static Sprite scale(Sprite sprite, double factor){
+		int[] pixels = sprite.getPixels();
+		int w = sprite.getRegionWidth();
+		int h = sprite.getRegionHeight();
+		int fw = (int)Math.max(1, Math.round(sprite.getWidth()*factor));
+		int fh = (int)Math.max(1, Math.round(sprite.getHeight()*factor));
+		if (pixels == null || w <= 0 || h <= 0){
+			return sprite;
+		}
+
+		int frames = sprite.getFrameCount();
+		int[] output = new int[fw*frames*fh];
+		double sw = sprite.getWidth()/fw;
+		double sh = sprite.getHeight()/fh;
+		for (int f = 0; f < frames; f++){
+			int ox = (int)sprite.getSourceX(f) - sprite.getRegionX();
+			int oy = (int)sprite.getSourceY() - sprite.getRegionY();
+			for (int dy = 0; dy < fh; dy++){
+				int sy0 = (int)(dy*sh);
+				int sy1 = Math.max(sy0+1, (int)((dy+1)*sh));
+				for (int dx = 0; dx < fw; dx++){
+					int sx0 = (int)(dx*sw);
+					int sx1 = Math.max(sx0+1, (int)((dx+1)*sw));
+					long a = 0, r = 0, g = 0, b = 0;
+					int count = 0;
+					for (int sy = sy0; sy < sy1; sy++){
+						for (int sx = sx0; sx < sx1; sx++){
+							int argb = pixels[(oy+sy)*w+ox+sx];
+							int pa = (argb >>> 24) & 0xff;
+							a += pa;
+							r += ((argb >> 16) & 0xff) * pa;
+							g += ((argb >> 8) & 0xff) * pa;
+							b += (argb & 0xff) * pa;
+							count++;
+						}
+					}
+					int pixel = 0;
+					if (a > 0){
+						pixel = ((int)(a/count) << 24) | ((int)(r/a) << 16) | ((int)(g/a) << 8) | (int)(b/a);
+					}
+					output[dy*fw*frames+f*fw+dx] = pixel;
+				}
+			}
+		}
+
+		if (isHeadless()){
+			return new Sprite(output, frames, fw, fh);
+		}
+		WritableImage image = new WritableImage(fw*frames, fh);
+		image.getPixelWriter().setPixels(0, 0, fw*frames, fh, PixelFormat.getIntArgbInstance(), output, 0, fw*frames);
+		return new Sprite(image, frames, fw, fh);
+	}
+
+	private static Sprite bake(Sprite sprite, String direction, double brightness){
+		int[] pixels = sprite.getPixels();
+		int w = sprite.getRegionWidth();
+		int h = sprite.getRegionHeight();
+		if (pixels == null || w <= 0 || h <= 0){
+			return sprite;
+		}
+		pixels = pixels.clone(); // The sprite keeps its own pixels
+
+		if (direction != null && !direction.equals(World.NORTH) && sprite.getWidth() == sprite.getHeight()){
+			int size = (int)sprite.getWidth();
+			int[] rotated = pixels.clone();
+			for (int f = 0; f < sprite.getFrameCount(); f++){
+				int fx = (int)sprite.getSourceX(f) - sprite.getRegionX();
+				int fy = (int)sprite.getSourceY() - sprite.getRegionY();
+				for (int dy = 0; dy < size; dy++){
+					for (int dx = 0; dx < size; dx++){
+						int sx, sy;
+						switch (direction){
+							case World.EAST:
+								sx = dy;
+								sy = size-1-dx;
+								break;
+							case World.SOUTH:
+								sx = size-1-dx;
+								sy = size-1-dy;
+								break;
+							default: // WEST
+								sx = size-1-dy;
+								sy = dx;
+								break;
+						}
+						rotated[(fy+dy)*w+fx+dx] = pixels[(fy+sy)*w+fx+sx];
+					}
+				}
+			}
+			pixels = rotated;
+		}
+
+		if (brightness != 0){
+			for (int i = 0; i < pixels.length; i++){
+				int argb = pixels[i];
+				int a = (argb >>> 24) & 0xff;
+				if (a == 0){
+					continue;
+				}
+				Color c = adjustColor(Color.rgb((argb >> 16) & 0xff, (argb >> 8) & 0xff, argb & 0xff), brightness);
+				pixels[i] = (a << 24) | ((int)Math.round(c.getRed()*255) << 16) | ((int)Math.round(c.getGreen()*255) << 8) | (int)Math.round(c.getBlue()*255);
+			}
+		}
+
+		if (isHeadless()){
+			return new Sprite(pixels, w, h);
+		}
+		WritableImage output = new WritableImage(w, h);
+		output.getPixelWriter().setPixels(0, 0, w, h, PixelFormat.getIntArgbInstance(), pixels, 0, w);
+		return new Sprite(output, 0, 0, w, h);
+	}
+
+	/**
+	  Apply a brightness to a color like ColorAdjust does (it works on the HSB brightness)
+	*/
+	public static Color adjustColor(Color color, double brightness){
+		if (brightness == 0){
+			return color;
+		}
+		double b = color.getBrightness();
+		b = brightness < 0 ? b*(1+brightness) : b+(1-b)*brightness;
+		return Color.hsb(color.getHue(), color.getSaturation(), Math.max(0, Math.min(1, b)), color.getOpacity());
+	}
+
+	/**
+	  Get a font from .labyrinthgame/Fonts
+	  @param name - font file name (e.g. menu_font.ttf)
+	  @param size - font size
+	*/
+	public static synchronized Font getFont(String name, double size){
+		String key = name + "@" + size;
+		Font font = fonts.get(key);
+		if (font == null){
+			font = Font.loadFont("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Fonts/" + name, size);
+			if (font != null){
+				fonts.put(key, font);
+			} else {
+				Logger.warning("Could not load font " + name);
+			}
+		}
+		return font;
+	}
+
+	/**
+	  Drop every cached asset, next request will rebuild the atlas
+	*/
+	public static synchronized void reload(){
+		atlas = null;
+		loaded = false;
+		sprites.clear();
+		variants.clear();
+		fonts.clear();
+	}
+}
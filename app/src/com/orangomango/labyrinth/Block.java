@@ -1,9 +1,10 @@
 package com.orangomango.labyrinth;
 
 import javafx.scene.canvas.*;
-import javafx.scene.image.Image;
 import javafx.scene.paint.Color;
-import javafx.scene.effect.ColorAdjust;
+
+import java.util.Map;
+import java.util.HashMap;
 
 import com.orangomango.labyrinth.menu.editor.Editor;
 import com.orangomango.labyrinth.menu.editor.EditableWorld;
@@ -19,10 +20,18 @@ public class Block {
 	public String[] parallelBlockData = null;
 	private boolean water = false;
 	private boolean wallAttach = false;
+	private int connMask = -1;
+	private boolean plant = false;
 	
 	public static final double DARK = -0.25;
 	public static final double LIGHT = 0;
 	public static final int LIGHT_AREA = 1;
+	
+	// Neighbour masks (walls and cables)
+	public static final int CONN_N = 1;
+	public static final int CONN_E = 2;
+	public static final int CONN_S = 4;
+	public static final int CONN_W = 8;
 
 	/**
 	  Block class constructor
@@ -60,41 +69,11 @@ public class Block {
 			this.wallAttach = true;
 		}
 		if (this.info != null){
-			if (checkInfoKey("data") > 0){
-				if (this.info.split(";")[checkInfoKey("data")].split("#")[1].equals("NoDataSet")){
-					this.category = World.AIR;
-				}
-			}
-			if (checkInfoKey("point") > 0){
-				if (this.info.split(";")[checkInfoKey("point")].split("#")[1].equals("NoPointSet")){
-					this.category = World.AIR;
-				}
-			}
-			
-			int wc = 0;
-			boolean found = false;
-			for (String ik : this.info.split(";")){
-				if (ik.split("#")[0].equals("water")){
-					found = true;
-					break;
-				}
-				wc++;
-			}
-			if (found){
-				String iw = this.info.split(";")[wc];
-				if (iw.equals("water#true")){
-					this.water = true;
-				}
-			}
+			parseInfo();
 		}
 		if (this.type.equals(World.PARALLEL_BLOCK)){
 			if (this.info != null){
-				int counter = 0;
-				parallelBlockData = new String[this.info.split(";").length];
-				for (String infoPart : this.info.split(";")){
-					parallelBlockData[counter] = infoPart.split("#")[1];
-					counter++;
-				}
+				parallelBlockData = getInfoValues(this.info);
 			}
 			this.category = parallelBlockData[checkInfoKey("category")];
 		}
@@ -170,39 +149,116 @@ public class Block {
 	}
 	
 	public int checkInfoKey(String key){
+		return checkInfoKey(getInfo(), key);
+	}
+	
+	public static int checkInfoKey(String inf, String key){
+		// Same result of splitting by ; and #, without creating the strings
 		int counter = 0;
-		for (String pair : this.getInfo().split(";")){
-			String Ckey = pair.split("#")[0];
-			if (Ckey.equals(key)){
+		int pos = 0;
+		int len = inf.length();
+		while (true){
+			int end = inf.indexOf(';', pos);
+			if (end < 0){
+				end = len;
+			}
+			int hash = inf.indexOf('#', pos);
+			int keyEnd = (hash >= 0 && hash < end) ? hash : end;
+			if (keyEnd - pos == key.length() && inf.startsWith(key, pos)){
 				return counter;
 			}
+			if (end >= len){
+				return -1;
+			}
 			counter++;
+			pos = end + 1;
 		}
-		return -1;
 	}
 	
-	public static int checkInfoKey(String inf, String key){
-		int counter = 0;
-		for (String pair : inf.split(";")){
-			String Ckey = pair.split("#")[0];
-			if (Ckey.equals(key)){
-				return counter;
+	/**
+	  Values of the key#value pairs of an info string (null if a pair has no value)
+	*/
+	public static String[] getInfoValues(String inf){
+		int count = 1;
+		int len = inf.length();
+		while (len > 0 && inf.charAt(len-1) == ';'){
+			len--; // Like String.split(), trailing empty pairs are ignored
+		}
+		for (int i = 0; i < len; i++){
+			if (inf.charAt(i) == ';'){
+				count++;
 			}
-			counter++;
 		}
-		return -1;
+		String[] output = new String[count];
+		int pos = 0;
+		for (int i = 0; i < count; i++){
+			int end = inf.indexOf(';', pos);
+			if (end < 0 || end > len){
+				end = len;
+			}
+			int hash = inf.indexOf('#', pos);
+			if (hash >= 0 && hash < end){
+				int valueEnd = inf.indexOf('#', hash+1);
+				output[i] = inf.substring(hash+1, valueEnd >= 0 && valueEnd < end ? valueEnd : end);
+			}
+			pos = end + 1;
+		}
+		return output;
+	}
+	
+	/**
+	  Category and water flag from the info string, in one pass
+	*/
+	private void parseInfo(){
+		boolean data = false, point = false, water = false;
+		int index = 0;
+		int pos = 0;
+		int len = this.info.length();
+		while (true){
+			int end = this.info.indexOf(';', pos);
+			if (end < 0){
+				end = len;
+			}
+			int hash = this.info.indexOf('#', pos);
+			if (hash < 0 || hash > end){
+				hash = end;
+			}
+			int valueEnd = hash < end ? this.info.indexOf('#', hash+1) : end;
+			if (valueEnd < 0 || valueEnd > end){
+				valueEnd = end;
+			}
+			if (!data && isInfoRegion(pos, hash, "data")){
+				data = true;
+				if (index > 0 && isInfoRegion(hash+1, valueEnd, "NoDataSet")){
+					this.category = World.AIR;
+				}
+			} else if (!point && isInfoRegion(pos, hash, "point")){
+				point = true;
+				if (index > 0 && isInfoRegion(hash+1, valueEnd, "NoPointSet")){
+					this.category = World.AIR;
+				}
+			} else if (!water && isInfoRegion(pos, hash, "water")){
+				water = true;
+				this.water = isInfoRegion(pos, end, "water#true");
+			}
+			if (end >= len){
+				break;
+			}
+			index++;
+			pos = end + 1;
+		}
+	}
+	
+	private boolean isInfoRegion(int start, int end, String value){
+		return end - start == value.length() && this.info.startsWith(value, start);
 	}
 	
 	public void setInfo(String i){
 		this.info = i;
+		this.connMask = -1;
 		if (this.type.equals(World.PARALLEL_BLOCK)){
 			if (this.info != null){
-				int counter = 0;
-				parallelBlockData = new String[this.info.split(";").length];
-				for (String infoPart : this.info.split(";")){
-					parallelBlockData[counter] = infoPart.split("#")[1];
-					counter++;
-				}
+				parallelBlockData = getInfoValues(this.info);
 			}
 			this.category = parallelBlockData[checkInfoKey("category")];
 		}
@@ -261,107 +317,178 @@ public class Block {
 
 	/**
 	  Draw the block on the screen
-	  @param pen - canvas pen
+	  @param ctx - render context (pen, tile size and camera offset)
 	*/
-	public void draw(GraphicsContext pen, World w) {
-		draw(pen, this.x, this.y, w);
+	public void draw(RenderContext ctx, World w) {
+		draw(ctx, this.x, this.y, w);
 	}
 	
 	public boolean activeBlockAround(World w){
 		if (w.previewMode || w.getAllLights()){
 			return true;
 		}
-		for (int y = getY()-LIGHT_AREA*2; y <= getY()+LIGHT_AREA*2; y++){
-			for (int x = getX()-LIGHT_AREA*2; x <= getX()+LIGHT_AREA*2; x++){
-				if (w.getEngineeringWorld().getBlockAt(x, y) != null){
-					if (w.getEngineeringWorld().getBlockAt(x, y).getType().equals(EngBlock.LED) && w.getEngineeringWorld().getBlockAt(x, y).isActive()){
-						for (int y1 = y-LIGHT_AREA; y1 <= y+LIGHT_AREA; y1++){
-							for (int x1 = x-LIGHT_AREA; x1 <= x+LIGHT_AREA; x1++){
-								if (w.getBlockAt(x1, y1) == this){
-									return true;
-								}
-							}
-						}
+		if (w.getBlockAt(getX(), getY()) != this){
+			return false; // Blocks outside the world (void around the player view)
+		}
+		return w.getEngineeringWorld().getLightMap().isLit(getX(), getY());
+	}
+	
+	public static void drawAirBlock(RenderContext ctx, int px, int py){
+		drawAirBlock(ctx, px, py, LIGHT);
+	}
+	
+	public static void drawAirBlock(RenderContext ctx, int px, int py, double brightness){
+		ctx.drawTile("blocks/block_air.png", brightness, px, py);
+	}
+	
+	public static void drawWarningSign(RenderContext ctx, int px, int py){
+		drawWarningSign(ctx, px, py, LIGHT);
+	}
+	
+	public static void drawWarningSign(RenderContext ctx, int px, int py, double brightness){
+		ctx.drawTile("editor/warning.png", brightness, px, py);
+	}
+	
+	/**
+	  Get the wall connections as a 4-bit mask (CONN_N | CONN_E | CONN_S | CONN_W),
+	  the info string is parsed only after it changes.
+	*/
+	public int getConnMask(){
+		if (this.connMask < 0){
+			this.connMask = 0;
+			this.plant = false;
+			if (this.info != null){
+				for (String pair : this.info.split(";")){
+					String[] kv = pair.split("#");
+					if (kv.length < 2){
+						continue;
+					}
+					if (kv[0].equals("conn")){
+						this.connMask = toConnMask(kv[1]);
+					} else if (kv[0].equals("plant")){
+						this.plant = kv[1].equals("y");
 					}
 				}
 			}
 		}
-		return false;
+		return this.connMask;
+	}
+	
+	public boolean hasPlant(){
+		getConnMask();
+		return this.plant;
 	}
 	
-	public static void drawAirBlock(GraphicsContext pen, int px, int py){
-		pen.drawImage(new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/blocks/block_air.png"), px * World.BLOCK_WIDTH, py * World.BLOCK_WIDTH, World.BLOCK_WIDTH, World.BLOCK_WIDTH);
+	public static int toConnMask(String d){
+		int mask = 0;
+		if (d == null || d.equals("null")){
+			return mask;
+		}
+		for (char c : d.toCharArray()){
+			switch (c){
+				case 'n':
+					mask |= CONN_N;
+					break;
+				case 'e':
+					mask |= CONN_E;
+					break;
+				case 's':
+					mask |= CONN_S;
+					break;
+				case 'w':
+					mask |= CONN_W;
+					break;
+			}
+		}
+		return mask;
 	}
 	
-	public static void drawWarningSign(GraphicsContext pen, int px, int py){
-		pen.drawImage(new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/editor/warning.png"), px * World.BLOCK_WIDTH, py * World.BLOCK_WIDTH, World.BLOCK_WIDTH, World.BLOCK_WIDTH);
+	public static String fromConnMask(int mask){
+		return MASK_NAMES[mask & 15];
 	}
 	
 	public void addConn(String d){
 		if (!getType().equals(World.WALL)){
 			return;      //Method only available for wall block
 		}
-		if (getInfo().split(";")[checkInfoKey("conn")].split("#")[1].equals("null")){
-			addInfoParam("conn#"+d);
-			return;
-		}
-		
-		StringBuilder builder = new StringBuilder();
-		String[] directions = new String[]{"n", "e", "s", "w"};
-		for (String c : directions){
-			if (getInfo().split(";")[checkInfoKey("conn")].split("#")[1].contains(c) || d.equals(c)){
-				builder.append(c);
-			}
+		int mask = getConnMask() | toConnMask(d);
+		if (mask != this.connMask || checkInfoKey("conn") < 0){
+			addInfoParam("conn#"+fromConnMask(mask));
 		}
-		addInfoParam("conn#"+builder.toString());
 	}
 	
 	public void removeConn(String d){
 		if (!getType().equals(World.WALL)){
 			return;      //Method only available for wall block
 		}
-		if (d.equals(getInfo().split(";")[checkInfoKey("conn")].split("#")[1])){
-                    addInfoParam("conn#null");
-                    return;
+		int mask = getConnMask() & ~toConnMask(d);
+		if (mask != this.connMask || checkInfoKey("conn") < 0){
+			addInfoParam("conn#"+fromConnMask(mask));
 		}
-		if (!getInfo().split(";")[checkInfoKey("conn")].split("#")[1].contains(d)){
-                    return;
+	}
+	
+	private static final Map<String, Integer> COMPLETE_INDEX = buildSpriteIndex(new String[]{"e", "es", "esw", "ew", "n", "ne", "nes", "nesw", "new", "ns", "nsw", "null", "nw", "s", "sw", "w"});
+	private static final Map<String, Integer> COMPLETE_SORTED_INDEX = buildSpriteIndex(new String[]{"n", "e", "s", "w", "ne", "es", "sw", "nw", "nes", "esw", "nws", "new", "nesw", "null", "ns", "ew"});
+	private static final Map<String, Integer> SIMPLE_INDEX = buildSpriteIndex(new String[]{"e", "n", "s", "w"});
+	private static final Map<String, Integer> SIMPLE_SORTED_INDEX = buildSpriteIndex(new String[]{"n", "e", "s", "w"});
+	
+	private static final String[] MASK_NAMES = buildMaskNames();
+	private static final int[] COMPLETE_MASK_INDEX = buildMaskIndex();
+	
+	private static String[] buildMaskNames(){
+		String[] output = new String[16];
+		for (int mask = 0; mask < 16; mask++){
+			String d = ((mask & CONN_N) != 0 ? "n" : "") + ((mask & CONN_E) != 0 ? "e" : "") + ((mask & CONN_S) != 0 ? "s" : "") + ((mask & CONN_W) != 0 ? "w" : "");
+			output[mask] = d.equals("") ? "null" : d;
 		}
-                if (getInfo().split(";")[checkInfoKey("conn")].split("#")[1].equals("null")){
-                    return;
-                }
-		StringBuilder sb = new StringBuilder(getInfo().split(";")[checkInfoKey("conn")].split("#")[1]);
-		sb.deleteCharAt(getInfo().split(";")[checkInfoKey("conn")].split("#")[1].indexOf(d));
-		addInfoParam("conn#"+sb.toString());
+		return output;
 	}
 	
-	public static int getSpriteCoords(String data, boolean complete, boolean sort){
-		String[] names;
+	private static int[] buildMaskIndex(){
+		int[] output = new int[16];
+		for (int mask = 0; mask < 16; mask++){
+			output[mask] = COMPLETE_INDEX.get(MASK_NAMES[mask]);
+		}
+		return output;
+	}
+	
+	/**
+	  Get the frame index of a connection mask inside a complete (16 frames) sprite sheet
+	*/
+	public static int getSpriteIndex(int mask){
+		return COMPLETE_MASK_INDEX[mask & 15];
+	}
+	
+	private static Map<String, Integer> buildSpriteIndex(String[] names){
+		Map<String, Integer> output = new HashMap<>();
+		for (int i = 0; i < names.length; i++){
+			output.put(names[i], i);
+		}
+		return output;
+	}
+	
+	/**
+	  Get the frame index of a direction/attachment inside a sprite sheet
+	  @return frame index or -1 if not found
+	*/
+	public static int getSpriteIndex(String data, boolean complete, boolean sort){
+		Map<String, Integer> names;
 		if (complete){
-			if (!sort){
-				names = new String[]{"e", "es", "esw", "ew", "n", "ne", "nes", "nesw", "new", "ns", "nsw", "null", "nw", "s", "sw", "w"};
-			} else {
-				names = new String[]{"n", "e", "s", "w", "ne", "es", "sw", "nw", "nes", "esw", "nws", "new", "nesw", "null", "ns", "ew"};
-			}
+			names = sort ? COMPLETE_SORTED_INDEX : COMPLETE_INDEX;
 		} else {
-			if (!sort){
-				names = new String[]{"e", "n", "s", "w"};
-			} else {
-				names = new String[]{"n", "e", "s", "w"};
-			}
-		}
-		int foundAt = -1, foundNow = 1;
-		for (String name : names){
-			if (data.equals(name)){
-				foundAt = foundNow;
-				break;
-			}
-			foundNow += World.DEFAULT_BLOCK_WIDTH+2;
+			names = sort ? SIMPLE_SORTED_INDEX : SIMPLE_INDEX;
 		}
-		return foundAt;
+		Integer index = names.get(data);
+		return index == null ? -1 : index;
+	}
+	
+	public static int getSpriteCoords(String data, boolean complete, boolean sort){
+		int index = getSpriteIndex(data, complete, sort);
+		return index < 0 ? -1 : 1 + index*(World.DEFAULT_BLOCK_WIDTH+2);
 	}
 	
-	public void draw(GraphicsContext pen, int px, int py, World w) {
+	public void draw(RenderContext ctx, int px, int py, World w) {
+		RenderStats.tileDrawn();
 		
 		/*
 		 * underwater:
@@ -372,48 +499,34 @@ public class Block {
 		 * pen.setGlobalAlpha(1);
 		 */
 		 
-		 ColorAdjust effect = new ColorAdjust();
-		 if (w.getEngineeringWorld() != null){
+		double brightness = LIGHT;
+		if (w.getEngineeringWorld() != null && !(w instanceof EditableWorld)){
 			if (!getType().equals(World.PARALLEL_BLOCK)){
-				if (!activeBlockAround(w)){
-					effect.setBrightness(DARK);
-				} else {
-					effect.setBrightness(LIGHT);
-				}
-			} else if ((parallelBlockData[checkInfoKey("type")].equals(EngBlock.LED) && w.getEngineeringWorld().getBlockAt(getX(), getY()).isActive()) || activeBlockAround(w)){
-				effect.setBrightness(LIGHT);
-			} else {
-				effect.setBrightness(DARK);
+				brightness = activeBlockAround(w) ? LIGHT : DARK;
+			} else if (!((parallelBlockData[checkInfoKey("type")].equals(EngBlock.LED) && w.getEngineeringWorld().getBlockAt(getX(), getY()).isActive()) || activeBlockAround(w))){
+				brightness = DARK;
 			}
-		 } else {
-			effect.setBrightness(LIGHT);
-	 	}
-		
-	 	if (w instanceof EditableWorld){
-			pen.setEffect(null);
-		} else {
-	 		pen.setEffect(effect);
-	 	}
+		}
 		
 		switch (getType()){
 			case World.WALL:
-				pen.drawImage(new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/blocks/block_wall"+(checkInfoKey("plant") >= 0 && this.info.split(";")[checkInfoKey("plant")].split("#")[1].equals("y") ? "_plant" : "")+".png"), getSpriteCoords(getInfo().split(";")[checkInfoKey("conn")].split("#")[1], true, false), 1, World.DEFAULT_BLOCK_WIDTH, World.DEFAULT_BLOCK_WIDTH, px * World.BLOCK_WIDTH, py * World.BLOCK_WIDTH, World.BLOCK_WIDTH, World.BLOCK_WIDTH);
+				ctx.drawTile(hasPlant() ? "blocks/block_wall_plant.png" : "blocks/block_wall.png", brightness, getSpriteIndex(getConnMask()), px, py);
 				break;
 			case World.AIR:
-				drawAirBlock(pen, px, py);
+				drawAirBlock(ctx, px, py, brightness);
 				break;
 			case World.VOID:
-				pen.drawImage(new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/blocks/block_void.png"), px * World.BLOCK_WIDTH, py * World.BLOCK_WIDTH, World.BLOCK_WIDTH, World.BLOCK_WIDTH);
+				ctx.drawTile("blocks/block_void.png", brightness, px, py);
 				break;
 			case World.SPIKE:
-				drawAirBlock(pen, px, py);
-				pen.drawImage(new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/blocks/block_spike.png"), px * World.BLOCK_WIDTH, py * World.BLOCK_WIDTH, World.BLOCK_WIDTH, World.BLOCK_WIDTH);
+				drawAirBlock(ctx, px, py, brightness);
+				ctx.drawTile("blocks/block_spike.png", brightness, px, py);
 				break;
 			case World.PORTAL:
-				drawAirBlock(pen, px, py);
-				pen.drawImage(new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/blocks/block_portal.png"), px * World.BLOCK_WIDTH, py * World.BLOCK_WIDTH, World.BLOCK_WIDTH, World.BLOCK_WIDTH);
+				drawAirBlock(ctx, px, py, brightness);
+				ctx.drawTile("blocks/block_portal.png", brightness, px, py);
 				if (this.info.split(";")[checkInfoKey("point")].split("#")[1].equals("NoPointSet") && w instanceof EditableWorld){
-					drawWarningSign(pen, px, py);
+					drawWarningSign(ctx, px, py, brightness);
 				}
 				break;
 			case World.SHOOTER:
@@ -442,10 +555,10 @@ public class Block {
 				} else {
 					attach = "null";
 				}
-				World.drawRotatedImage(pen, "file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/blocks/block_shooter", px * World.BLOCK_WIDTH, py * World.BLOCK_WIDTH, World.BLOCK_WIDTH, d, true, true, true, attach);
+				World.drawRotatedImage(ctx, "blocks/block_shooter", px, py, d, true, true, true, attach, brightness);
 				break;
 			case World.BAT_GEN:
-				drawAirBlock(pen, px, py);
+				drawAirBlock(ctx, px, py, brightness);
 				if (w instanceof EditableWorld || w.previewMode){
 					String dir;
 					if (!this.info.split(";")[checkInfoKey("data")].split("#")[1].equals("NoDataSet")){
@@ -453,85 +566,81 @@ public class Block {
 					} else {
 						dir = Entity.HORIZONTAL;
 					}
-					Image batImg = new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/entities/"+((dir.equals(Entity.HORIZONTAL)) ? "bat_side.png" : "bat_front.png"));
-					pen.drawImage(batImg, 1+(World.DEFAULT_BLOCK_WIDTH+2)*(dir.equals(Entity.HORIZONTAL) ? 0 : 2), 1, World.DEFAULT_BLOCK_WIDTH, World.DEFAULT_BLOCK_WIDTH, px*World.BLOCK_WIDTH, py*World.BLOCK_WIDTH, World.BLOCK_WIDTH, World.BLOCK_WIDTH);
+					ctx.drawTile("entities/"+((dir.equals(Entity.HORIZONTAL)) ? "bat_side.png" : "bat_front.png"), brightness, dir.equals(Entity.HORIZONTAL) ? 0 : 2, px, py);
 					if (this.info.split(";")[checkInfoKey("data")].split("#")[1].equals("NoDataSet")){
-						drawWarningSign(pen, px, py);
+						drawWarningSign(ctx, px, py, brightness);
 					}
 				}
 				break;
 			case World.ELEVATOR:
-				drawAirBlock(pen, px, py);
+				drawAirBlock(ctx, px, py, brightness);
 				if (w instanceof EditableWorld || w.previewMode){
-				  pen.drawImage(new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/entities/move_block.png"), px * World.BLOCK_WIDTH, py * World.BLOCK_WIDTH, World.BLOCK_WIDTH, World.BLOCK_WIDTH);
+				  ctx.drawTile("entities/move_block.png", brightness, px, py);
 					if (this.info.split(";")[checkInfoKey("data")].split("#")[1].equals("NoDataSet")){
-						drawWarningSign(pen, px, py);
+						drawWarningSign(ctx, px, py, brightness);
 					} else {
 						String direction = this.info.split("#")[1].split(" ")[1];
 						switch (direction){
 							case "h":
-								pen.drawImage(new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/editor/arrow_sign_h.png"), px * World.BLOCK_WIDTH, py * World.BLOCK_WIDTH, World.BLOCK_WIDTH, World.BLOCK_WIDTH);
+								ctx.drawTile("editor/arrow_sign_h.png", brightness, px, py);
 								break;
 							case "v":
-								pen.drawImage(new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/editor/arrow_sign_v.png"), px * World.BLOCK_WIDTH, py * World.BLOCK_WIDTH, World.BLOCK_WIDTH, World.BLOCK_WIDTH);
+								ctx.drawTile("editor/arrow_sign_v.png", brightness, px, py);
 								break;
 						}
 					}
 				}
 				break;
 			case World.C_SPIKE:
-				drawAirBlock(pen, px, py);
+				drawAirBlock(ctx, px, py, brightness);
 				if (w instanceof EditableWorld || w.previewMode){
-					pen.drawImage(new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/blocks/block_spike_closed.png"), px * World.BLOCK_WIDTH, py * World.BLOCK_WIDTH, World.BLOCK_WIDTH, World.BLOCK_WIDTH);
+					ctx.drawTile("blocks/block_spike_closed.png", brightness, px, py);
 				}
 				break;
 			case World.D_WARNING:
-				drawAirBlock(pen, px, py);
-				pen.drawImage(new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/blocks/decoration_warning.png"), px * World.BLOCK_WIDTH, py * World.BLOCK_WIDTH, World.BLOCK_WIDTH, World.BLOCK_WIDTH);
+				drawAirBlock(ctx, px, py, brightness);
+				ctx.drawTile("blocks/decoration_warning.png", brightness, px, py);
 				break;
 			case World.PARALLEL_BLOCK:
-				drawAirBlock(pen, px, py);
+				drawAirBlock(ctx, px, py, brightness);
 				if (!parallelBlockData[checkInfoKey("type")].equals(EngBlock.DOOR) || (parallelBlockData[checkInfoKey("type")].equals(EngBlock.DOOR) && (w instanceof EditableWorld || w.previewMode))){
-					pen.drawImage(new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/"+parallelBlockData[checkInfoKey("imagePath")]), 1+(w.getEngineeringWorld().getBlockAt(getX(), getY()).isActive() ? 1 : 0)*(World.DEFAULT_BLOCK_WIDTH + 2), 1, World.DEFAULT_BLOCK_WIDTH, World.DEFAULT_BLOCK_WIDTH, px * World.BLOCK_WIDTH, py * World.BLOCK_WIDTH, World.BLOCK_WIDTH, World.BLOCK_WIDTH);
+					ctx.drawTile(parallelBlockData[checkInfoKey("imagePath")], brightness, w.getEngineeringWorld().getBlockAt(getX(), getY()).isActive() ? 1 : 0, px, py);
 				}
 				break;
 			case World.D_ARROW:
-				drawAirBlock(pen, px, py);
+				drawAirBlock(ctx, px, py, brightness);
 				String direct = Character.toString(this.getInfo().split(";")[checkInfoKey("direction")].split("#")[1].charAt(0));
-				World.drawRotatedImage(pen, "file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/blocks/decoration_arrow", px * World.BLOCK_WIDTH, py * World.BLOCK_WIDTH, World.BLOCK_WIDTH, direct, true, false, false, null);
+				World.drawRotatedImage(ctx, "blocks/decoration_arrow", px, py, direct, true, false, false, null, brightness);
 				break;
 			case World.OXYGEN_POINT:
-				drawAirBlock(pen, px, py);
-				pen.drawImage(new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/blocks/oxygen_point.png"), px * World.BLOCK_WIDTH, py * World.BLOCK_WIDTH, World.BLOCK_WIDTH, World.BLOCK_WIDTH);
+				drawAirBlock(ctx, px, py, brightness);
+				ctx.drawTile("blocks/oxygen_point.png", brightness, px, py);
 				break;
 			case World.D_PLANT:
-				drawAirBlock(pen, px, py);
-				pen.drawImage(new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/blocks/decoration_plant.png"), px * World.BLOCK_WIDTH, py * World.BLOCK_WIDTH, World.BLOCK_WIDTH, World.BLOCK_WIDTH);
+				drawAirBlock(ctx, px, py, brightness);
+				ctx.drawTile("blocks/decoration_plant.png", brightness, px, py);
 				break;
 			case World.D_CONE:
-				drawAirBlock(pen, px, py);
-				pen.drawImage(new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/blocks/decoration_cone.png"), px * World.BLOCK_WIDTH, py * World.BLOCK_WIDTH, World.BLOCK_WIDTH, World.BLOCK_WIDTH);
+				drawAirBlock(ctx, px, py, brightness);
+				ctx.drawTile("blocks/decoration_cone.png", brightness, px, py);
 				break;
 			case World.D_STONES:
-				drawAirBlock(pen, px, py);
-				pen.drawImage(new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/blocks/decoration_stones.png"), px * World.BLOCK_WIDTH, py * World.BLOCK_WIDTH, World.BLOCK_WIDTH, World.BLOCK_WIDTH);
+				drawAirBlock(ctx, px, py, brightness);
+				ctx.drawTile("blocks/decoration_stones.png", brightness, px, py);
 				break;
 			case World.D_BUSH:
-				drawAirBlock(pen, px, py);
-				pen.drawImage(new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/blocks/decoration_bush.png"), px * World.BLOCK_WIDTH, py * World.BLOCK_WIDTH, World.BLOCK_WIDTH, World.BLOCK_WIDTH);
+				drawAirBlock(ctx, px, py, brightness);
+				ctx.drawTile("blocks/decoration_bush.png", brightness, px, py);
 				break;
 			default:
-				pen.setFill(Color.RED);
-				pen.fillRect(px * World.BLOCK_WIDTH, py * World.BLOCK_WIDTH, World.BLOCK_WIDTH, World.BLOCK_WIDTH);
+				ctx.fillTile(AssetManager.adjustColor(Color.RED, brightness), px, py);
 				break;
 		}
 		if (this.water){
-			pen.setFill(Color.CYAN);
-			pen.setGlobalAlpha(0.5);
-			pen.fillRect(px * World.BLOCK_WIDTH, py * World.BLOCK_WIDTH, World.BLOCK_WIDTH, World.BLOCK_WIDTH);
-			pen.setGlobalAlpha(1);
+			ctx.getRenderer().setGlobalAlpha(0.5);
+			ctx.fillTile(AssetManager.adjustColor(Color.CYAN, brightness), px, py);
+			ctx.getRenderer().setGlobalAlpha(1);
 		}
-		pen.setEffect(null);
 	}
 	
 	public Integer toInt(){
@@ -0,0 +1,161 @@
+package com.orangomango.labyrinth;
+
+/**
+  Viewport over a world. The view follows a target (usually the player) with smooth scrolling
+  and only the tiles inside it are drawn, so the cost of a frame depends on the window size
+  and not on the level size.
+*/
+public class Camera {
+	public static final double SCROLL_SPEED = 10; // How fast the view reaches the target (1/s)
+
+	private World world;
+	private double viewportWidth, viewportHeight;
+	private double x, y;
+	private double targetX, targetY;
+	private long lastStep = -1;
+
+	/**
+	  Camera class constructor
+	  @param w - World to show
+	  @param width - Viewport width in pixels
+	  @param height - Viewport height in pixels
+	*/
+	public Camera(World w, double width, double height){
+		this.world = w;
+		this.viewportWidth = width;
+		this.viewportHeight = height;
+	}
+
+	public void setViewport(double width, double height){
+		// Keep the same center, but the limits changed
+		double cx = this.targetX + getTilesWide() / 2;
+		double cy = this.targetY + getTilesHigh() / 2;
+		this.viewportWidth = width;
+		this.viewportHeight = height;
+		this.targetX = clamp(cx, getTilesWide(), this.world.width);
+		this.targetY = clamp(cy, getTilesHigh(), this.world.height);
+		this.x = this.targetX;
+		this.y = this.targetY;
+	}
+
+	public double getViewportWidth(){
+		return this.viewportWidth;
+	}
+
+	public double getViewportHeight(){
+		return this.viewportHeight;
+	}
+
+	/**
+	  X coord of the tile at the left border of the view (can be fractional)
+	*/
+	public double getX(){
+		return snap(this.x);
+	}
+
+	public double getY(){
+		return snap(this.y);
+	}
+
+	// Tiles are always drawn on whole pixels
+	private double snap(double v){
+		return Math.round(v * this.world.getBlockWidth()) / (double)this.world.getBlockWidth();
+	}
+
+	public double getTilesWide(){
+		return this.viewportWidth / this.world.getBlockWidth();
+	}
+
+	public double getTilesHigh(){
+		return this.viewportHeight / this.world.getBlockWidth();
+	}
+
+	/**
+	  Worlds smaller than the viewport are centered, bigger ones are never scrolled past their border
+	*/
+	private double clamp(double center, double size, int worldSize){
+		if (worldSize <= size){
+			return -(size - worldSize) / 2;
+		}
+		return Math.max(0, Math.min(center - size / 2, worldSize - size));
+	}
+
+	/**
+	  Set the tile the view has to be centered on, the view scrolls to it in step()
+	*/
+	public void follow(double tx, double ty){
+		this.targetX = clamp(tx + 0.5, getTilesWide(), this.world.width);
+		this.targetY = clamp(ty + 0.5, getTilesHigh(), this.world.height);
+	}
+
+	/**
+	  Center the view on a tile without scrolling
+	*/
+	public void jumpTo(double tx, double ty){
+		follow(tx, ty);
+		this.x = this.targetX;
+		this.y = this.targetY;
+	}
+
+	/**
+	  Put the tile tx, ty at the top left corner of the view without scrolling (used by scrollbars)
+	*/
+	public void scrollTo(double tx, double ty){
+		this.targetX = clamp(tx + getTilesWide() / 2, getTilesWide(), this.world.width);
+		this.targetY = clamp(ty + getTilesHigh() / 2, getTilesHigh(), this.world.height);
+		this.x = this.targetX;
+		this.y = this.targetY;
+	}
+
+	public boolean isMoving(){
+		return this.x != this.targetX || this.y != this.targetY;
+	}
+
+	/**
+	  Move the view towards the target
+	  @param now - current time in nanoseconds (AnimationTimer)
+	  @return true if the view moved
+	*/
+	public boolean step(long now){
+		double dt = this.lastStep < 0 ? 0 : (now - this.lastStep) / 1e9;
+		this.lastStep = now;
+		if (!isMoving()){
+			return false;
+		}
+		double k = 1 - Math.exp(-SCROLL_SPEED * Math.min(dt, 0.1));
+		double pixel = 1.0 / this.world.getBlockWidth();
+		this.x += (this.targetX - this.x) * k;
+		this.y += (this.targetY - this.y) * k;
+		// Stop when less than a pixel is missing
+		if (Math.abs(this.targetX - this.x) < pixel){
+			this.x = this.targetX;
+		}
+		if (Math.abs(this.targetY - this.y) < pixel){
+			this.y = this.targetY;
+		}
+		return true;
+	}
+
+	/**
+	  Tiles inside the view (clamped to the world)
+	  @return {x, y, x1, y1} included
+	*/
+	public int[] getVisibleArea(){
+		int sx = Math.max((int)Math.floor(getX()), 0);
+		int sy = Math.max((int)Math.floor(getY()), 0);
+		int ex = Math.min((int)Math.ceil(getX() + getTilesWide()) - 1, this.world.width - 1);
+		int ey = Math.min((int)Math.ceil(getY() + getTilesHigh()) - 1, this.world.height - 1);
+		return new int[]{sx, sy, ex, ey};
+	}
+
+	/**
+	  Convert a point of the canvas to world coords
+	*/
+	public double toWorldX(double px){
+		return getX() + px / this.world.getBlockWidth();
+	}
+
+	public double toWorldY(double py){
+		return getY() + py / this.world.getBlockWidth();
+	}
+}
@@ -0,0 +1,65 @@
+package com.orangomango.labyrinth;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+
+/**
+  TileRenderer that draws on a JavaFX Canvas
+*/
+public class CanvasRenderer implements TileRenderer {
+	private GraphicsContext pen;
+
+	public CanvasRenderer(GraphicsContext pen){
+		this.pen = pen;
+	}
+
+	public GraphicsContext getPen(){
+		return this.pen;
+	}
+
+	@Override
+	public void drawSprite(Sprite sprite, int frame, double x, double y, double w, double h){
+		sprite.draw(this.pen, frame, x, y, w, h);
+	}
+
+	@Override
+	public void fillRect(Color color, double x, double y, double w, double h){
+		this.pen.setFill(color);
+		this.pen.fillRect(x, y, w, h);
+	}
+
+	@Override
+	public void clearRect(double x, double y, double w, double h){
+		this.pen.clearRect(x, y, w, h);
+	}
+
+	@Override
+	public void strokeText(String text, Color color, String font, double size, double x, double y){
+		this.pen.setStroke(color);
+		this.pen.setFont(new Font(font, size));
+		this.pen.strokeText(text, x, y);
+	}
+
+	@Override
+	public void setGlobalAlpha(double alpha){
+		this.pen.setGlobalAlpha(alpha);
+	}
+
+	@Override
+	public void save(){
+		this.pen.save();
+	}
+
+	@Override
+	public void clip(double x, double y, double w, double h){
+		this.pen.beginPath();
+		this.pen.rect(x, y, w, h);
+		this.pen.clip();
+	}
+
+	@Override
+	public void restore(){
+		this.pen.restore();
+	}
+}
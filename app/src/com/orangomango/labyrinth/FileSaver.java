@@ -0,0 +1,159 @@
+package com.orangomango.labyrinth;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+  Writes files in background on a single thread, so the JavaFX thread never waits for the disk.
+  A file is written on a temporary file, synced and then moved over the old one, so a file on
+  disk is always complete. When the same file is saved again before its write starts, only the
+  last content is written. Saves are written in the order they are requested.
+*/
+public class FileSaver {
+	/**
+	  Content of a file, called on the writer thread (it must not use objects that can change)
+	*/
+	public interface Content {
+		void write(OutputStream out) throws IOException;
+	}
+
+	private static class Pending {
+		private Content content;
+		private boolean started = false;
+		private CompletableFuture<Void> future = new CompletableFuture<>();
+	}
+
+	private static Thread writerThread;
+	private static ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+		writerThread = new Thread(r, "File saver");
+		writerThread.setDaemon(true);
+		return writerThread;
+	});
+	private static Map<String, Pending> pending = new HashMap<>(); // Last save of every file not yet written, by absolute path
+
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread(FileSaver::flushAll)); // Don't lose the last saves
+	}
+
+	/**
+	  Save a file in background
+	  @return completed when the file is on disk
+	*/
+	public static CompletableFuture<Void> save(String path, Content content){
+		String key = new File(path).getAbsolutePath();
+		synchronized (pending){
+			Pending p = pending.get(key);
+			if (p != null && !p.started){
+				p.content = content; // Coalesced with the previous save
+				return p.future;
+			}
+			Pending created = new Pending();
+			created.content = content;
+			pending.put(key, created);
+			writer.submit(() -> write(key, created));
+			return created.future;
+		}
+	}
+
+	/**
+	  Save a text file in background
+	*/
+	public static CompletableFuture<Void> save(String path, String text){
+		return save(path, out -> {
+			Writer w = new OutputStreamWriter(out, Charset.defaultCharset());
+			w.write(text);
+			w.flush();
+		});
+	}
+
+	private static void write(String path, Pending p){
+		Content content;
+		synchronized (pending){
+			p.started = true;
+			content = p.content;
+		}
+		Path target = Paths.get(path);
+		Path temp = null;
+		try {
+			Path dir = target.toAbsolutePath().getParent();
+			temp = createTemp(dir, target.getFileName().toString());
+			if (Files.exists(target) && Files.getFileStore(target).supportsFileAttributeView(PosixFileAttributeView.class)){
+				Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(target)); // Keep the permissions of the old file
+			}
+			try (FileOutputStream fos = new FileOutputStream(temp.toFile())){
+				BufferedOutputStream out = new BufferedOutputStream(fos);
+				content.write(out);
+				out.flush();
+				fos.getFD().sync();
+			}
+			try {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e){
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+			p.future.complete(null);
+		} catch (IOException | RuntimeException e){
+			Logger.error("Could not save "+path+": "+e.getMessage());
+			if (temp != null){
+				temp.toFile().delete();
+			}
+			p.future.completeExceptionally(e);
+		}
+		synchronized (pending){
+			pending.remove(path, p); // A newer save could have replaced it
+		}
+	}
+
+	/**
+	  Empty file next to the target with the default permissions (createTempFile would make it
+	  readable only by the owner, and the saved file too)
+	*/
+	private static Path createTemp(Path dir, String name) throws IOException {
+		while (true){
+			try {
+				return Files.createFile(dir.resolve("." + name + "." + Long.toHexString(System.nanoTime()) + ".tmp"));
+			} catch (FileAlreadyExistsException e){
+				// Try another name
+			}
+		}
+	}
+
+	/**
+	  Wait until the file has been written, call it before reading a file that could be saved
+	*/
+	public static void flush(String path){
+		if (Thread.currentThread() == writerThread){
+			return; // Previous saves are already written
+		}
+		CompletableFuture<Void> future;
+		synchronized (pending){
+			Pending p = pending.get(new File(path).getAbsolutePath());
+			if (p == null){
+				return;
+			}
+			future = p.future;
+		}
+		future.exceptionally(e -> null).join();
+	}
+
+	/**
+	  Wait until all the saves requested until now have been written
+	*/
+	public static void flushAll(){
+		if (Thread.currentThread() == writerThread){
+			return;
+		}
+		try {
+			writer.submit(() -> {}).get();
+		} catch (Exception e){
+			Logger.warning("Could not wait for the saves: "+e.getMessage());
+		}
+	}
+}
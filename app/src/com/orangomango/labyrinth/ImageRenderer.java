@@ -0,0 +1,238 @@
+package com.orangomango.labyrinth;
+
+import javafx.scene.paint.Color;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+  Headless TileRenderer: tiles are rasterised in a raw ARGB buffer (no Canvas, no FX thread).
+  Sprites are sampled nearest-neighbour and blended with src-over, text is not drawn.
+*/
+public class ImageRenderer implements TileRenderer {
+	private int width, height;
+	private int bandY, bandY1; // Rows this renderer can draw on (bandY1 excluded)
+	private int[] pixels;
+	private double alpha = 1;
+	private int clipX, clipY, clipX1, clipY1; // clipX1 and clipY1 excluded
+	private Deque<int[]> clipStack = new ArrayDeque<>();
+
+	public ImageRenderer(int width, int height){
+		this(new int[width * height], width, height, 0, height);
+	}
+
+	/**
+	  Renderer that draws only on rows bandY to bandY+bandHeight of a shared buffer,
+	  renderers of different bands can draw at the same time.
+	*/
+	public ImageRenderer(int[] pixels, int width, int height, int bandY, int bandHeight){
+		this.width = width;
+		this.height = height;
+		this.pixels = pixels;
+		this.bandY = Math.max(bandY, 0);
+		this.bandY1 = Math.min(bandY + bandHeight, height);
+		resetClip();
+	}
+
+	public int getWidth(){
+		return this.width;
+	}
+
+	public int getHeight(){
+		return this.height;
+	}
+
+	/**
+	  First row of the band
+	*/
+	public int getBandY(){
+		return this.bandY;
+	}
+
+	/**
+	  Row after the last row of the band
+	*/
+	public int getBandY1(){
+		return this.bandY1;
+	}
+
+	/**
+	  @return the ARGB buffer (row by row, not premultiplied)
+	*/
+	public int[] getPixels(){
+		return this.pixels;
+	}
+
+	/**
+	  Clear the buffer (only the band) and reset alpha and clip so the renderer can be reused
+	*/
+	public void reset(){
+		Arrays.fill(this.pixels, this.bandY * this.width, this.bandY1 * this.width, 0);
+		this.alpha = 1;
+		this.clipStack.clear();
+		resetClip();
+	}
+
+	private void resetClip(){
+		this.clipX = 0;
+		this.clipY = this.bandY;
+		this.clipX1 = this.width;
+		this.clipY1 = this.bandY1;
+	}
+
+	/**
+	  Convert the band to premultiplied ARGB (format of PixelBuffer), nothing can be drawn after this
+	*/
+	public void premultiply(){
+		for (int i = this.bandY * this.width; i < this.bandY1 * this.width; i++){
+			int argb = this.pixels[i];
+			int a = argb >>> 24;
+			if (a == 255){
+				continue;
+			}
+			if (a == 0){
+				this.pixels[i] = 0;
+				continue;
+			}
+			int r = ((argb >> 16) & 0xff) * a / 255;
+			int g = ((argb >> 8) & 0xff) * a / 255;
+			int b = (argb & 0xff) * a / 255;
+			this.pixels[i] = (a << 24) | (r << 16) | (g << 8) | b;
+		}
+	}
+
+	public BufferedImage toBufferedImage(){
+		BufferedImage image = new BufferedImage(this.width, this.height, BufferedImage.TYPE_INT_ARGB);
+		image.setRGB(0, 0, this.width, this.height, this.pixels, 0, this.width);
+		return image;
+	}
+
+	@Override
+	public void drawSprite(Sprite sprite, int frame, double x, double y, double w, double h){
+		if (frame < 0 || frame >= sprite.getFrameCount() || w <= 0 || h <= 0){
+			return;
+		}
+		int[] src = sprite.getPixels();
+		if (src == null){
+			return;
+		}
+		int stride = sprite.getRegionWidth();
+		int fx = (int)sprite.getSourceX(frame) - sprite.getRegionX();
+		int fy = (int)sprite.getSourceY() - sprite.getRegionY();
+		int fw = (int)sprite.getWidth();
+		int fh = (int)sprite.getHeight();
+		if (fw <= 0 || fh <= 0){
+			return;
+		}
+		int sx = Math.max((int)Math.round(x), this.clipX);
+		int sy = Math.max((int)Math.round(y), this.clipY);
+		int ex = Math.min((int)Math.round(x + w), this.clipX1);
+		int ey = Math.min((int)Math.round(y + h), this.clipY1);
+		for (int py = sy; py < ey; py++){
+			int v = fy + Math.min((int)((py + 0.5 - y) * fh / h), fh - 1);
+			int row = py * this.width;
+			int srcRow = v * stride;
+			for (int px = sx; px < ex; px++){
+				int u = fx + Math.min((int)((px + 0.5 - x) * fw / w), fw - 1);
+				blend(row + px, src[srcRow + u]);
+			}
+		}
+	}
+
+	@Override
+	public void fillRect(Color color, double x, double y, double w, double h){
+		int argb = toArgb(color);
+		int sx = Math.max((int)Math.round(x), this.clipX);
+		int sy = Math.max((int)Math.round(y), this.clipY);
+		int ex = Math.min((int)Math.round(x + w), this.clipX1);
+		int ey = Math.min((int)Math.round(y + h), this.clipY1);
+		for (int py = sy; py < ey; py++){
+			for (int px = sx; px < ex; px++){
+				blend(py * this.width + px, argb);
+			}
+		}
+	}
+
+	@Override
+	public void clearRect(double x, double y, double w, double h){
+		int sx = Math.max((int)Math.round(x), this.clipX);
+		int sy = Math.max((int)Math.round(y), this.clipY);
+		int ex = Math.min((int)Math.round(x + w), this.clipX1);
+		int ey = Math.min((int)Math.round(y + h), this.clipY1);
+		for (int py = sy; py < ey; py++){
+			if (sx < ex){
+				Arrays.fill(this.pixels, py * this.width + sx, py * this.width + ex, 0);
+			}
+		}
+	}
+
+	@Override
+	public void strokeText(String text, Color color, String font, double size, double x, double y){
+		// Fonts need the FX toolkit, text is only drawn on a Canvas
+	}
+
+	@Override
+	public void setGlobalAlpha(double alpha){
+		this.alpha = Math.max(0, Math.min(alpha, 1));
+	}
+
+	@Override
+	public void save(){
+		this.clipStack.push(new int[]{this.clipX, this.clipY, this.clipX1, this.clipY1});
+	}
+
+	@Override
+	public void clip(double x, double y, double w, double h){
+		this.clipX = Math.max(this.clipX, (int)Math.round(x));
+		this.clipY = Math.max(this.clipY, (int)Math.round(y));
+		this.clipX1 = Math.min(this.clipX1, (int)Math.round(x + w));
+		this.clipY1 = Math.min(this.clipY1, (int)Math.round(y + h));
+	}
+
+	@Override
+	public void restore(){
+		if (this.clipStack.isEmpty()){
+			return;
+		}
+		int[] c = this.clipStack.pop();
+		this.clipX = c[0];
+		this.clipY = c[1];
+		this.clipX1 = c[2];
+		this.clipY1 = c[3];
+	}
+
+	private static int toArgb(Color color){
+		int a = (int)Math.round(color.getOpacity() * 255);
+		int r = (int)Math.round(color.getRed() * 255);
+		int g = (int)Math.round(color.getGreen() * 255);
+		int b = (int)Math.round(color.getBlue() * 255);
+		return (a << 24) | (r << 16) | (g << 8) | b;
+	}
+
+	/**
+	  Src-over blending of a non-premultiplied ARGB pixel
+	*/
+	private void blend(int index, int src){
+		int sa = (int)Math.round((src >>> 24) * this.alpha);
+		if (sa == 0){
+			return;
+		}
+		if (sa == 255){
+			this.pixels[index] = src;
+			return;
+		}
+		int dst = this.pixels[index];
+		int da = dst >>> 24;
+		int oa = sa + da * (255 - sa) / 255;
+		if (oa == 0){
+			this.pixels[index] = 0;
+			return;
+		}
+		int r = (((src >> 16) & 0xff) * sa + ((dst >> 16) & 0xff) * da * (255 - sa) / 255) / oa;
+		int g = (((src >> 8) & 0xff) * sa + ((dst >> 8) & 0xff) * da * (255 - sa) / 255) / oa;
+		int b = ((src & 0xff) * sa + (dst & 0xff) * da * (255 - sa) / 255) / oa;
+		this.pixels[index] = (oa << 24) | (r << 16) | (g << 8) | b;
+	}
+}
@@ -0,0 +1,422 @@
+package com.orangomango.labyrinth;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+  Content of a level file without any game object: tile ids and info strings, start/end,
+  lights, light options and the optional engineering layer. It can be read and written in
+  the text format (.wld, the lights line is "lights[,radius,occlusion]") and in the binary
+  format (.wldb):
+  <pre>
+  "WLDB" version
+  information
+  width height startX startY endX endY flags(1: lights, 2: engineering layer, 4: light options)
+  [light radius, occlusion] (version 2)
+  dictionary size, info strings
+  tiles: (id &lt;&lt; 1 | hasInfo) [info index]
+  engineering tiles (same encoding)
+  </pre>
+  All numbers are varints, strings are UTF-8 prefixed by their length.
+*/
+public class LevelData {
+	public static final String BINARY_EXTENSION = ".wldb";
+	private static final byte[] MAGIC = {'W', 'L', 'D', 'B'};
+	private static final int VERSION = 2; // Files without light options are written as version 1
+	private static final int FLAG_LIGHTS = 1;
+	private static final int FLAG_ENGINEERING = 2;
+	private static final int FLAG_LIGHT_OPTIONS = 4;
+
+	public String information;
+	public int width, height;
+	public int[] start, end;
+	public Boolean lights; // null when the file has no light data
+	public Integer lightRadius; // null for the default options (see World.setLightOptions)
+	public boolean lightOcclusion;
+	public int[] tiles; // width*height ids (see Block.fromInt)
+	public String[] infos;
+	public int[] engTiles; // null when there is no engineering layer (see EngBlock.fromInt)
+	public String[] engInfos;
+
+	public static boolean isBinary(String path){
+		return path.endsWith(BINARY_EXTENSION);
+	}
+
+	/**
+	  Read a level file, the format depends on the extension
+	*/
+	public static LevelData read(File file) throws IOException {
+		FileSaver.flush(file.getPath());
+		if (isBinary(file.getName())){
+			try (InputStream in = new BufferedInputStream(new FileInputStream(file))){
+				return readBinary(in);
+			}
+		} else {
+			try (BufferedReader reader = new BufferedReader(new FileReader(file))){
+				return readText(reader);
+			}
+		}
+	}
+
+	public void write(File file) throws IOException {
+		if (isBinary(file.getName())){
+			try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))){
+				writeBinary(out);
+			}
+		} else {
+			try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))){
+				writeText(writer);
+			}
+		}
+	}
+
+	/**
+	  Write the level in background (see FileSaver), the format depends on the extension.
+	  The data must not be changed after this call.
+	*/
+	public CompletableFuture<Void> save(String path){
+		boolean binary = isBinary(path);
+		return FileSaver.save(path, out -> {
+			if (binary){
+				writeBinary(out);
+			} else {
+				Writer writer = new BufferedWriter(new OutputStreamWriter(out, Charset.defaultCharset()));
+				writeText(writer);
+				writer.flush();
+			}
+		});
+	}
+
+	/**
+	  Copy of the level, the arrays are not shared
+	*/
+	public LevelData copy(){
+		LevelData data = new LevelData();
+		data.information = this.information;
+		data.width = this.width;
+		data.height = this.height;
+		data.start = this.start.clone();
+		data.end = this.end.clone();
+		data.lights = this.lights;
+		data.lightRadius = this.lightRadius;
+		data.lightOcclusion = this.lightOcclusion;
+		data.tiles = this.tiles.clone();
+		data.infos = this.infos.clone();
+		data.engTiles = this.engTiles != null ? this.engTiles.clone() : null;
+		data.engInfos = this.engInfos != null ? this.engInfos.clone() : null;
+		return data;
+	}
+
+	/**
+	  Convert a level between .wld and .wldb (or any other combination), no data is lost
+	*/
+	public static void convert(File input, File output) throws IOException {
+		read(input).write(output);
+	}
+
+	// ---- Text format ----
+
+	/**
+	  Read a level in the text format starting from the current position of reader
+	*/
+	public static LevelData readText(Reader reader) throws IOException {
+		return readText(new LevelTokenizer(reader));
+	}
+
+	/**
+	  Read only the header of the next level of tokenizer, the tiles are skipped
+	*/
+	public static LevelHeader readTextHeader(LevelTokenizer tokenizer) throws IOException {
+		LevelHeader header = new LevelHeader();
+		header.information = tokenizer.readLine();
+		String size = tokenizer.readLine();
+		if (header.information == null || size == null){
+			throw new IOException("Missing level header");
+		}
+		int sep = size.indexOf('x');
+		header.width = Integer.parseInt(size.substring(0, sep));
+		header.height = Integer.parseInt(size.substring(sep+1));
+		tokenizer.skipTiles();
+		tokenizer.readLine(); // Start
+		tokenizer.readLine(); // End
+		tokenizer.readLine(); // Lights
+		String eng = tokenizer.readLine();
+		if ("engineering_mode".equals(eng)){
+			header.engineering = true;
+			tokenizer.skipTiles();
+		} else if (eng != null){
+			tokenizer.unreadLine(eng);
+		}
+		return header;
+	}
+
+	/**
+	  Read the next level of tokenizer, more levels can be read one after the other (arcade files)
+	*/
+	public static LevelData readText(LevelTokenizer tokenizer) throws IOException {
+		LevelData data = new LevelData();
+		data.information = tokenizer.readLine();
+		String size = tokenizer.readLine();
+		if (data.information == null || size == null){
+			throw new IOException("Missing level header");
+		}
+		int sep = size.indexOf('x');
+		data.width = Integer.parseInt(size.substring(0, sep));
+		data.height = Integer.parseInt(size.substring(sep+1));
+		data.tiles = new int[data.width*data.height];
+		data.infos = new String[data.tiles.length];
+		tokenizer.readTiles(data.tiles, data.infos);
+		data.start = parsePoint(tokenizer.readLine());
+		data.end = parsePoint(tokenizer.readLine());
+		String lights = tokenizer.readLine();
+		if (lights != null && lights.indexOf(',') > 0){
+			String[] options = lights.split(",");
+			data.lightRadius = Integer.parseInt(options[1]);
+			data.lightOcclusion = options.length > 2 && options[2].equals("1");
+			lights = options[0];
+		}
+		if ("1".equals(lights)){
+			data.lights = true;
+		} else if ("0".equals(lights)){
+			data.lights = false;
+		}
+		String eng = tokenizer.readLine();
+		if ("engineering_mode".equals(eng)){
+			data.engTiles = new int[data.tiles.length];
+			data.engInfos = new String[data.tiles.length];
+			tokenizer.readTiles(data.engTiles, data.engInfos);
+		} else if (eng != null){
+			tokenizer.unreadLine(eng); // Start of the next level
+		}
+		return data;
+	}
+
+	private static int[] parsePoint(String line) throws IOException {
+		if (line == null){
+			throw new IOException("Missing start/end position");
+		}
+		String[] split = line.split(",");
+		return new int[]{Integer.parseInt(split[0]), Integer.parseInt(split[1])};
+	}
+
+	/**
+	  Write the level in the text format, the writer is not closed (more levels can follow in an arcade file).
+	  Tiles are streamed one by one, the output is the same of the old writer (also the comma after
+	  every engineering tile).
+	*/
+	public void writeText(Writer writer) throws IOException {
+		char[] digits = new char[11];
+		writer.write(this.information);
+		writer.write(System.lineSeparator());
+		writeInt(writer, this.width, digits);
+		writer.write('x');
+		writeInt(writer, this.height, digits);
+		writer.write('\n');
+		writeTiles(writer, this.tiles, this.infos, false, digits);
+		writer.write(System.lineSeparator());
+		writer.write(this.start[0] + "," + this.start[1] + "\n");
+		writer.write(this.end[0] + "," + this.end[1] + "\n");
+		writer.write(Boolean.TRUE.equals(this.lights) ? "1" : "0");
+		if (this.lightRadius != null){
+			writer.write("," + this.lightRadius + (this.lightOcclusion ? ",1" : ",0"));
+		}
+		if (this.engTiles != null){
+			writer.write("\nengineering_mode\n");
+			writeTiles(writer, this.engTiles, this.engInfos, true, digits);
+		}
+	}
+
+	private static void writeTiles(Writer writer, int[] ids, String[] infos, boolean trailingComma, char[] digits) throws IOException {
+		for (int i = 0; i < ids.length; i++){
+			writeInt(writer, ids[i], digits);
+			if (infos[i] != null){
+				writer.write(':');
+				writer.write(infos[i]);
+			}
+			if (trailingComma || i+1 < ids.length){
+				writer.write(',');
+			}
+		}
+	}
+
+	private static void writeInt(Writer writer, int value, char[] digits) throws IOException {
+		if (value >= 0 && value < 10){
+			writer.write('0' + value);
+			return;
+		}
+		long v = Math.abs((long)value);
+		int p = digits.length;
+		do {
+			digits[--p] = (char)('0' + v % 10);
+			v /= 10;
+		} while (v > 0);
+		if (value < 0){
+			digits[--p] = '-';
+		}
+		writer.write(digits, p, digits.length - p);
+	}
+
+	// ---- Binary format ----
+
+	/**
+	  Read only the header of a binary level, the rest of the stream is not read
+	*/
+	public static LevelHeader readBinaryHeader(InputStream input) throws IOException {
+		DataInputStream in = new DataInputStream(input);
+		readMagic(in);
+		LevelHeader header = new LevelHeader();
+		header.information = readString(in);
+		header.width = readVarint(in);
+		header.height = readVarint(in);
+		for (int i = 0; i < 4; i++){
+			readVarint(in); // Start and end
+		}
+		header.engineering = (in.readUnsignedByte() & FLAG_ENGINEERING) != 0;
+		return header;
+	}
+
+	private static void readMagic(DataInputStream in) throws IOException {
+		byte[] magic = new byte[MAGIC.length];
+		in.readFully(magic);
+		for (int i = 0; i < MAGIC.length; i++){
+			if (magic[i] != MAGIC[i]){
+				throw new IOException("Not a binary level file");
+			}
+		}
+		int version = in.readUnsignedByte();
+		if (version < 1 || version > VERSION){
+			throw new IOException("Unsupported binary level version: "+version);
+		}
+	}
+
+	public static LevelData readBinary(InputStream input) throws IOException {
+		DataInputStream in = new DataInputStream(input);
+		readMagic(in);
+		LevelData data = new LevelData();
+		data.information = readString(in);
+		data.width = readVarint(in);
+		data.height = readVarint(in);
+		data.start = new int[]{readVarint(in), readVarint(in)};
+		data.end = new int[]{readVarint(in), readVarint(in)};
+		int flags = in.readUnsignedByte();
+		data.lights = (flags & FLAG_LIGHTS) != 0;
+		if ((flags & FLAG_LIGHT_OPTIONS) != 0){
+			data.lightRadius = readVarint(in);
+			data.lightOcclusion = in.readUnsignedByte() != 0;
+		}
+		String[] dictionary = new String[readVarint(in)];
+		for (int i = 0; i < dictionary.length; i++){
+			dictionary[i] = readString(in);
+		}
+		data.tiles = new int[data.width*data.height];
+		data.infos = new String[data.tiles.length];
+		readTiles(in, dictionary, data.tiles, data.infos);
+		if ((flags & FLAG_ENGINEERING) != 0){
+			data.engTiles = new int[data.tiles.length];
+			data.engInfos = new String[data.tiles.length];
+			readTiles(in, dictionary, data.engTiles, data.engInfos);
+		}
+		return data;
+	}
+
+	private static void readTiles(DataInputStream in, String[] dictionary, int[] ids, String[] infos) throws IOException {
+		for (int i = 0; i < ids.length; i++){
+			int v = readVarint(in);
+			ids[i] = v >>> 1;
+			if ((v & 1) != 0){
+				infos[i] = dictionary[readVarint(in)];
+			}
+		}
+	}
+
+	public void writeBinary(OutputStream output) throws IOException {
+		DataOutputStream out = new DataOutputStream(output);
+		// Every info string is stored once
+		Map<String, Integer> indexes = new HashMap<>();
+		List<String> dictionary = new ArrayList<>();
+		addToDictionary(this.infos, indexes, dictionary);
+		if (this.engTiles != null){
+			addToDictionary(this.engInfos, indexes, dictionary);
+		}
+
+		out.write(MAGIC);
+		out.writeByte(this.lightRadius != null ? VERSION : 1);
+		writeString(out, this.information);
+		writeVarint(out, this.width);
+		writeVarint(out, this.height);
+		writeVarint(out, this.start[0]);
+		writeVarint(out, this.start[1]);
+		writeVarint(out, this.end[0]);
+		writeVarint(out, this.end[1]);
+		out.writeByte((Boolean.TRUE.equals(this.lights) ? FLAG_LIGHTS : 0) | (this.engTiles != null ? FLAG_ENGINEERING : 0) | (this.lightRadius != null ? FLAG_LIGHT_OPTIONS : 0));
+		if (this.lightRadius != null){
+			writeVarint(out, this.lightRadius);
+			out.writeByte(this.lightOcclusion ? 1 : 0);
+		}
+		writeVarint(out, dictionary.size());
+		for (String s : dictionary){
+			writeString(out, s);
+		}
+		writeTiles(out, indexes, this.tiles, this.infos);
+		if (this.engTiles != null){
+			writeTiles(out, indexes, this.engTiles, this.engInfos);
+		}
+		out.flush();
+	}
+
+	private static void addToDictionary(String[] infos, Map<String, Integer> indexes, List<String> dictionary){
+		for (String info : infos){
+			if (info != null && !indexes.containsKey(info)){
+				indexes.put(info, dictionary.size());
+				dictionary.add(info);
+			}
+		}
+	}
+
+	private static void writeTiles(DataOutputStream out, Map<String, Integer> indexes, int[] ids, String[] infos) throws IOException {
+		for (int i = 0; i < ids.length; i++){
+			writeVarint(out, (ids[i] << 1) | (infos[i] != null ? 1 : 0));
+			if (infos[i] != null){
+				writeVarint(out, indexes.get(infos[i]));
+			}
+		}
+	}
+
+	private static int readVarint(DataInputStream in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7){
+			int b = in.readUnsignedByte();
+			value |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0){
+				return value;
+			}
+		}
+		throw new IOException("Malformed varint");
+	}
+
+	private static void writeVarint(DataOutputStream out, int value) throws IOException {
+		while ((value & ~0x7f) != 0){
+			out.writeByte((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[readVarint(in)];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeString(DataOutputStream out, String s) throws IOException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		writeVarint(out, bytes.length);
+		out.write(bytes);
+	}
+}
@@ -0,0 +1,55 @@
+package com.orangomango.labyrinth;
+
+import java.io.*;
+
+/**
+  Information, size and engineering layer of a level, read without the tiles so a level
+  can be listed without building a World. An arcade file has a header for every pattern.
+*/
+public class LevelHeader {
+	public String information;
+	public int width, height;
+	public boolean engineering;
+	public LevelHeader[] patterns = null; // Patterns of an arcade file, null for normal levels
+
+	/**
+	  Read the header of a level file or of an entry of a pack, with a single pass on the file
+	*/
+	public static LevelHeader read(String path) throws IOException {
+		if (LevelData.isBinary(path)){
+			try (InputStream in = new BufferedInputStream(LevelPack.openStream(path))){
+				return LevelData.readBinaryHeader(in);
+			}
+		}
+		try (BufferedReader reader = LevelPack.openReader(path)){
+			reader.mark(256);
+			String first = reader.readLine();
+			LevelTokenizer tokenizer;
+			if (first != null && first.startsWith(ArcadeIndex.NUM_WORLDS)){
+				tokenizer = new LevelTokenizer(reader); // Other header lines are comments
+				LevelHeader[] patterns = new LevelHeader[Integer.parseInt(first.substring(ArcadeIndex.NUM_WORLDS.length()).trim())];
+				for (int i = 0; i < patterns.length; i++){
+					patterns[i] = LevelData.readTextHeader(tokenizer);
+				}
+				if (patterns.length == 0){
+					throw new IOException("Empty arcade file");
+				}
+				LevelHeader header = new LevelHeader();
+				header.information = patterns[0].information;
+				header.width = patterns[0].width;
+				header.height = patterns[0].height;
+				header.engineering = patterns[0].engineering;
+				header.patterns = patterns;
+				return header;
+			}
+			reader.reset();
+			return LevelData.readTextHeader(new LevelTokenizer(reader));
+		} catch (NumberFormatException | IndexOutOfBoundsException e){
+			throw new IOException("Invalid level header: "+e.getMessage());
+		}
+	}
+
+	public boolean isArcade(){
+		return this.patterns != null;
+	}
+}
@@ -0,0 +1,289 @@
+package com.orangomango.labyrinth;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import static com.orangomango.labyrinth.menu.editor.Editor.PATH;
+
+/**
+  Many level files (.wld, .wldb, .arc) in a single read-only file:
+  <pre>
+  "LPAK" version count
+  directory: name flags(1: deflate) offset storedLength rawLength
+  data of the entries
+  </pre>
+  The pack is memory mapped and only the directory is read when it's opened, an entry is
+  decompressed and parsed when it's loaded. An entry is addressed with a path like
+  "levels.lpk!level1.wld", that can be used as the file path of a World.
+*/
+public class LevelPack {
+	public static final String EXTENSION = ".lpk";
+	public static final String SEPARATOR = "!";
+	public static final String SYSTEM_PACK = "system" + EXTENSION;
+	private static final byte[] MAGIC = {'L', 'P', 'A', 'K'};
+	private static final int VERSION = 1;
+	private static final int FLAG_DEFLATE = 1;
+
+	private static class Entry {
+		private int offset, length, rawLength;
+		private boolean compressed;
+	}
+
+	private static Map<String, LevelPack> openPacks = new HashMap<>();
+
+	private File file;
+	private long lastModified;
+	private MappedByteBuffer buffer;
+	private Map<String, Entry> entries = new LinkedHashMap<>();
+
+	private LevelPack(File file) throws IOException {
+		this.file = file;
+		this.lastModified = file.lastModified();
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)){
+			this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		ByteBuffer b = this.buffer.duplicate();
+		for (byte m : MAGIC){
+			if (b.get() != m){
+				throw new IOException("Not a level pack: "+file.getName());
+			}
+		}
+		int version = b.get() & 0xff;
+		if (version != VERSION){
+			throw new IOException("Unsupported level pack version: "+version);
+		}
+		int count = b.getInt();
+		for (int i = 0; i < count; i++){
+			byte[] name = new byte[b.getShort() & 0xffff];
+			b.get(name);
+			Entry e = new Entry();
+			e.compressed = (b.get() & FLAG_DEFLATE) != 0;
+			e.offset = b.getInt();
+			e.length = b.getInt();
+			e.rawLength = b.getInt();
+			if (e.offset < 0 || e.length < 0 || (long)e.offset + e.length > this.buffer.capacity()){
+				throw new IOException("Corrupted level pack: "+file.getName());
+			}
+			this.entries.put(new String(name, StandardCharsets.UTF_8), e);
+		}
+	}
+
+	/**
+	  Open a pack, the same object is returned until the file is changed
+	*/
+	public static synchronized LevelPack open(File file) throws IOException {
+		String key = file.getAbsolutePath();
+		LevelPack pack = openPacks.get(key);
+		if (pack == null || pack.lastModified != file.lastModified()){
+			pack = new LevelPack(file);
+			openPacks.put(key, pack);
+		}
+		return pack;
+	}
+
+	public File getFile(){
+		return this.file;
+	}
+
+	public List<String> getNames(){
+		return new ArrayList<>(this.entries.keySet());
+	}
+
+	public boolean contains(String name){
+		return this.entries.containsKey(name);
+	}
+
+	/**
+	  @return size of an entry when it's decompressed, -1 if it doesn't exist
+	*/
+	public int getSize(String name){
+		Entry e = this.entries.get(name);
+		return e == null ? -1 : e.rawLength;
+	}
+
+	/**
+	  @return path of an entry, it can be opened with openStream()
+	*/
+	public String getPath(String name){
+		return this.file.getAbsolutePath() + SEPARATOR + name;
+	}
+
+	/**
+	  Decompressed content of an entry, read directly from the mapped file
+	*/
+	public InputStream openEntry(String name) throws IOException {
+		Entry e = this.entries.get(name);
+		if (e == null){
+			throw new FileNotFoundException(name+" not found in "+this.file.getName());
+		}
+		ByteBuffer data = this.buffer.duplicate();
+		data.position(e.offset).limit(e.offset + e.length);
+		InputStream in = new InputStream(){
+			@Override
+			public int read(){
+				return data.hasRemaining() ? data.get() & 0xff : -1;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len){
+				if (!data.hasRemaining()){
+					return -1;
+				}
+				len = Math.min(len, data.remaining());
+				data.get(b, off, len);
+				return len;
+			}
+
+			@Override
+			public long skip(long n){
+				int s = (int)Math.max(0, Math.min(n, data.remaining()));
+				data.position(data.position() + s);
+				return s;
+			}
+
+			@Override
+			public int available(){
+				return data.remaining();
+			}
+		};
+		return e.compressed ? new InflaterInputStream(in) : in;
+	}
+
+	// ---- Paths ----
+
+	public static boolean isEntryPath(String path){
+		return path.contains(EXTENSION + SEPARATOR);
+	}
+
+	/**
+	  Open a level file or an entry of a pack
+	*/
+	public static InputStream openStream(String path) throws IOException {
+		int sep = path.indexOf(EXTENSION + SEPARATOR);
+		if (sep < 0){
+			FileSaver.flush(path); // The file could be waiting to be written
+			return new FileInputStream(path);
+		}
+		sep += EXTENSION.length();
+		return open(new File(path.substring(0, sep))).openEntry(path.substring(sep + SEPARATOR.length()));
+	}
+
+	/**
+	  Same as new BufferedReader(new FileReader(path)) but it supports entries of a pack
+	*/
+	public static BufferedReader openReader(String path) throws IOException {
+		return new BufferedReader(new InputStreamReader(openStream(path), Charset.defaultCharset()));
+	}
+
+	public static byte[] readAllBytes(String path) throws IOException {
+		try (InputStream in = openStream(path)){
+			return in.readAllBytes();
+		}
+	}
+
+	/**
+	  Path of a system level, inside the system pack if it's installed or the old .sys file
+	  @param name - for example "level1.wld" or "arcade.arc"
+	*/
+	public static String getSystemLevel(String name){
+		String dir = PATH + ".labyrinthgame" + File.separator + "SystemLevels" + File.separator;
+		File packFile = new File(dir + SYSTEM_PACK);
+		if (packFile.exists()){
+			try {
+				LevelPack pack = open(packFile);
+				if (pack.contains(name)){
+					return pack.getPath(name);
+				}
+			} catch (IOException e){
+				Logger.error("Could not open the system levels: "+e.getMessage());
+			}
+		}
+		return dir + name + ".sys";
+	}
+
+	// ---- Writing ----
+
+	/**
+	  Create a pack with the given files, the names of the entries are the file names
+	  @param compress - entries are compressed when it makes them smaller
+	*/
+	public static void create(File output, List<File> files, boolean compress) throws IOException {
+		Map<String, byte[]> content = new LinkedHashMap<>();
+		for (File f : files){
+			content.put(f.getName(), Files.readAllBytes(f.toPath()));
+		}
+		write(output, content, compress);
+	}
+
+	public static void write(File output, Map<String, byte[]> content, boolean compress) throws IOException {
+		List<byte[]> names = new ArrayList<>();
+		List<byte[]> stored = new ArrayList<>();
+		List<Boolean> compressed = new ArrayList<>();
+		int headerSize = MAGIC.length + 1 + 4;
+		for (Map.Entry<String, byte[]> e : content.entrySet()){
+			byte[] name = e.getKey().getBytes(StandardCharsets.UTF_8);
+			byte[] data = e.getValue();
+			boolean deflate = false;
+			if (compress){
+				byte[] deflated = deflate(data);
+				if (deflated.length < data.length){
+					data = deflated;
+					deflate = true;
+				}
+			}
+			names.add(name);
+			stored.add(data);
+			compressed.add(deflate);
+			headerSize += 2 + name.length + 1 + 4 * 3;
+		}
+
+		// Written to a temporary file first, the old pack could be mapped
+		File temp = new File(output.getAbsolutePath() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))){
+			out.write(MAGIC);
+			out.writeByte(VERSION);
+			out.writeInt(names.size());
+			int offset = headerSize;
+			int i = 0;
+			for (byte[] raw : content.values()){
+				out.writeShort(names.get(i).length);
+				out.write(names.get(i));
+				out.writeByte(compressed.get(i) ? FLAG_DEFLATE : 0);
+				out.writeInt(offset);
+				out.writeInt(stored.get(i).length);
+				out.writeInt(raw.length);
+				offset += stored.get(i).length;
+				i++;
+			}
+			for (byte[] data : stored){
+				out.write(data);
+			}
+		}
+		Files.move(temp.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		synchronized (LevelPack.class){
+			openPacks.remove(output.getAbsolutePath());
+		}
+	}
+
+	private static byte[] deflate(byte[] data) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+		try (DeflaterOutputStream out = new DeflaterOutputStream(bytes, deflater)){
+			out.write(data);
+		} finally {
+			deflater.end();
+		}
+		return bytes.toByteArray();
+	}
+}
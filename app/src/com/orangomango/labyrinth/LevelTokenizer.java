@@ -0,0 +1,185 @@
+package com.orangomango.labyrinth;
+
+import java.io.*;
+
+/**
+  Single pass reader of the text level format. The tiles line is read straight from a char
+  buffer: ids are parsed in place and equal info strings are created only once, so a level
+  is loaded without splitting the (very long) tiles line.
+*/
+public class LevelTokenizer {
+	private static final int INFO_CACHE_SIZE = 256; // Power of 2
+
+	private Reader reader;
+	private char[] buffer = new char[8192];
+	private int pos, limit;
+	private StringBuilder builder = new StringBuilder();
+	private String[] infoCache = new String[INFO_CACHE_SIZE];
+	private String pushedLine;
+
+	/**
+	  LevelTokenizer class constructor
+	  @param r - reader at the start of a level, characters after the level could be consumed
+	*/
+	public LevelTokenizer(Reader r){
+		this.reader = r;
+	}
+
+	private int peek() throws IOException {
+		if (this.pos == this.limit){
+			this.limit = this.reader.read(this.buffer, 0, this.buffer.length);
+			this.pos = 0;
+			if (this.limit <= 0){
+				this.limit = 0;
+				return -1;
+			}
+		}
+		return this.buffer[this.pos];
+	}
+
+	private int next() throws IOException {
+		int c = peek();
+		if (c >= 0){
+			this.pos++;
+		}
+		return c;
+	}
+
+	/**
+	  Consume a line terminator (\n, \r or \r\n) if it's the next character
+	  @return false if the next character is not the end of a line
+	*/
+	private boolean skipNewLine() throws IOException {
+		int c = peek();
+		if (c == '\n'){
+			next();
+			return true;
+		} else if (c == '\r'){
+			next();
+			if (peek() == '\n'){
+				next();
+			}
+			return true;
+		}
+		return c < 0;
+	}
+
+	/**
+	  Next line that is not a comment (starting with #), like BufferedReader.readLine() it returns null at the end
+	*/
+	public String readLine() throws IOException {
+		if (this.pushedLine != null){
+			String line = this.pushedLine;
+			this.pushedLine = null;
+			return line;
+		}
+		while (true){
+			if (peek() < 0){
+				return null;
+			}
+			this.builder.setLength(0);
+			int c;
+			while ((c = peek()) >= 0 && c != '\n' && c != '\r'){
+				this.builder.append((char)next());
+			}
+			skipNewLine();
+			if (this.builder.length() == 0 || this.builder.charAt(0) != '#'){
+				return this.builder.toString();
+			}
+		}
+	}
+
+	/**
+	  The next readLine() will return line again (used to look at the line after a level)
+	*/
+	public void unreadLine(String line){
+		this.pushedLine = line;
+	}
+
+	/**
+	  Read a line of tiles: id[:info],id[:info],...
+	  Tokens after the last tile (and a trailing comma) are ignored.
+	*/
+	public void readTiles(int[] ids, String[] infos) throws IOException {
+		if (this.pushedLine != null){
+			throw new IOException("Expected tiles, found: "+this.pushedLine);
+		}
+		// Comment lines before the tiles
+		while (peek() == '#'){
+			readLine();
+		}
+		for (int i = 0; i < ids.length; i++){
+			int c = peek();
+			boolean negative = c == '-';
+			if (negative){
+				next();
+				c = peek();
+			}
+			if (c < '0' || c > '9'){
+				throw new IOException("Expected "+ids.length+" tiles, found "+i);
+			}
+			int value = 0;
+			while ((c = peek()) >= '0' && c <= '9'){
+				value = value * 10 + (next() - '0');
+			}
+			ids[i] = negative ? -value : value;
+			infos[i] = null;
+			if (c == ':'){
+				next();
+				infos[i] = readInfo();
+				c = peek();
+			}
+			if (c == ','){
+				next();
+			} else if (i+1 < ids.length){
+				throw new IOException("Expected "+ids.length+" tiles, found "+(i+1));
+			}
+		}
+		skipLine();
+	}
+
+	/**
+	  Skip a line of tiles without reading it (see LevelHeader)
+	*/
+	public void skipTiles() throws IOException {
+		if (this.pushedLine != null){
+			throw new IOException("Expected tiles, found: "+this.pushedLine);
+		}
+		while (peek() == '#'){
+			readLine();
+		}
+		skipLine();
+	}
+
+	/**
+	  Skip the rest of the current line
+	*/
+	private void skipLine() throws IOException {
+		int c;
+		while ((c = peek()) >= 0 && c != '\n' && c != '\r'){
+			next();
+		}
+		skipNewLine();
+	}
+
+	/**
+	  Info string up to the next comma or the end of the line, equal strings are shared
+	*/
+	private String readInfo() throws IOException {
+		this.builder.setLength(0);
+		int hash = 0;
+		int c;
+		while ((c = peek()) >= 0 && c != ',' && c != '\n' && c != '\r'){
+			hash = 31 * hash + c;
+			this.builder.append((char)next());
+		}
+		int slot = (hash ^ (hash >>> 16)) & (INFO_CACHE_SIZE - 1);
+		String cached = this.infoCache[slot];
+		if (cached != null && cached.contentEquals(this.builder)){
+			return cached;
+		}
+		String info = this.builder.toString();
+		this.infoCache[slot] = info;
+		return info;
+	}
+}
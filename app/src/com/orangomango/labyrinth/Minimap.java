@@ -0,0 +1,207 @@
+package com.orangomango.labyrinth;
+
+import javafx.scene.canvas.*;
+import javafx.scene.image.*;
+import javafx.scene.paint.Color;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import com.orangomango.labyrinth.menu.play.entity.*;
+import static com.orangomango.labyrinth.menu.editor.LevelExe.PWS;
+
+/**
+  Small map of the whole level shown in a corner of the player view, never bigger than MAX_SIZE.
+  A cell of the map is a tile drawn with 1 to 4 pixels or, in levels larger than MAX_SIZE tiles,
+  a square of tiles drawn with one pixel of their average colour. The map is a cached image where
+  only the cells changed since the last frame are written again. Player, end and entities are
+  drawn over it.
+*/
+public class Minimap {
+	public static final int MAX_SIZE = 96;
+	public static final int MAX_SCALE = 4;
+	
+	private World world;
+	private Canvas canvas;
+	private WritableImage image;
+	private int scale; // Pixels of a cell
+	private int step; // Tiles of a cell (side)
+	private int width, height; // In tiles
+	private int cellsX, cellsY;
+	private BitSet dirty; // Cells
+	private boolean allDirty = true;
+	private boolean changed = true;
+	private double[] lastMarkers = new double[0];
+	
+	/**
+	  Minimap class constructor
+	  @param w - World to show
+	*/
+	public Minimap(World w){
+		this.world = w;
+		this.canvas = new Canvas();
+		this.canvas.setMouseTransparent(true);
+		resize();
+	}
+	
+	/**
+	  Build the image for the current size of the world (arcade worlds grow while playing)
+	*/
+	private void resize(){
+		this.width = this.world.width;
+		this.height = this.world.height;
+		int size = Math.max(1, Math.max(this.width, this.height));
+		this.scale = Math.max(1, Math.min(MAX_SCALE, MAX_SIZE / size));
+		this.step = (size + MAX_SIZE - 1) / MAX_SIZE;
+		this.cellsX = (this.width + this.step - 1) / this.step;
+		this.cellsY = (this.height + this.step - 1) / this.step;
+		this.image = new WritableImage(this.cellsX*this.scale, this.cellsY*this.scale);
+		this.dirty = new BitSet(this.cellsX*this.cellsY);
+		this.canvas.setWidth(this.cellsX*this.scale+2);
+		this.canvas.setHeight(this.cellsY*this.scale+2);
+		this.allDirty = true;
+	}
+	
+	public Canvas getCanvas(){
+		return this.canvas;
+	}
+	
+	/**
+	  @return pixels of the map for a tile (less than 1 in large levels)
+	*/
+	public double getScale(){
+		return (double)this.scale / this.step;
+	}
+	
+	public void invalidateAll(){
+		this.allDirty = true;
+	}
+	
+	public void invalidateArea(int x, int y, int x1, int y1){
+		x = Math.max(0, x);
+		y = Math.max(0, y);
+		x1 = Math.min(this.width-1, x1);
+		y1 = Math.min(this.height-1, y1);
+		for (int cy = y / this.step; cy <= y1 / this.step; cy++){
+			for (int cx = x / this.step; cx <= x1 / this.step; cx++){
+				this.dirty.set(cy*this.cellsX+cx);
+			}
+		}
+	}
+	
+	/**
+	  Write the changed tiles and repaint the map if tiles or markers moved, must be called on the FX thread
+	*/
+	public void refresh(){
+		if (this.world.width != this.width || this.world.height != this.height){
+			resize(); // The world has been replaced or combined with another one
+		}
+		PixelWriter writer = this.image.getPixelWriter();
+		int[] tile = new int[this.scale*this.scale];
+		if (this.allDirty){
+			this.allDirty = false;
+			this.dirty.clear();
+			for (int cy = 0; cy < this.cellsY; cy++){
+				for (int cx = 0; cx < this.cellsX; cx++){
+					writeCell(writer, tile, cx, cy);
+				}
+			}
+			this.changed = true;
+		} else if (!this.dirty.isEmpty()){
+			for (int i = this.dirty.nextSetBit(0); i >= 0; i = this.dirty.nextSetBit(i+1)){
+				writeCell(writer, tile, i % this.cellsX, i / this.cellsX);
+			}
+			this.dirty.clear();
+			this.changed = true;
+		}
+		
+		double[] markers = getMarkers();
+		if (!this.changed && Arrays.equals(markers, this.lastMarkers)){
+			return;
+		}
+		this.changed = false;
+		this.lastMarkers = markers;
+		draw(markers);
+	}
+	
+	private void writeCell(PixelWriter writer, int[] tile, int cx, int cy){
+		Arrays.fill(tile, getCellArgb(cx, cy));
+		writer.setPixels(cx*this.scale, cy*this.scale, this.scale, this.scale, PixelFormat.getIntArgbInstance(), tile, 0, this.scale);
+	}
+	
+	/**
+	  Colour of a tile or average colour of the tiles of a cell
+	*/
+	private int getCellArgb(int cx, int cy){
+		if (this.step == 1){
+			return TilePalette.getArgb(this.world.getBlockAt(cx, cy));
+		}
+		int a = 0, r = 0, g = 0, b = 0, n = 0;
+		for (int ty = cy*this.step; ty < Math.min(this.height, (cy+1)*this.step); ty++){
+			for (int tx = cx*this.step; tx < Math.min(this.width, (cx+1)*this.step); tx++){
+				int argb = TilePalette.getArgb(this.world.getBlockAt(tx, ty));
+				a += argb >>> 24;
+				r += (argb >> 16) & 0xff;
+				g += (argb >> 8) & 0xff;
+				b += argb & 0xff;
+				n++;
+			}
+		}
+		return ((a/n) << 24) | ((r/n) << 16) | ((g/n) << 8) | (b/n);
+	}
+	
+	/**
+	  Positions of the dynamic markers: player, end and entities ({x, y} pairs, in tiles)
+	*/
+	private double[] getMarkers(){
+		Entity[] ents = this.world.getEnts();
+		double[] out = new double[4+ents.length*2];
+		Player player = this.world.getPlayer();
+		if (player != null){
+			out[0] = player.psx != null ? player.psx : player.getX();
+			out[1] = player.psy != null ? player.psy : player.getY();
+		} else {
+			out[0] = out[1] = -1;
+		}
+		out[2] = this.world.end[0];
+		out[3] = this.world.end[1];
+		for (int i = 0; i < ents.length; i++){
+			out[4+i*2] = ents[i].getX();
+			out[5+i*2] = ents[i].getY();
+		}
+		return out;
+	}
+	
+	private void draw(double[] markers){
+		GraphicsContext pen = this.canvas.getGraphicsContext2D();
+		pen.clearRect(0, 0, this.canvas.getWidth(), this.canvas.getHeight());
+		pen.setStroke(Color.BLACK);
+		pen.strokeRect(0.5, 0.5, this.canvas.getWidth()-1, this.canvas.getHeight()-1);
+		pen.drawImage(this.image, 1, 1);
+		
+		Entity[] ents = this.world.getEnts();
+		for (int i = 0; i < ents.length && 4+i*2 < markers.length; i++){
+			Entity e = ents[i];
+			if (e instanceof CSpike || e instanceof ParallelBlock || e instanceof PoisonCloud){
+				continue; // Already part of the tiles or not a point
+			}
+			drawMarker(pen, e instanceof Elevator ? Color.BLUE : Color.ORANGE, markers[4+i*2], markers[5+i*2]);
+		}
+		drawMarker(pen, Color.LIME, markers[2], markers[3]);
+		if (markers[0] >= 0){
+			drawMarker(pen, Color.RED, markers[0], markers[1]);
+			if (this.world.getPlayerView()){
+				double s = getScale();
+				pen.setStroke(Color.WHITE);
+				pen.strokeRect(1+Math.floor(Math.round(markers[0]-PWS)*s)+0.5, 1+Math.floor(Math.round(markers[1]-PWS)*s)+0.5, Math.max(1, Math.round((PWS*2+1)*s)-1), Math.max(1, Math.round((PWS*2+1)*s)-1));
+			}
+		}
+	}
+	
+	private void drawMarker(GraphicsContext pen, Color color, double x, double y){
+		double size = Math.max(2, this.scale);
+		pen.setFill(color);
+		// Centre of the cell of the tile
+		pen.fillRect(1+Math.floor(x / this.step)*this.scale+(this.scale-size)/2, 1+Math.floor(y / this.step)*this.scale+(this.scale-size)/2, size, size);
+	}
+}
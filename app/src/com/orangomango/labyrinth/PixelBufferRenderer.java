@@ -0,0 +1,106 @@
+package com.orangomango.labyrinth;
+
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+  Play mode backend that rasterises the frame in memory instead of using the Canvas draw list.
+  The frame is split in horizontal bands rendered in parallel (ImageRenderer) on a ForkJoinPool,
+  then shown with a single PixelBuffer.updateBuffer() without copies.
+  Use World.setPixelBufferRenderer() to select it.
+*/
+public class PixelBufferRenderer {
+	public static final int BAND_HEIGHT = 64; // px
+
+	private static ForkJoinPool pool = ForkJoinPool.commonPool();
+
+	private World world;
+	private int width, height;
+	private PixelBuffer<IntBuffer> pixelBuffer;
+	private ImageRenderer[] bands;
+	private ImageView view = new ImageView();
+
+	public PixelBufferRenderer(World w, int width, int height){
+		this.world = w;
+		this.view.setMouseTransparent(true);
+		resize(width, height);
+	}
+
+	/**
+	  Node that shows the frame, place it where the world canvas would be
+	*/
+	public ImageView getView(){
+		return this.view;
+	}
+
+	public void resize(int width, int height){
+		this.width = Math.max(width, 1);
+		this.height = Math.max(height, 1);
+		IntBuffer buffer = IntBuffer.allocate(this.width * this.height);
+		this.pixelBuffer = new PixelBuffer<>(this.width, this.height, buffer, PixelFormat.getIntArgbPreInstance());
+		this.bands = createBands(buffer.array(), this.width, this.height);
+		this.view.setImage(new WritableImage(this.pixelBuffer));
+	}
+
+	/**
+	  Renderers of the bands of a frame, they share the same buffer
+	*/
+	public static ImageRenderer[] createBands(int[] pixels, int width, int height){
+		ImageRenderer[] bands = new ImageRenderer[(height + BAND_HEIGHT - 1) / BAND_HEIGHT];
+		for (int i = 0; i < bands.length; i++){
+			bands[i] = new ImageRenderer(pixels, width, height, i * BAND_HEIGHT, BAND_HEIGHT);
+		}
+		return bands;
+	}
+
+	/**
+	  Render the frame (call it on the FX thread)
+	  @param viewX - X coord of the tile drawn at the left border
+	  @param viewY - Y coord of the tile drawn at the top border
+	*/
+	public void render(double viewX, double viewY, int blockWidth){
+		renderBands(this.world, this.bands, viewX, viewY, blockWidth);
+		this.pixelBuffer.updateBuffer(b -> null);
+	}
+
+	/**
+	  Render a frame in parallel, one task for each band (no FX toolkit needed).
+	  The buffer of the bands contains premultiplied ARGB pixels at the end.
+	*/
+	public static void renderBands(World world, ImageRenderer[] bands, double viewX, double viewY, int blockWidth){
+		int width = bands[0].getWidth();
+		int height = bands[0].getHeight();
+		int tx = (int)Math.floor(viewX);
+		int tx1 = (int)Math.ceil(viewX + (double)width / blockWidth) - 1;
+		world.prepareRender(tx, (int)Math.floor(viewY), tx1, (int)Math.ceil(viewY + (double)height / blockWidth) - 1);
+		List<Callable<Void>> tasks = new ArrayList<>();
+		for (ImageRenderer band : bands){
+			tasks.add(() -> {
+				band.reset();
+				RenderContext ctx = new RenderContext(band, blockWidth, viewX, viewY);
+				int ty = (int)Math.floor(viewY + (double)band.getBandY() / blockWidth);
+				int ty1 = (int)Math.ceil(viewY + (double)band.getBandY1() / blockWidth) - 1;
+				world.drawTo(ctx, tx, ty, tx1, ty1);
+				band.premultiply();
+				return null;
+			});
+		}
+		for (Future<Void> f : pool.invokeAll(tasks)){
+			try {
+				f.get();
+			} catch (InterruptedException | ExecutionException e){
+				Logger.error("Could not render band: " + e.getMessage());
+			}
+		}
+	}
+}
@@ -19,8 +19,6 @@ import static com.orangomango.labyrinth.menu.editor.Editor.PATH;
 import com.orangomango.labyrinth.menu.editor.LevelExe;
 import com.orangomango.labyrinth.menu.play.entity.*;
 import com.orangomango.labyrinth.engineering.EngBlock;
-import static com.orangomango.labyrinth.menu.editor.LevelStats.GAP_FACTOR;
-import static com.orangomango.labyrinth.menu.editor.LevelStats.ICON_SIZE;
 
 
 public class Player {
@@ -90,6 +88,7 @@ public class Player {
 	public void removeHealth(int v){
 		if (!healthRemovingStarted){
 			this.health -= v;
+			refreshStats();
 			this.healthRemovingStarted = true;
 			if (this.health <= 0){
 				this.die(null, -1);
@@ -112,12 +111,17 @@ public class Player {
 		return this.oxygen;
 	}
 	
+	/**
+	  Only the level stats are repainted, the world is updated only if the player lost health (it could die)
+	*/
 	public void removeOx(int v){
 		this.oxygen -= v;
+		boolean hurt = false;
 		if (this.oxygen <= 0 || this.oxygen >= 100){
 			if (this.oxygen <= 0){
 				this.oxygen = 0;
 				removeHealth(25);
+				hurt = true;
 			} else if (this.oxygen > 100){
 				this.oxygen = 100;
 			}
@@ -126,6 +130,10 @@ public class Player {
 				oxygenRemovingStarted = false;
 			}
 		}
+		refreshStats();
+		if (!hurt){
+			return;
+		}
 		if (this.world.getPlayerView()){
 			this.world.update(getX()-LevelExe.PWS, getY()-LevelExe.PWS, getX()+LevelExe.PWS, getY()+LevelExe.PWS);
 		} else {
@@ -133,12 +141,19 @@ public class Player {
 		}
 	}
 	
+	private void refreshStats(){
+		if (this.world.getLevelStats() != null){
+			this.world.getLevelStats().refresh();
+		}
+	}
+	
 	public void removeOxCont(int v, int time){
 		if (!oxygenRemovingStarted){
 			oxygenRemovingStarted = true;
 			oxygenT = new Timeline(new KeyFrame(Duration.millis(time), evt -> {
 				removeOx(v);
 			}));
+			RenderStats.track(oxygenT);
 			oxygenT.setCycleCount(Animation.INDEFINITE);
 			oxygenT.play();
 		}
@@ -152,25 +167,38 @@ public class Player {
 	}
 
 	public void setX(int x) {
+		damage();
 		this.x = x;
+		damage();
 	}
 	public void setY(int y) {
+		damage();
 		this.y = y;
+		damage();
+	}
+	
+	/**
+	  Tell the world that the player must be repainted (the level stats are on their own canvas)
+	*/
+	public void damage(){
+		if (this.world == null){
+			return;
+		}
+		double dx = this.psx != null ? this.psx : getX();
+		double dy = this.psy != null ? this.psy : getY();
+		this.world.damageArea((int)Math.floor(dx), (int)Math.floor(dy), (int)Math.ceil(dx), (int)Math.ceil(dy));
 	}
 
-	public void draw(GraphicsContext pen) {
+	public void draw(RenderContext ctx) {
 		if (this.psx == null && this.psy == null){
-			draw(pen, getX(), getY());
+			draw(ctx, getX(), getY());
 		} else {
-			draw(pen, psx, psy);
+			draw(ctx, psx, psy);
 		}
 	}
 	
-	public void draw(GraphicsContext pen, double x, double y) {
-		World.drawRotatedImage(pen, "file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/entities/player", x * World.BLOCK_WIDTH, y * World.BLOCK_WIDTH, World.BLOCK_WIDTH, this.direction, true, false, false, null);
-		if (this.world.getLevelStats() != null){
-			this.world.getLevelStats().draw(x*World.BLOCK_WIDTH-ICON_SIZE/2*(2+GAP_FACTOR)/2, y*World.BLOCK_WIDTH+ICON_SIZE*(2+GAP_FACTOR));
-		}
+	public void draw(RenderContext ctx, double x, double y) {
+		World.drawRotatedImage(ctx, "entities/player", x, y, this.direction, true, false, false, null);
 	}
 
 	public void moveOn(String direction, int m, Stage stage, int[] rec) {
@@ -178,6 +206,7 @@ public class Player {
 		int y = getY();
 		int rep = 0;
 		this.repeat = 0;
+		damage();
 		this.psx = null;
 		this.psy = null;
 		
@@ -195,22 +224,23 @@ public class Player {
 			}
 		}
 		
+		damage();
 		try {
 			if (direction == X) {
 				Block[] xrow = this.world.getXRow(getY());
-				while (this.world.getBlockAt(getX() + m, getY()).getCategory() != this.world.WALL) {
-					setX(getX() + m);
+				int px = getX(); // Probe without moving the player, it would damage the whole row
+				while (this.world.getBlockAt(px + m, getY()).getCategory() != this.world.WALL) {
+					px += m;
 					rep++;
 				}
-				setX(x);
 
 			} else if (direction == Y) {
 				Block[] yrow = this.world.getYRow(getX());
-				while (this.world.getBlockAt(getX(), getY() + m).getCategory() != this.world.WALL) {
-					setY(getY() + m);
+				int py = getY();
+				while (this.world.getBlockAt(getX(), py + m).getCategory() != this.world.WALL) {
+					py += m;
 					rep++;
 				}
-				setY(y);
 			} else {
 				Logger.error("Unknow direction found");
 				return;
@@ -343,7 +373,7 @@ public class Player {
 					for (Entity e : this.world.getEnts()){
 						e.stop();
 					}
-					this.world.changeToWorld(World.combineWorlds(this.world, (new World(getPsFilePath())).worldList.getWorldAt(rnd.nextInt(World.getArcadeLevels(getPsFilePath())))));
+					this.world.changeToWorld(World.combineWorlds(this.world, World.readArcadeLevel(getPsFilePath(), rnd.nextInt(World.getArcadeLevels(getPsFilePath())))));
 					this.world.addEnt(new PoisonCloud(this.world, this.world.width, ph, -2));
 					for (Entity e : this.world.getEnts()){
 						e.start();
@@ -353,6 +383,7 @@ public class Player {
 			
 			this.repeat++;
 		}));
+		RenderStats.track(tl);
 		tl.setCycleCount(rep+1);
 		tl.play();
 	}
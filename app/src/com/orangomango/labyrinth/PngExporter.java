@@ -0,0 +1,138 @@
+package com.orangomango.labyrinth;
+
+import java.io.*;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+  Render worlds to PNG without a window (ImageRenderer), without the FX toolkit
+  call AssetManager.setHeadless(true) first.
+  The image is rendered and compressed in strips of tile rows, so only one strip
+  is in memory at the same time even for very large levels.
+*/
+public class PngExporter {
+	public static final int STRIP_ROWS = 8; // Tile rows rendered at the same time
+	private static final int IDAT_SIZE = 64 * 1024;
+	private static final byte[] SIGNATURE = {(byte)137, 80, 78, 71, 13, 10, 26, 10};
+
+	public static void export(World world, int blockWidth, File file) throws IOException {
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))){
+			export(world, blockWidth, STRIP_ROWS, out);
+		}
+	}
+
+	/**
+	  Export every world of an arcade level as name_1.png, name_2.png...
+	*/
+	public static void exportArcade(World world, int blockWidth, File directory, String name) throws IOException {
+		if (world.worldList == null){
+			export(world, blockWidth, new File(directory, name+"_1.png"));
+			return;
+		}
+		for (int i = 0; i < world.worldList.getLength(); i++){
+			export(world.worldList.getWorldAt(i), blockWidth, new File(directory, name+"_"+(i+1)+".png"));
+		}
+	}
+
+	/**
+	  @param stripRows - number of tile rows rendered at the same time
+	*/
+	public static void export(World world, int blockWidth, int stripRows, OutputStream out) throws IOException {
+		int width = world.width * blockWidth;
+		int height = world.height * blockWidth;
+		DataOutputStream data = new DataOutputStream(out);
+		data.write(SIGNATURE);
+		ByteArrayOutputStream header = new ByteArrayOutputStream();
+		DataOutputStream h = new DataOutputStream(header);
+		h.writeInt(width);
+		h.writeInt(height);
+		h.writeByte(8); // Bit depth
+		h.writeByte(6); // RGBA
+		h.writeByte(0);
+		h.writeByte(0);
+		h.writeByte(0);
+		writeChunk(data, "IHDR", header.toByteArray(), header.size());
+
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+		DeflaterOutputStream image = new DeflaterOutputStream(new ChunkStream(data), deflater, IDAT_SIZE);
+		ImageRenderer renderer = new ImageRenderer(width, Math.min(stripRows, world.height) * blockWidth);
+		byte[] line = new byte[width * 4 + 1]; // Filter type (0) + RGBA pixels
+		for (int row = 0; row < world.height; row += stripRows){
+			int rows = Math.min(stripRows, world.height - row);
+			renderer.reset();
+			world.drawTo(new RenderContext(renderer, blockWidth, 0, row), 0, row, world.width-1, row+rows-1);
+			int[] pixels = renderer.getPixels();
+			for (int y = 0; y < rows * blockWidth; y++){
+				int p = 1;
+				for (int x = 0; x < width; x++){
+					int argb = pixels[y * width + x];
+					line[p++] = (byte)(argb >> 16);
+					line[p++] = (byte)(argb >> 8);
+					line[p++] = (byte)argb;
+					line[p++] = (byte)(argb >>> 24);
+				}
+				image.write(line);
+			}
+		}
+		image.finish();
+		image.flush();
+		deflater.end();
+		writeChunk(data, "IEND", new byte[0], 0);
+		data.flush();
+	}
+
+	private static void writeChunk(DataOutputStream out, String type, byte[] content, int length) throws IOException {
+		byte[] t = type.getBytes("US-ASCII");
+		CRC32 crc = new CRC32();
+		crc.update(t);
+		crc.update(content, 0, length);
+		out.writeInt(length);
+		out.write(t);
+		out.write(content, 0, length);
+		out.writeInt((int)crc.getValue());
+	}
+
+	/**
+	  Compressed data is written as IDAT chunks of IDAT_SIZE bytes
+	*/
+	private static class ChunkStream extends OutputStream {
+		private DataOutputStream out;
+		private byte[] buffer = new byte[IDAT_SIZE];
+		private int size = 0;
+
+		public ChunkStream(DataOutputStream out){
+			this.out = out;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			this.buffer[this.size++] = (byte)b;
+			if (this.size == this.buffer.length){
+				flush();
+			}
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			while (len > 0){
+				int n = Math.min(len, this.buffer.length - this.size);
+				System.arraycopy(b, off, this.buffer, this.size, n);
+				this.size += n;
+				off += n;
+				len -= n;
+				if (this.size == this.buffer.length){
+					flush();
+				}
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			if (this.size > 0){
+				writeChunk(this.out, "IDAT", this.buffer, this.size);
+				this.size = 0;
+			}
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package com.orangomango.labyrinth;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+/**
+  Target of a render: the TileRenderer, the tile size and the camera offset (in tiles).
+  Sprites are taken already scaled to the tile size, so the same world can be rendered
+  at different scales at the same time (previews, main view...) without touching World.BLOCK_WIDTH.
+*/
+public class RenderContext {
+	private TileRenderer renderer;
+	private int blockWidth;
+	private double offsetX, offsetY;
+
+	public RenderContext(GraphicsContext pen, int blockWidth){
+		this(pen, blockWidth, 0, 0);
+	}
+
+	public RenderContext(GraphicsContext pen, int blockWidth, double offsetX, double offsetY){
+		this(new CanvasRenderer(pen), blockWidth, offsetX, offsetY);
+	}
+
+	public RenderContext(TileRenderer renderer, int blockWidth){
+		this(renderer, blockWidth, 0, 0);
+	}
+
+	public RenderContext(TileRenderer renderer, int blockWidth, double offsetX, double offsetY){
+		this.renderer = renderer;
+		this.blockWidth = blockWidth;
+		this.offsetX = offsetX;
+		this.offsetY = offsetY;
+	}
+
+	public TileRenderer getRenderer(){
+		return this.renderer;
+	}
+
+	/**
+	  @return the GraphicsContext or null if the renderer does not draw on a Canvas
+	*/
+	public GraphicsContext getPen(){
+		return this.renderer instanceof CanvasRenderer ? ((CanvasRenderer)this.renderer).getPen() : null;
+	}
+
+	public int getBlockWidth(){
+		return this.blockWidth;
+	}
+
+	public double getOffsetX(){
+		return this.offsetX;
+	}
+
+	public double getOffsetY(){
+		return this.offsetY;
+	}
+
+	/**
+	  Same target and scale, tile (x, y) is drawn at 0, 0
+	*/
+	public RenderContext withOffset(double x, double y){
+		return new RenderContext(this.renderer, this.blockWidth, x, y);
+	}
+
+	public double toScreenX(double x){
+		return (x - this.offsetX) * this.blockWidth;
+	}
+
+	public double toScreenY(double y){
+		return (y - this.offsetY) * this.blockWidth;
+	}
+
+	public Sprite getSprite(String name){
+		return AssetManager.getSprite(name, null, Block.LIGHT, this.blockWidth);
+	}
+
+	public Sprite getSprite(String name, double brightness){
+		return AssetManager.getSprite(name, null, brightness, this.blockWidth);
+	}
+
+	public Sprite getSprite(String name, String direction, double brightness){
+		return AssetManager.getSprite(name, direction, brightness, this.blockWidth);
+	}
+
+	/**
+	  Draw a frame of a sprite over the tile at x, y (world coords)
+	*/
+	public void drawTile(Sprite sprite, int frame, double x, double y){
+		this.renderer.drawSprite(sprite, frame, toScreenX(x), toScreenY(y), this.blockWidth, this.blockWidth);
+	}
+
+	public void drawTile(String name, double brightness, int frame, double x, double y){
+		drawTile(getSprite(name, brightness), frame, x, y);
+	}
+
+	public void drawTile(String name, double brightness, double x, double y){
+		drawTile(getSprite(name, brightness), 0, x, y);
+	}
+
+	public void fillTile(Color color, double x, double y){
+		this.renderer.fillRect(color, toScreenX(x), toScreenY(y), this.blockWidth, this.blockWidth);
+	}
+}
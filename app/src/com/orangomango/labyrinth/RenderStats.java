@@ -0,0 +1,174 @@
+package com.orangomango.labyrinth;
+
+import javafx.animation.Animation;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+  Debug counters shown by the StatsOverlay (toggled with F3).
+  Counters are only touched when ENABLED is true, so they cost a static read when the overlay is off.
+  They can be incremented from any thread (render bands, thumbnail workers...).
+  Frame times are the intervals between two pulses of a running frame loop, so a stall between
+  two pulses is counted even if the render itself is fast.
+*/
+public class RenderStats {
+	public static volatile boolean ENABLED = false;
+	private static final int SAMPLES = 240; // Frame and render times kept for the percentiles
+	private static BooleanProperty enabledProperty = new SimpleBooleanProperty(false);
+
+	private static long[] frameTimes = new long[SAMPLES];
+	private static long[] renderTimes = new long[SAMPLES];
+	private static int frameCount = 0, frameIndex = 0;
+	private static int sampleCount = 0, sampleIndex = 0;
+	private static long lastPulse = -1; // -1 when the frame loop is stopped
+	private static AtomicInteger updates = new AtomicInteger(), renders = new AtomicInteger(), imageLoads = new AtomicInteger(); // In the current second
+	private static AtomicInteger tiles = new AtomicInteger(), entities = new AtomicInteger(); // In the current frame
+	private static int lastTiles, lastEntities;
+	private static int updatesPerSecond, rendersPerSecond, imageLoadsPerSecond;
+	private static long secondStart = -1;
+	private static AtomicInteger activeTimelines = new AtomicInteger();
+
+	static {
+		enabledProperty.addListener((ob, oldV, newV) -> {
+			ENABLED = newV;
+			reset();
+		});
+	}
+
+	public static BooleanProperty enabledProperty(){
+		return enabledProperty;
+	}
+
+	public static void toggle(){
+		enabledProperty.set(!enabledProperty.get());
+	}
+
+	private static synchronized void reset(){
+		sampleCount = 0;
+		sampleIndex = 0;
+		frameCount = 0;
+		frameIndex = 0;
+		lastPulse = -1;
+		updates.set(0);
+		renders.set(0);
+		imageLoads.set(0);
+		tiles.set(0);
+		entities.set(0);
+		lastTiles = lastEntities = 0;
+		updatesPerSecond = rendersPerSecond = imageLoadsPerSecond = 0;
+		secondStart = -1;
+	}
+
+	/**
+	  World.update() has been called
+	*/
+	public static void updateRequested(){
+		if (ENABLED){
+			updates.incrementAndGet();
+		}
+	}
+
+	public static void tileDrawn(){
+		if (ENABLED){
+			tiles.incrementAndGet();
+		}
+	}
+
+	public static void entityDrawn(){
+		if (ENABLED){
+			entities.incrementAndGet();
+		}
+	}
+
+	public static void imageLoaded(){
+		if (ENABLED){
+			imageLoads.incrementAndGet();
+		}
+	}
+
+	/**
+	  A pulse of a frame loop (AnimationTimer.handle), the interval from the previous one is a frame time
+	  @param now - time of the pulse
+	*/
+	public static synchronized void pulse(long now){
+		if (!ENABLED){
+			return;
+		}
+		if (lastPulse >= 0){
+			frameTimes[frameIndex] = now - lastPulse;
+			frameIndex = (frameIndex + 1) % SAMPLES;
+			frameCount = Math.min(frameCount + 1, SAMPLES);
+		}
+		lastPulse = now;
+	}
+
+	/**
+	  The frame loop stopped because nothing changed, the time until it starts again is not a frame
+	*/
+	public static synchronized void loopStopped(){
+		lastPulse = -1;
+	}
+
+	/**
+	  A frame has been rendered
+	  @param start - System.nanoTime() before the render
+	  @param end - System.nanoTime() after the render
+	*/
+	public static synchronized void frameRendered(long start, long end){
+		if (!ENABLED){
+			return;
+		}
+		renders.incrementAndGet();
+		renderTimes[sampleIndex] = end - start;
+		sampleIndex = (sampleIndex + 1) % SAMPLES;
+		sampleCount = Math.min(sampleCount + 1, SAMPLES);
+		lastTiles = tiles.getAndSet(0);
+		lastEntities = entities.getAndSet(0);
+		roll(end);
+	}
+
+	private static void roll(long now){
+		if (secondStart < 0){
+			secondStart = now;
+		} else if (now - secondStart >= 1_000_000_000L){
+			updatesPerSecond = updates.getAndSet(0);
+			rendersPerSecond = renders.getAndSet(0);
+			imageLoadsPerSecond = imageLoads.getAndSet(0);
+			secondStart = now;
+		}
+	}
+
+	/**
+	  Count the animation in the active timelines while it's running
+	*/
+	public static void track(Animation animation){
+		animation.statusProperty().addListener((ob, oldV, newV) -> {
+			if (newV == Animation.Status.RUNNING){
+				activeTimelines.incrementAndGet();
+			} else if (oldV == Animation.Status.RUNNING){
+				activeTimelines.decrementAndGet();
+			}
+		});
+	}
+
+	private static double percentile(long[] sorted, double p){
+		if (sorted.length == 0){
+			return 0;
+		}
+		return sorted[Math.min((int)(p * sorted.length), sorted.length-1)] / 1e6;
+	}
+
+	public static synchronized String getText(){
+		roll(System.nanoTime());
+		long[] frames = Arrays.copyOf(frameTimes, frameCount);
+		Arrays.sort(frames);
+		long[] sorted = Arrays.copyOf(renderTimes, sampleCount);
+		Arrays.sort(sorted);
+		return String.format("FPS: %d\nFrame p50: %.2f ms p99: %.2f ms\nRender p50: %.2f ms p99: %.2f ms\nUpdates: %d/s rendered: %d/s\nTiles: %d entities: %d\nImage loads: %d/s\nTimelines: %d",
+			rendersPerSecond, percentile(frames, 0.5), percentile(frames, 0.99), percentile(sorted, 0.5), percentile(sorted, 0.99),
+			updatesPerSecond, rendersPerSecond, lastTiles, lastEntities, imageLoadsPerSecond, activeTimelines.get());
+	}
+}
@@ -0,0 +1,155 @@
+package com.orangomango.labyrinth;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.WritablePixelFormat;
+
+/**
+  Handle to an image region (usually inside the AssetManager atlas).
+  Sprite sheets (frames of DEFAULT_BLOCK_WIDTH with a 1px border) are split in frames
+  when the handle is created, so drawing never has to compute source coords.
+*/
+public class Sprite {
+	private Image image;
+	private double[] sourceX;
+	private double sourceY;
+	private double width, height;
+	private int regionX, regionY, regionWidth, regionHeight;
+	private int[] pixels = null;
+
+	public Sprite(Image image, double x, double y, double w, double h){
+		this.image = image;
+		setRegion(x, y, w, h);
+	}
+
+	/**
+	  Sprite without an Image, only the ARGB pixels (w x h) are kept.
+	  Used when the FX toolkit is not running (headless renders), it can't be drawn on a Canvas.
+	*/
+	public Sprite(int[] pixels, int w, int h){
+		this.pixels = pixels;
+		setRegion(0, 0, w, h);
+	}
+
+	private void setRegion(double x, double y, double w, double h){
+		this.regionX = (int)x;
+		this.regionY = (int)y;
+		this.regionWidth = (int)w;
+		this.regionHeight = (int)h;
+		int frameSize = World.DEFAULT_BLOCK_WIDTH+2;
+		if (h == frameSize && w >= frameSize && w % frameSize == 0){
+			int frames = (int)(w / frameSize);
+			this.sourceX = new double[frames];
+			for (int i = 0; i < frames; i++){
+				this.sourceX[i] = x + 1 + frameSize*i;
+			}
+			this.sourceY = y + 1;
+			this.width = World.DEFAULT_BLOCK_WIDTH;
+			this.height = World.DEFAULT_BLOCK_WIDTH;
+		} else {
+			this.sourceX = new double[]{x};
+			this.sourceY = y;
+			this.width = w;
+			this.height = h;
+		}
+	}
+
+	/**
+	  Sprite made of frames of frameWidth x frameHeight placed one after the other
+	  without borders (sprites baked by the AssetManager)
+	*/
+	public Sprite(Image image, int frames, double frameWidth, double frameHeight){
+		this.image = image;
+		setFrames(frames, frameWidth, frameHeight);
+	}
+
+	public Sprite(int[] pixels, int frames, double frameWidth, double frameHeight){
+		this.pixels = pixels;
+		setFrames(frames, frameWidth, frameHeight);
+	}
+
+	private void setFrames(int frames, double frameWidth, double frameHeight){
+		this.regionX = 0;
+		this.regionY = 0;
+		this.regionWidth = (int)(frames * frameWidth);
+		this.regionHeight = (int)frameHeight;
+		this.sourceX = new double[frames];
+		for (int i = 0; i < frames; i++){
+			this.sourceX[i] = frameWidth*i;
+		}
+		this.sourceY = 0;
+		this.width = frameWidth;
+		this.height = frameHeight;
+	}
+
+	public Image getImage(){
+		return this.image;
+	}
+
+	/**
+	  Region of the image used by this sprite (all the frames)
+	*/
+	public int getRegionX(){
+		return this.regionX;
+	}
+
+	public int getRegionY(){
+		return this.regionY;
+	}
+
+	public int getRegionWidth(){
+		return this.regionWidth;
+	}
+
+	public int getRegionHeight(){
+		return this.regionHeight;
+	}
+
+	/**
+	  ARGB pixels of the region (read once, used by the renderers that don't draw on a Canvas)
+	  @return null if the image can't be read
+	*/
+	public synchronized int[] getPixels(){
+		if (this.pixels == null && this.image != null && !this.image.isError()){
+			PixelReader reader = this.image.getPixelReader();
+			if (reader == null || this.regionWidth <= 0 || this.regionHeight <= 0){
+				return null;
+			}
+			this.pixels = new int[this.regionWidth * this.regionHeight];
+			reader.getPixels(this.regionX, this.regionY, this.regionWidth, this.regionHeight, WritablePixelFormat.getIntArgbInstance(), this.pixels, 0, this.regionWidth);
+		}
+		return this.pixels;
+	}
+
+	public int getFrameCount(){
+		return this.sourceX.length;
+	}
+
+	public double getSourceX(int frame){
+		return this.sourceX[frame];
+	}
+
+	public double getSourceY(){
+		return this.sourceY;
+	}
+
+	public double getWidth(){
+		return this.width;
+	}
+
+	public double getHeight(){
+		return this.height;
+	}
+
+	public void draw(GraphicsContext pen, double x, double y, double w, double h){
+		draw(pen, 0, x, y, w, h);
+	}
+
+	public void draw(GraphicsContext pen, int frame, double x, double y, double w, double h){
+		if (frame < 0 || frame >= this.sourceX.length || this.image == null){
+			return;
+		}
+		pen.drawImage(this.image, this.sourceX[frame], this.sourceY, this.width, this.height, x, y, w, h);
+	}
+}
@@ -0,0 +1,43 @@
+package com.orangomango.labyrinth;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.control.Label;
+
+/**
+  Label with the RenderStats, place it over a canvas. It is refreshed only while the stats are enabled.
+*/
+public class StatsOverlay extends Label {
+	private static final long REFRESH = 250_000_000L; // ns
+
+	private long lastRefresh = 0;
+	private AnimationTimer timer = new AnimationTimer(){
+		@Override
+		public void handle(long now){
+			if (getScene() == null || getScene().getWindow() == null || !getScene().getWindow().isShowing()){
+				stop(); // The window has been closed
+				return;
+			}
+			if (now - lastRefresh >= REFRESH){
+				setText(RenderStats.getText());
+				lastRefresh = now;
+			}
+		}
+	};
+
+	public StatsOverlay(){
+		setMouseTransparent(true);
+		setStyle("-fx-background-color: rgba(0, 0, 0, 0.6); -fx-text-fill: white; -fx-font-family: monospace; -fx-padding: 4;");
+		visibleProperty().bind(RenderStats.enabledProperty());
+		visibleProperty().addListener((ob, oldV, newV) -> update(newV));
+		update(isVisible());
+	}
+
+	private void update(boolean on){
+		if (on){
+			this.lastRefresh = 0;
+			this.timer.start();
+		} else {
+			this.timer.stop();
+		}
+	}
+}
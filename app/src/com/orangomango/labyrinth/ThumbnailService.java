@@ -0,0 +1,213 @@
+package com.orangomango.labyrinth;
+
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import com.orangomango.labyrinth.menu.editor.Editor;
+import static com.orangomango.labyrinth.menu.editor.Editor.PATH;
+
+/**
+  Level previews rendered in background (headless, see PngExporter) and cached as PNG
+  in .labyrinthgame/Cache/Thumbnails. The cache key is a hash of the level file, of the
+  renderer version and of the sprites, so a preview is rendered again when one of them
+  changes. The least recently used previews are deleted above MAX_CACHE_BYTES.
+*/
+public class ThumbnailService {
+	public static final int THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+	public static final long MAX_CACHE_BYTES = 32L * 1024 * 1024;
+	private static final int RENDER_VERSION = 1; // Change it when the renderer draws differently
+	private static final String REQUEST_KEY = "thumbnailRequest";
+
+	private static ExecutorService pool = Executors.newFixedThreadPool(THREADS, r -> {
+		Thread t = new Thread(r, "Thumbnail worker");
+		t.setDaemon(true);
+		return t;
+	});
+	private static Image placeholder = null;
+	private static String assetsStamp = null;
+
+	private static String getCachePath(){
+		return PATH + ".labyrinthgame" + File.separator + "Cache" + File.separator + "Thumbnails" + File.separator;
+	}
+
+	private static synchronized Image getPlaceholder(){
+		if (placeholder == null){
+			WritableImage img = new WritableImage(1, 1);
+			img.getPixelWriter().setColor(0, 0, Color.LIGHTGRAY);
+			placeholder = img;
+		}
+		return placeholder;
+	}
+
+	/**
+	  Create an ImageView with the preview of a level
+	  @param path - level file
+	  @param index - world of an arcade level (0 for normal levels)
+	  @param header - header of the world, used only for the size of the placeholder
+	*/
+	public static ImageView getThumbnail(String path, int index, LevelHeader header, String mode, int blockWidth){
+		ImageView view = new ImageView();
+		load(view, path, index, header.width * blockWidth, header.height * blockWidth, mode, blockWidth);
+		return view;
+	}
+
+	/**
+	  Read the header of a level in background
+	  @param callback - called on the FX thread, with null if the level can't be read
+	*/
+	public static void loadHeader(String path, Consumer<LevelHeader> callback){
+		pool.submit(() -> {
+			LevelHeader header = null;
+			try {
+				header = LevelHeader.read(path);
+			} catch (IOException e){
+				Logger.error("Could not read the header of " + path + ": " + e.getMessage());
+			}
+			LevelHeader result = header;
+			Platform.runLater(() -> callback.accept(result));
+		});
+	}
+
+	/**
+	  Show the placeholder in view and replace it with the preview when it is ready.
+	  Only the latest request of a view is shown.
+	*/
+	public static void load(ImageView view, String path, int index, double width, double height, String mode, int blockWidth){
+		Object request = new Object();
+		view.getProperties().put(REQUEST_KEY, request);
+		view.setImage(getPlaceholder());
+		view.setFitWidth(width);
+		view.setFitHeight(height);
+		pool.submit(() -> {
+			Image image = getImage(path, index, mode, blockWidth);
+			if (image != null){
+				Platform.runLater(() -> {
+					if (view.getProperties().get(REQUEST_KEY) == request){
+						view.setImage(image);
+						view.setFitWidth(image.getWidth());
+						view.setFitHeight(image.getHeight());
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	  Get the preview from the cache or render it (call it outside the FX thread)
+	  @return null if the level can't be read
+	*/
+	public static Image getImage(String path, int index, String mode, int blockWidth){
+		try {
+			String key = getKey(path, index, mode, blockWidth);
+			File file = new File(getCachePath() + key + ".png");
+			if (!file.exists()){
+				render(path, index, mode, blockWidth, file);
+				prune(file);
+			} else {
+				file.setLastModified(System.currentTimeMillis()); // Recently used
+			}
+			Image image = new Image("file://" + Editor.changeSlash(file.getAbsolutePath()));
+			RenderStats.imageLoaded();
+			return image.isError() ? null : image;
+		} catch (Exception e){
+			Logger.error("Could not create thumbnail of " + path + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	private static void render(String path, int index, String mode, int blockWidth, File file) throws IOException {
+		World world = World.readArcadeLevel(path, index);
+		world.previewMode = true;
+		world.setDrawingMode(world.getEngineeringWorld() == null ? "normal" : mode);
+		world.setPlayer(new Player(world.start[0], world.start[1], world));
+		file.getParentFile().mkdirs();
+		// Written to a temporary file first, another worker could be reading the same thumbnail
+		File temp = File.createTempFile("thumbnail", ".png", file.getParentFile());
+		try {
+			PngExporter.export(world, blockWidth, temp);
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			temp.delete();
+		}
+	}
+
+	/**
+	  Delete the least recently used previews when the cache is too big
+	  @param keep - preview just rendered
+	*/
+	private static synchronized void prune(File keep){
+		File[] files = new File(getCachePath()).listFiles((dir, name) -> name.endsWith(".png"));
+		if (files == null){
+			return;
+		}
+		long size = 0;
+		for (File f : files){
+			size += f.length();
+		}
+		if (size <= MAX_CACHE_BYTES){
+			return;
+		}
+		Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+		for (File f : files){
+			if (size <= MAX_CACHE_BYTES){
+				break;
+			}
+			if (!f.equals(keep)){
+				size -= f.length();
+				f.delete();
+			}
+		}
+	}
+
+	/**
+	  Names, sizes and dates of the sprites, previews of old sprites are not used
+	*/
+	private static synchronized String getAssetsStamp(){
+		if (assetsStamp == null){
+			StringBuilder builder = new StringBuilder();
+			stampImages(new File(PATH + ".labyrinthgame" + File.separator + "Images"), builder);
+			assetsStamp = builder.toString();
+		}
+		return assetsStamp;
+	}
+
+	private static void stampImages(File dir, StringBuilder builder){
+		File[] files = dir.listFiles();
+		if (files == null){
+			return;
+		}
+		Arrays.sort(files);
+		for (File f : files){
+			if (f.isDirectory()){
+				stampImages(f, builder);
+			} else {
+				builder.append(f.getPath()).append(':').append(f.length()).append(':').append(f.lastModified()).append('|');
+			}
+		}
+	}
+
+	private static String getKey(String path, int index, String mode, int blockWidth) throws IOException, NoSuchAlgorithmException {
+		MessageDigest digest = MessageDigest.getInstance("SHA-1");
+		digest.update(LevelPack.readAllBytes(path));
+		digest.update((index + "|" + mode + "|" + blockWidth + "|" + RENDER_VERSION + "|" + getAssetsStamp()).getBytes("UTF-8"));
+		StringBuilder builder = new StringBuilder();
+		for (byte b : digest.digest()){
+			builder.append(String.format("%02x", b));
+		}
+		return builder.toString();
+	}
+}
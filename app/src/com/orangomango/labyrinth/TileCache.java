@@ -0,0 +1,164 @@
+package com.orangomango.labyrinth;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import javafx.application.Platform;
+import javafx.scene.canvas.*;
+import javafx.scene.image.WritableImage;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.paint.Color;
+
+/**
+  Offscreen cache of the static tile layer of a world.
+  Tiles are rendered once in chunks of CHUNK_SIZE x CHUNK_SIZE blocks, a chunk is
+  rendered again only after it has been invalidated (tile changed, lighting changed...)
+  Only MAX_BYTES of chunks are kept, the ones drawn least recently are dropped first.
+*/
+public class TileCache {
+	public static final int CHUNK_SIZE = 16;
+	public static final long MAX_BYTES = 64L * 1024 * 1024; // 64 chunks with blocks of 32 px
+
+	private World world;
+	private LinkedHashMap<Integer, WritableImage> chunks = new LinkedHashMap<>(16, 0.75f, true); // cy*columns+cx -> image, least recently drawn first
+	private boolean[][] dirty = null;
+	private int columns;
+	private int blockWidth;
+	private Canvas renderCanvas;
+	private SnapshotParameters params;
+
+	public TileCache(World w){
+		this.world = w;
+	}
+
+	private void checkSize(int blockWidth){
+		int cw = (this.world.width + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		int ch = (this.world.height + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		if (this.dirty == null || this.dirty.length != ch || this.columns != cw || this.blockWidth != blockWidth){
+			this.chunks.clear();
+			this.dirty = new boolean[ch][cw];
+			this.columns = cw;
+			this.blockWidth = blockWidth;
+			for (boolean[] row : this.dirty){
+				Arrays.fill(row, true);
+			}
+		}
+	}
+
+	public void invalidateAll(){
+		this.dirty = null;
+	}
+
+	/**
+	  Drop all the images, e.g. when the world changes
+	*/
+	public void clear(){
+		this.dirty = null;
+		this.chunks.clear();
+		this.renderCanvas = null;
+	}
+
+	/**
+	  Invalidate a tile and its neighbours (walls and shooters depend on them)
+	*/
+	public void invalidateTile(int x, int y){
+		invalidateArea(x - 1, y - 1, x + 1, y + 1);
+	}
+
+	public void invalidateArea(int x, int y, int x1, int y1){
+		if (this.dirty == null){
+			return;
+		}
+		int sx = Math.max(x, 0) / CHUNK_SIZE;
+		int sy = Math.max(y, 0) / CHUNK_SIZE;
+		int ex = Math.min(x1, this.world.width - 1) / CHUNK_SIZE;
+		int ey = Math.min(y1, this.world.height - 1) / CHUNK_SIZE;
+		for (int cy = sy; cy <= ey && cy < this.dirty.length; cy++){
+			for (int cx = sx; cx <= ex && cx < this.dirty[cy].length; cx++){
+				this.dirty[cy][cx] = true;
+			}
+		}
+	}
+
+	private WritableImage getChunk(int cx, int cy){
+		WritableImage img = this.chunks.get(cy * this.columns + cx);
+		if (this.dirty[cy][cx] || img == null){
+			img = renderChunk(cx, cy, img);
+		}
+		return img;
+	}
+
+	/**
+	  Drop the least recently drawn chunks over MAX_BYTES, but not the ones of the last draw
+	*/
+	private void evict(int drawn){
+		long chunkBytes = 4L * CHUNK_SIZE * this.blockWidth * CHUNK_SIZE * this.blockWidth;
+		long max = Math.max(drawn, MAX_BYTES / chunkBytes);
+		Iterator<Integer> it = this.chunks.keySet().iterator();
+		while (this.chunks.size() > max && it.hasNext()){
+			it.next();
+			it.remove();
+		}
+	}
+
+	private WritableImage renderChunk(int cx, int cy, WritableImage reuse){
+		int size = CHUNK_SIZE * this.blockWidth;
+		if (this.params == null){
+			// Created here and not in the constructor, worlds can be created without the FX toolkit
+			this.params = new SnapshotParameters();
+			this.params.setFill(Color.TRANSPARENT);
+		}
+		if (this.renderCanvas == null || this.renderCanvas.getWidth() != size){
+			this.renderCanvas = new Canvas(size, size);
+		}
+		GraphicsContext gc = this.renderCanvas.getGraphicsContext2D();
+		gc.clearRect(0, 0, size, size);
+		RenderContext ctx = new RenderContext(gc, this.blockWidth, cx * CHUNK_SIZE, cy * CHUNK_SIZE);
+		for (int y = cy * CHUNK_SIZE; y < Math.min((cy + 1) * CHUNK_SIZE, this.world.height); y++){
+			for (int x = cx * CHUNK_SIZE; x < Math.min((cx + 1) * CHUNK_SIZE, this.world.width); x++){
+				Block b = this.world.getBlockAt(x, y);
+				if (b != null){
+					b.draw(ctx, x, y, this.world);
+				}
+			}
+		}
+		WritableImage img = this.renderCanvas.snapshot(this.params, reuse);
+		this.chunks.put(cy * this.columns + cx, img);
+		this.dirty[cy][cx] = false;
+		return img;
+	}
+
+	/**
+	  Draw the tiles from x, y to x1, y1 (included) using the context scale and camera offset
+	  @return false if the cache can't be used (snapshots only work on the FX thread and on a Canvas)
+	*/
+	public boolean draw(RenderContext ctx, int x, int y, int x1, int y1){
+		if (ctx.getPen() == null || !Platform.isFxApplicationThread()){
+			return false;
+		}
+		checkSize(ctx.getBlockWidth());
+		int sx = Math.max(x, 0);
+		int sy = Math.max(y, 0);
+		int ex = Math.min(x1, this.world.width - 1);
+		int ey = Math.min(y1, this.world.height - 1);
+		if (sx > ex || sy > ey){
+			return true;
+		}
+		int bw = this.blockWidth;
+		int drawn = 0;
+		for (int cy = sy / CHUNK_SIZE; cy <= ey / CHUNK_SIZE; cy++){
+			for (int cx = sx / CHUNK_SIZE; cx <= ex / CHUNK_SIZE; cx++){
+				WritableImage img = getChunk(cx, cy);
+				drawn++;
+				int tx = Math.max(sx, cx * CHUNK_SIZE);
+				int ty = Math.max(sy, cy * CHUNK_SIZE);
+				int tw = Math.min(ex, (cx + 1) * CHUNK_SIZE - 1) - tx + 1;
+				int th = Math.min(ey, (cy + 1) * CHUNK_SIZE - 1) - ty + 1;
+				ctx.getPen().drawImage(img, (tx - cx * CHUNK_SIZE) * bw, (ty - cy * CHUNK_SIZE) * bw, tw * bw, th * bw, ctx.toScreenX(tx), ctx.toScreenY(ty), tw * bw, th * bw);
+			}
+		}
+		evict(drawn);
+		return true;
+	}
+}
@@ -0,0 +1,84 @@
+package com.orangomango.labyrinth;
+
+import javafx.scene.paint.Color;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.orangomango.labyrinth.engineering.EngBlock;
+
+/**
+  Flat colour of each block type, used where tiles are too small to draw their sprites
+  (minimap, editor zoomed out).
+*/
+public class TilePalette {
+	public static final Color WATER = Color.rgb(40, 170, 220);
+	public static final Color DEFAULT = Color.rgb(170, 170, 170);
+
+	private static Map<String, Color> colors = new HashMap<>();
+	private static Map<String, Integer> argb = new HashMap<>();
+	private static Map<String, Color> engColors = new HashMap<>();
+
+	static {
+		colors.put(World.WALL, Color.rgb(100, 90, 110));
+		colors.put(World.AIR, Color.rgb(175, 175, 175));
+		colors.put(World.VOID, Color.rgb(20, 20, 20));
+		colors.put(World.SPIKE, Color.rgb(200, 60, 60));
+		colors.put(World.C_SPIKE, Color.rgb(220, 120, 60));
+		colors.put(World.PORTAL, Color.rgb(150, 80, 220));
+		colors.put(World.SHOOTER, Color.rgb(120, 70, 40));
+		colors.put(World.BAT_GEN, Color.rgb(90, 40, 90));
+		colors.put(World.ELEVATOR, Color.rgb(70, 110, 200));
+		colors.put(World.PARALLEL_BLOCK, Color.rgb(220, 200, 60));
+		colors.put(World.OXYGEN_POINT, Color.rgb(160, 230, 250));
+		colors.put(World.D_PLANT, Color.rgb(90, 160, 80));
+		colors.put(World.D_BUSH, Color.rgb(90, 160, 80));
+		engColors.put(EngBlock.AIR, Color.rgb(60, 60, 60));
+		engColors.put(EngBlock.CABLE, Color.rgb(200, 120, 40));
+		engColors.put(EngBlock.LEVER, Color.rgb(140, 100, 60));
+		engColors.put(EngBlock.GENERATOR, Color.rgb(230, 210, 50));
+		engColors.put(EngBlock.LED, Color.rgb(80, 220, 80));
+		engColors.put(EngBlock.DOOR, Color.rgb(70, 110, 200));
+		for (Map.Entry<String, Color> entry : colors.entrySet()){
+			argb.put(entry.getKey(), toArgb(entry.getValue()));
+		}
+	}
+
+	private static int toArgb(Color c){
+		return (0xff << 24) | ((int)Math.round(c.getRed()*255) << 16) | ((int)Math.round(c.getGreen()*255) << 8) | (int)Math.round(c.getBlue()*255);
+	}
+
+	/**
+	  @param b - block or null (void)
+	*/
+	public static Color getColor(Block b){
+		if (b == null){
+			return colors.get(World.VOID);
+		}
+		if (b.isWater() && !b.getCategory().equals(World.WALL)){
+			return WATER;
+		}
+		return colors.getOrDefault(b.getType(), b.getCategory().equals(World.WALL) ? colors.get(World.WALL) : DEFAULT);
+	}
+
+	/**
+	  Same of getColor(), as an opaque ARGB int
+	*/
+	public static int getArgb(Block b){
+		if (b == null){
+			return argb.get(World.VOID);
+		}
+		if (b.isWater() && !b.getCategory().equals(World.WALL)){
+			return toArgb(WATER);
+		}
+		Integer c = argb.get(b.getType());
+		if (c == null){
+			return toArgb(getColor(b));
+		}
+		return c;
+	}
+
+	public static Color getColor(EngBlock b){
+		return engColors.getOrDefault(b.getType(), DEFAULT);
+	}
+}
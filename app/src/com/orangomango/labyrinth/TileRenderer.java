@@ -0,0 +1,27 @@
+package com.orangomango.labyrinth;
+
+import javafx.scene.paint.Color;
+
+/**
+  Target where tiles are drawn. Block, EngBlock, Entity and World only draw through this
+  interface (via RenderContext), so a world can be rendered on a Canvas or in memory.
+  @see CanvasRenderer
+  @see ImageRenderer
+*/
+public interface TileRenderer {
+	/**
+	  Draw a frame of a sprite scaled to w x h (screen coords)
+	*/
+	public void drawSprite(Sprite sprite, int frame, double x, double y, double w, double h);
+	public void fillRect(Color color, double x, double y, double w, double h);
+	public void clearRect(double x, double y, double w, double h);
+	public void strokeText(String text, Color color, String font, double size, double x, double y);
+	public void setGlobalAlpha(double alpha);
+
+	/**
+	  Save the current clip, clip() only restricts it until restore() is called
+	*/
+	public void save();
+	public void clip(double x, double y, double w, double h);
+	public void restore();
+}
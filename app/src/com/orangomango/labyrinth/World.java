@@ -7,12 +7,16 @@
 package com.orangomango.labyrinth;
 
 import java.io.*;
+import java.nio.charset.Charset;
 import java.util.Arrays;
-import java.util.Timer;
-import java.util.TimerTask;
-import java.util.Random;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.HashMap;
 
 import javafx.scene.canvas.*;
+import javafx.application.Platform;
 import javafx.stage.Stage;
 import javafx.scene.control.Label;
 import javafx.scene.paint.Color;
@@ -23,6 +27,7 @@ import javafx.util.Duration;
 
 import com.orangomango.labyrinth.menu.editor.Editor;
 import com.orangomango.labyrinth.menu.editor.EditableWorld;
+import com.orangomango.labyrinth.menu.editor.EditJournal;
 import static com.orangomango.labyrinth.menu.editor.Editor.PATH;
 import com.orangomango.labyrinth.menu.play.entity.*;
 import com.orangomango.labyrinth.menu.editor.LevelExe;
@@ -36,27 +41,39 @@ public class World {
 	protected String filePath;
 	public int height, width;
 	public int[] start, end;
-	private GraphicsContext pen;
+	private RenderContext context;
 	private Player player;
 	private Entity[] ents = new Entity[0];
+	private Map<Integer, Entity> blockEnts = new HashMap<>(); // Entity created by the block of a tile (y*width+x)
 	private boolean playerView = false;
 	private EngWorld engW = null;
+	private int lightRadius = Block.LIGHT_AREA; // Saved with the level (LevelData)
+	private boolean lightOcclusion = false;
 	private String drawingMode = "normal";
 	protected Canvas canvas;
 	public boolean previewMode = false;
 	private LevelStats levelStats = null;
+	private Minimap minimap = null;
+	private AnimationClock clock = null;
 	private boolean allLights = false;
-	private boolean canUpdate = true;
 	public WorldList worldList;
 	private boolean showEnd = true;
 	public int[] combinedLines;
-	private static File lastCreatedFile;
 	private static int X_MOVE, Y_MOVE;
 	public Timeline viewTime;
 	private static boolean VIEWING = false;
 	private Stage psStage;
 	public boolean warningOnEnd = false;
 	private String information = "";
+	private TileCache tileCache = new TileCache(this);
+	private List<int[]> damage = new ArrayList<>(); // Damaged tile areas {x, y, x1, y1} to repaint on next update
+	private boolean fullDamage = true;
+	private int lastViewX = Integer.MIN_VALUE, lastViewY = Integer.MIN_VALUE;
+	private Camera camera = null;
+	private double lastCameraX = Double.NaN, lastCameraY = Double.NaN;
+	private AnimationTimer frameLoop = null;
+	private int[] dirtyView = null; // Latest view requested with update(), rendered on the next pulse
+	private PixelBufferRenderer pixelRenderer = null;
 
 	public final static String NORTH = "n";
 	public final static String SOUTH = "s";
@@ -111,6 +128,10 @@ public class World {
 		public World getWorldAt(int index){
 			return worlds[index];
 		}
+		
+		public void setWorldAt(int index, World w){
+			worlds[index] = w;
+		}
                 
 		public int getLength(){
 			return worlds.length;
@@ -126,28 +147,25 @@ public class World {
 			return output.toString();
 		}
 		
-		public void sync(){
-			for (int count = 0; count < worlds.length; count++){
-				worlds[count] = new World(worlds[count].getFilePath());
+		private LevelData[] toLevelData(){
+			LevelData[] levels = new LevelData[worlds.length];
+			for (int i = 0; i < worlds.length; i++){
+				levels[i] = worlds[i].toLevelData();
 			}
+			return levels;
 		}
 		
+		/**
+		  Save the arcade file in background (see FileSaver)
+		*/
 		public void updateOnFile(String filePath){
-			try {
-				updateOnFile(new BufferedWriter(new FileWriter(filePath)));
-			} catch (IOException ioe){}
+			LevelData[] levels = toLevelData();
+			FileSaver.save(filePath, out -> ArcadeIndex.write(new BufferedWriter(new OutputStreamWriter(out, Charset.defaultCharset())), levels));
 		}
 			
 		public void updateOnFile(BufferedWriter writer){
 			try {
-				int cont = 1;
-				writer.write("#NumWorlds:"+worlds.length);
-				for (World world : worlds){
-					writer.newLine();
-					writer.write("#World "+cont+"\n");
-					world.writeToFile(writer);
-					cont++;
-				}
+				ArcadeIndex.write(writer, toLevelData());
 				writer.close();
 			} catch (IOException e) {
 				Logger.error(e.getMessage());
@@ -156,25 +174,57 @@ public class World {
 	}
 	
 	public void updateWorldList(String p){
-		this.worldList = new WorldList(new World(p, 0));
-		for (int x = 0; x < getArcadeLevels(p); x++){
-			if (x == 0){
-				continue;
+		if (getArcadeLevels(p) > 0){
+			try {
+				updateWorldList(p, ArcadeIndex.readAll(p));
+				return;
+			} catch (IOException | RuntimeException e){
+				Logger.error("Could not read arcade file "+p+": "+e.getMessage());
 			}
-			//System.out.println("FP: "+p);
-			World tWorld = new World(p, getFilePathIndex("#World "+(x+1), p));
-			tWorld.setFilePath(tWorld.createTempCopyFilePath());
-			this.worldList.addWorld(tWorld);
 		}
-		//System.out.println(this.worldList);
+		this.worldList = new WorldList(new World(p, 0));
+	}
+
+	/**
+	  Build the list from the patterns of an arcade file, already read. The patterns are kept
+	  in memory, only WorldList.updateOnFile writes them
+	*/
+	private void updateWorldList(String p, List<LevelData> levels){
+		this.worldList = new WorldList();
+		for (LevelData data : levels){
+			this.worldList.addWorld(new World(null, data));
+		}
 	}
 
 	public World(String path) {
 		filePath = path;
-		world = readWorld(filePath);
-		updateWorldList(filePath);
+		List<LevelData> levels = null;
+		if (getArcadeLevels(path) > 0){
+			try {
+				levels = WorldCache.get(path, "arcade", () -> ArcadeIndex.readAll(path));
+			} catch (IOException | RuntimeException e){
+				Logger.error("Could not read arcade file "+path+": "+e.getMessage());
+			}
+		}
+		if (levels != null && !levels.isEmpty()){
+			// The file is read only once for the world and its list
+			world = buildWorld(levels.get(0));
+			updateWorldList(filePath, levels);
+		} else {
+			world = readWorld(filePath);
+			updateWorldList(filePath);
+		}
         this.combinedLines = new int[]{this.height-1};
 	}
+
+	/**
+	  World from a level already read (e.g. a pattern of an arcade file), worldList is null
+	*/
+	public World(String path, LevelData data){
+		filePath = path;
+		world = buildWorld(data);
+		this.combinedLines = new int[]{this.height-1};
+	}
         
         public World(String path, int index){
             filePath = path;
@@ -183,7 +233,10 @@ public class World {
         	this.combinedLines = new int[]{this.height-1};
         }
         
-        public World(Block[][] blocks, int[] start, int[] end, boolean lights, EngBlock[][] ew, boolean delBefore){
+        /**
+          World created in memory, it has no file
+        */
+        public World(Block[][] blocks, int[] start, int[] end, boolean lights, EngBlock[][] ew){
         	world = blocks;
         	this.width = blocks[0].length;
         	this.height = blocks.length;
@@ -191,9 +244,8 @@ public class World {
         	this.end = end;
         	this.setAllLights(lights);
         	this.engW = ew != null ? new EngWorld(this, ew, this.width, this.height) : null;
-        	filePath = createTempCopyFilePath(delBefore);
         	this.combinedLines = new int[]{this.height-1};
-        	this.updateOnFile();
+        	rebuild(); // New blocks and entities, the given ones could belong to other worlds
         }
         
         public void viewFrom(int x, int y, int x1, int y1){
@@ -202,7 +254,11 @@ public class World {
             LevelExe.PLAYER_MOVEMENT = false;
             VIEWING = true;
             viewTime = new Timeline(new KeyFrame(Duration.millis(150), evt -> {
-                update(X_MOVE-LevelExe.PWS, Y_MOVE-LevelExe.PWS, X_MOVE+LevelExe.PWS, Y_MOVE+LevelExe.PWS, true, true);
+                if (this.camera != null){
+                    update(0, 0, 0, 0, true, true); // The camera scrolls to X_MOVE, Y_MOVE
+                } else {
+                    update(X_MOVE-LevelExe.PWS, Y_MOVE-LevelExe.PWS, X_MOVE+LevelExe.PWS, Y_MOVE+LevelExe.PWS, true, true);
+                }
                 if (X_MOVE != x1){
                     X_MOVE += x1 > x ? 1 : -1;
                 } else {
@@ -219,60 +275,14 @@ public class World {
                     }
                 }
             }));
+            RenderStats.track(viewTime);
             viewTime.setCycleCount(Math.abs(y1-y)+Math.abs(x1-x)+1);
             viewTime.play();
         }
         
-        public String createTempCopyFilePath(){ return createTempCopyFilePath(false); }
-        public String createTempCopyFilePath(boolean dbefore){
-        	try {
-				if (lastCreatedFile != null && dbefore){
-					lastCreatedFile.delete();
-				}
-        		File file = File.createTempFile("temp-world-"+(new Random()).nextInt(), ".wld");
-				lastCreatedFile = file;
-				file.deleteOnExit();
-        		BufferedWriter writer = new BufferedWriter(new FileWriter(file));
-        		writeToFile(writer);
-        		writer.close();
-        		return file.getAbsolutePath();
-        	} catch (IOException ioe){
-        		Logger.error("Error when creating temp file: "+ioe.getMessage());
-        		return null;
-        	}
-        }
-        	
 	public void writeToFile(BufferedWriter writer){
 		try {
-			writer.write(this.information);
-			writer.newLine();
-			writer.write(this.width + "x" + this.height + "\n");
-			int counter = 0;
-			for (Block[] bArr: this.world) {
-				for (Block block: bArr) {
-					writer.write(Integer.toString(block.toInt())+((block.getInfo() == null) ? "" : ":"+block.getInfo()));
-					if (counter + 1 != this.height * this.width) {
-						writer.write(",");
-					}
-					counter++;
-				}
-			}
-			writer.newLine();
-			writer.write(this.start[0] + "," + this.start[1] + "\n");
-			writer.write(this.end[0] + "," + this.end[1] + "\n");
-			writer.write(this.getAllLights() ? "1" : "0");
-			if (this.getEngineeringWorld() != null){
-				writer.write("\nengineering_mode\n");
-				for (EngBlock[] bArr: this.getEngineeringWorld().getWorld()) {
-					for (EngBlock block: bArr) {
-						writer.write(Integer.toString(block.toInt())+((block.getInfo() == null) ? "" : ":"+block.getInfo()));
-						if (counter + 1 != this.height * this.width) {
-							writer.write(",");
-						}
-						counter++;
-					}
-				}
-			}
+			toLevelData().writeText(writer);
 		} catch (IOException ioe){
 			Logger.error(ioe.getMessage());
 		}
@@ -300,7 +310,7 @@ public class World {
 	
 	public static int getFilePathIndex(String search, String path){
 		try {
-			BufferedReader reader = new BufferedReader(new FileReader(path));
+			BufferedReader reader = LevelPack.openReader(path);
 			String found = "";
 			int counter = 0;
 			int index = 0;
@@ -320,9 +330,29 @@ public class World {
         }
 	}
 	
+	/**
+	  Load only the pattern index (from 0) of an arcade file using its index, a normal level if the file is not an arcade file
+	*/
+	public static World readArcadeLevel(String path, int index){
+		ArcadeIndex arcade = ArcadeIndex.read(path);
+		if (arcade == null){
+			return new World(path, 0);
+		}
+		List<LevelData> all = WorldCache.peek(path, "arcade");
+		if (all != null && index < all.size()){
+			return new World(path, all.get(index)); // Already parsed with the whole file
+		}
+		try {
+			return new World(path, WorldCache.get(path, "pattern@"+index, () -> List.of(arcade.readLevel(path, index))).get(0));
+		} catch (IOException | RuntimeException e){
+			Logger.error("Could not read pattern "+(index+1)+" of "+path+": "+e.getMessage());
+			return new World(path).worldList.getWorldAt(index);
+		}
+	}
+	
 	public static int getArcadeLevels(String fileName){
 		try {
-			BufferedReader reader = new BufferedReader(new FileReader(fileName));
+			BufferedReader reader = LevelPack.openReader(fileName);
 			String line1 = reader.readLine();
 			if (line1.startsWith("#NumWorlds")){
 				int num = Integer.parseInt(line1.split(":")[1]);
@@ -408,7 +438,10 @@ public class World {
 		} else {
 			eOut = null;
 		}
-		World w = new World(output, world1.start, world1.end, world1.getAllLights(), eOut, true);
+		World w = new World(output, world1.start, world1.end, world1.getAllLights(), eOut);
+		w.lightRadius = world1.lightRadius;
+		w.lightOcclusion = world1.lightOcclusion;
+		w.applyLightOptions();
 		int[] cl = new int[world1.combinedLines.length+world2.combinedLines.length];
 		int cont = 0;
 		for (int i : world1.combinedLines){
@@ -428,24 +461,71 @@ public class World {
 	public void updateOnFile(){
 		updateOnFile(true);
 	}
+	/**
+	  Save the world on its file
+	  @param change - create again the blocks and the entities from the saved data
+	*/
 	public void updateOnFile(boolean change) {
-		try {
-			BufferedWriter writer = new BufferedWriter(new FileWriter(this.filePath));
-			writeToFile(writer);
-			writer.close();
-		} catch (IOException e) {
-			Logger.error(e.getMessage());
+		if (this.filePath == null){
+			// In memory world, there is nothing to save
+		} else if (LevelPack.isEntryPath(this.filePath)){
+			Logger.warning("Level packs are read only: "+this.filePath);
+		} else {
+			toLevelData().save(this.filePath); // Written in background
 		}
 		if (change){
-			int[] temp = this.combinedLines;
-			changeToWorld(this.filePath);
-			this.combinedLines = temp;
+			rebuild();
+		}
+	}
+
+	/**
+	  Create again the blocks and the entities from the current data, without reading the file
+	*/
+	public void rebuild(){
+		int[] temp = this.combinedLines;
+		changeToWorld(toLevelData(), this.filePath);
+		this.combinedLines = temp;
+	}
+	
+	/**
+	  Create again the blocks and the entities of an area, the rest of the world has not changed
+	*/
+	public void rebuild(int x, int y, int x1, int y1){
+		x = Math.max(0, x);
+		y = Math.max(0, y);
+		x1 = Math.min(this.width-1, x1);
+		y1 = Math.min(this.height-1, y1);
+		for (int ty = y; ty <= y1; ty++){
+			for (int tx = x; tx <= x1; tx++){
+				Entity old = this.blockEnts.remove(ty*this.width+tx);
+				if (old != null){
+					old.damage();
+					removeEnt(old);
+				}
+				Block b = this.world[ty][tx];
+				this.world[ty][tx] = Block.fromInt(b.toInt(), tx, ty, b.getInfo());
+				addBlockEntity(this.world[ty][tx]);
+			}
+		}
+		if (this.engW != null){
+			this.engW.rebuild(x, y, x1, y1);
 		}
+		invalidateTiles(x, y, x1, y1);
+		damageArea(x, y, x1, y1);
 	}
 	
 	public void updateWalls(){
-		for (Block[] blockRow : this.world){
-			for (Block b : blockRow){
+		connectWalls(0, 0, this.width-1, this.height-1);
+		updateOnFile();
+	}
+	
+	/**
+	  Update the connections of the walls of an area and of their neighbours, the world is not saved
+	*/
+	public void connectWalls(int x, int y, int x1, int y1){
+		for (int ty = Math.max(0, y); ty <= Math.min(this.height-1, y1); ty++){
+			for (int tx = Math.max(0, x); tx <= Math.min(this.width-1, x1); tx++){
+				Block b = this.world[ty][tx];
 				if (b.getWallAttach()){
 					if (this.getBlockAt(b.getX(), b.getY()-1) != null){
 						if (this.getBlockAt(b.getX(), b.getY()-1).getWallAttach()){
@@ -486,7 +566,6 @@ public class World {
 				}
 			}
 		}
-		updateOnFile();
 	}
 
 	public void setLevelStats(LevelStats ls){
@@ -497,8 +576,64 @@ public class World {
 		return this.levelStats;
 	}
 	
+	/**
+	  Clock of the sprite animations of this world
+	*/
+	public AnimationClock getClock(){
+		if (this.clock == null){
+			this.clock = new AnimationClock(this);
+		}
+		return this.clock;
+	}
+	
+	public void setMinimap(Minimap m){
+		this.minimap = m;
+	}
+	
+	public Minimap getMinimap(){
+		return this.minimap;
+	}
+	
+	/**
+	  Tiles in the area changed, drop their cached images (tile cache and minimap)
+	*/
+	public void invalidateTiles(int x, int y, int x1, int y1){
+		this.tileCache.invalidateArea(x, y, x1, y1);
+		if (this.minimap != null){
+			this.minimap.invalidateArea(x, y, x1, y1);
+		}
+		if (this.engW != null){
+			this.engW.getLightMap().checkWalls(x, y, x1, y1); // A wall could have been added or removed
+		}
+	}
+	
+	public void invalidateAllTiles(){
+		this.tileCache.invalidateAll();
+		if (this.minimap != null){
+			this.minimap.invalidateAll();
+		}
+	}
+
+	/**
+	  X coord of the tile drawn at the left border of the canvas
+	*/
+	public double getViewX(){
+		if (this.camera != null){
+			return this.camera.getX();
+		}
+		return this.lastViewX == Integer.MIN_VALUE ? 0 : this.lastViewX;
+	}
+
+	public double getViewY(){
+		if (this.camera != null){
+			return this.camera.getY();
+		}
+		return this.lastViewY == Integer.MIN_VALUE ? 0 : this.lastViewY;
+	}
+	
 	public void setPlayerView(boolean value) {
 		this.playerView = value;
+		damageAll();
 	}
 
 	public boolean getPlayerView() {
@@ -509,12 +644,100 @@ public class World {
 		return this.engW;
 	}
 	
+	public TileCache getTileCache(){
+		return this.tileCache;
+	}
+	
 	public void setEngineeringWorld(EngWorld w){
 		this.engW = w;
+		applyLightOptions();
+		invalidateAllTiles();
+		damageAll();
 	}
 
 	public void setPen(GraphicsContext pen) {
-		this.pen = pen;
+		setPen(pen, BLOCK_WIDTH);
+	}
+
+	/**
+	  Render this world on pen with tiles of blockWidth pixels
+	*/
+	public void setPen(GraphicsContext pen, int blockWidth) {
+		this.context = pen == null ? null : new RenderContext(pen, blockWidth);
+		damageAll();
+	}
+
+	/**
+	  Render with the PixelBuffer backend instead of the canvas
+	  @param r - renderer or null to use the canvas again
+	*/
+	public void setPixelBufferRenderer(PixelBufferRenderer r){
+		this.pixelRenderer = r;
+		damageAll();
+	}
+
+	public PixelBufferRenderer getPixelBufferRenderer(){
+		return this.pixelRenderer;
+	}
+
+	/**
+	  Compute now what is lazily computed while drawing, so the area can be drawn by more threads at the same time
+	*/
+	public void prepareRender(int x, int y, int x1, int y1){
+		for (int cy = Math.max(y, 0); cy <= Math.min(y1, this.height-1); cy++){
+			for (int cx = Math.max(x, 0); cx <= Math.min(x1, this.width-1); cx++){
+				Block b = getBlockAt(cx, cy);
+				if (b != null){
+					b.getConnMask();
+				}
+			}
+		}
+		if (this.engW != null){
+			this.engW.prepareRender();
+		}
+	}
+
+	/**
+	  Show only the area of the world inside the camera viewport (full world mode)
+	  @param c - camera or null to draw the whole world
+	*/
+	public void setCamera(Camera c){
+		this.camera = c;
+		this.lastCameraX = Double.NaN;
+		damageAll();
+	}
+
+	public Camera getCamera(){
+		return this.camera;
+	}
+
+	public RenderContext getRenderContext(){
+		return this.context;
+	}
+
+	/**
+	  Tile size used to render this world
+	*/
+	public int getBlockWidth(){
+		return this.context != null ? this.context.getBlockWidth() : BLOCK_WIDTH;
+	}
+
+	/**
+	  Tile under a point of the canvas
+	*/
+	public int toTileX(double px){
+		return (int)Math.floor(this.camera != null ? this.camera.toWorldX(px) : px / getBlockWidth());
+	}
+
+	public int toTileY(double py){
+		return (int)Math.floor(this.camera != null ? this.camera.toWorldY(py) : py / getBlockWidth());
+	}
+
+	/**
+	  Draw the tiles as flat colours (see TilePalette) instead of sprites, when they are too small to see the sprites
+	*/
+	protected boolean useFlatTiles(RenderContext ctx){
+		return false;
 	}
 
 	public void setCanvas(Canvas canvas) {
@@ -543,6 +766,9 @@ public class World {
 		this.filePath = path;
 	}
 	
+	/**
+	  @return the file of the world, null for a world only in memory
+	*/
 	public String getFilePath(){
 		return this.filePath;
 	}
@@ -560,6 +786,10 @@ public class World {
 		this.ents[ents.length - 1] = e;
 	}
 
+	public void removeEnt(Entity e) {
+		this.ents = Arrays.stream(this.ents).filter(en -> en != e).toArray(Entity[]::new);
+	}
+
 	public Entity[] getEnts() {
 		return this.ents;
 	}
@@ -569,6 +799,8 @@ public class World {
 	}
 	
 	public void setDrawingMode(String d){
+		invalidateAllTiles();
+		damageAll();
 		this.drawingMode = d;
 	}
 	
@@ -581,6 +813,8 @@ public class World {
 	}
 	
 	public void setAllLights(boolean v){
+		invalidateAllTiles();
+		damageAll();
 		this.allLights = v;
 	}
 	
@@ -588,15 +822,50 @@ public class World {
 		return this.allLights;
 	}
 
+	/**
+	  Change how the LEDs of the engineering world light the tiles, the options are saved with the level
+	  @param radius - distance in tiles reached by a LED
+	  @param occlusion - if true, light does not go through walls
+	*/
+	public void setLightOptions(int radius, boolean occlusion){
+		this.lightRadius = radius;
+		this.lightOcclusion = occlusion;
+		applyLightOptions();
+		invalidateAllTiles(); // Cached tiles are drawn with the old light
+		damageAll();
+	}
+
+	private void applyLightOptions(){
+		if (this.engW != null){
+			this.engW.getLightMap().setRadius(this.lightRadius);
+			this.engW.getLightMap().setOcclusion(this.lightOcclusion);
+		}
+	}
+
 	public void changeToWorld(String path) {
+		changeToWorld(readLevelData(path, 0), path);
+	}
+
+	/**
+	  Replace the content of this world
+	  @param data - null if the level could not be read
+	  @param path - new file path, null for a world only in memory
+	*/
+	public void changeToWorld(LevelData data, String path) {
 		this.filePath = path;
 		this.ents = new Entity[0];
-		world = readWorld(filePath);
+		this.blockEnts.clear();
+		world = data != null ? buildWorld(data) : null;
+		this.tileCache.clear(); // The images of the old world are not needed anymore
+		invalidateAllTiles();
+		damageAll();
 		this.combinedLines = new int[]{this.height-1};
-        try {
-			this.canvas.setHeight(this.height * BLOCK_WIDTH);
-			this.canvas.setWidth(this.width * BLOCK_WIDTH);
-		} catch (NullPointerException e) {
+		if (this.camera == null){
+			try {
+				this.canvas.setHeight(this.height * getBlockWidth());
+				this.canvas.setWidth(this.width * getBlockWidth());
+			} catch (NullPointerException e) {
+			}
 		}
 		/*try {
 			this.player.setX(start[0]);
@@ -612,7 +881,7 @@ public class World {
     }
         
 	public void changeToWorld(World wld){
-		changeToWorld(wld.getFilePath());
+		changeToWorld(wld.toLevelData(), wld.filePath);
 		this.combinedLines = wld.combinedLines;
 		setShowEnd(wld.getShowEnd());
 	}
@@ -624,117 +893,366 @@ public class World {
 					String bType = b.parallelBlockData[b.checkInfoKey("type")];
 					EngBlock eb = engW.getBlockAt(b.getX(), b.getY());
 					if (bType.equals(EngBlock.LEVER) || bType.equals(EngBlock.LED)){
+						String category = b.getCategory();
 						b.addInfoParam("imagePath#engineering/blocks/"+bType+".png;category#air;type#"+bType);
+						if (!category.equals(b.getCategory())){
+							invalidateTiles(b.getX()-1, b.getY()-1, b.getX()+1, b.getY()+1);
+						}
 					}
 				}
 			}
 		}
 	}
 
-	public void update(int x, int y, int x1, int y1, boolean skip, boolean invu) {
-		if ((!canUpdate && !(this instanceof EditableWorld) && !skip) || (VIEWING && !invu)){
-                    return;
-		}
-		canUpdate = false;
-		new Timer().schedule(new TimerTask(){
-			@Override
-			public void run(){
-				canUpdate = true;
+	/**
+	  Mark an area of tiles (world coords, included) to be repainted on the next update
+	*/
+	public void damageArea(int x, int y, int x1, int y1){
+		synchronized (this.damage){
+			if (this.fullDamage){
+				return;
 			}
-		}, 50); // 50 Seconds cooldown to avoid lag
-		
+			int[] area = new int[]{x, y, x1, y1};
+			boolean merged = true;
+			while (merged){
+				merged = false;
+				Iterator<int[]> it = this.damage.iterator();
+				while (it.hasNext()){
+					int[] o = it.next();
+					if (o[0] <= area[2]+1 && area[0] <= o[2]+1 && o[1] <= area[3]+1 && area[1] <= o[3]+1){
+						area = new int[]{Math.min(o[0], area[0]), Math.min(o[1], area[1]), Math.max(o[2], area[2]), Math.max(o[3], area[3])};
+						it.remove();
+						merged = true;
+					}
+				}
+			}
+			this.damage.add(area);
+		}
+	}
+	
+	public void damageTile(int x, int y){
+		damageArea(x, y, x, y);
+	}
+	
+	/**
+	  Mark the tiles covered by something drawn at x, y (it could be between two tiles)
+	*/
+	public void damageEntity(double x, double y){
+		damageArea((int)Math.floor(x), (int)Math.floor(y), (int)Math.ceil(x), (int)Math.ceil(y));
+	}
+	
+	public void damageAll(){
+		synchronized (this.damage){
+			this.fullDamage = true;
+			this.damage.clear();
+		}
+	}
+	
+	/**
+	  @return damaged areas or null if everything must be repainted
+	*/
+	private List<int[]> takeDamage(){
+		synchronized (this.damage){
+			List<int[]> output = (this.fullDamage || this.damage.size() == 0) ? null : new ArrayList<>(this.damage);
+			this.damage.clear();
+			this.fullDamage = false;
+			return output;
+		}
+	}
+
+	/**
+	  Mark the world as dirty, it will be rendered once on the next pulse with the latest view requested.
+	  (0, 0, 0, 0) means the whole world, otherwise the player view from x, y to x1, y1.
+	  @param skip - unused, updates are never dropped now
+	  @param invu - update also while viewFrom() is running
+	*/
+	public void update(int x, int y, int x1, int y1, boolean skip, boolean invu) {
+		RenderStats.updateRequested();
+		if (VIEWING && !invu){
+			return;
+		}
+		if (this.context == null){
+			Logger.warning("World pen is null");
+			return;
+		}
+		synchronized (this){
+			this.dirtyView = new int[]{x, y, x1, y1};
+		}
+		startFrameLoop();
+	}
+	
+	private void startFrameLoop(){
+		if (!Platform.isFxApplicationThread()){
+			Platform.runLater(() -> startFrameLoop());
+			return;
+		}
+		if (this.frameLoop == null){
+			this.frameLoop = new AnimationTimer(){
+				@Override
+				public void handle(long now){
+					RenderStats.pulse(now);
+					int[] view;
+					synchronized (World.this){
+						view = dirtyView;
+						dirtyView = null;
+					}
+					if (camera != null && VIEWING){
+						camera.follow(X_MOVE, Y_MOVE);
+					} else if (camera != null && player != null && !(World.this instanceof EditableWorld)){
+						camera.follow(player.psx != null ? player.psx : player.getX(), player.psy != null ? player.psy : player.getY());
+					}
+					if (camera != null){
+						if (camera.step(now) && view == null){
+							view = new int[]{0, 0, 0, 0}; // Smooth scrolling
+						}
+					}
+					if (view == null){
+						// Nothing changed since the last frame
+						stop();
+						RenderStats.loopStopped();
+						return;
+					}
+					long start = RenderStats.ENABLED ? System.nanoTime() : 0;
+					render(view[0], view[1], view[2], view[3]);
+					if (levelStats != null){
+						levelStats.refresh(); // The view could have moved
+					}
+					if (minimap != null){
+						minimap.refresh();
+					}
+					if (RenderStats.ENABLED){
+						RenderStats.frameRendered(start, System.nanoTime());
+					}
+				}
+			};
+		}
+		this.frameLoop.start();
+	}
+	
+	/**
+	  Render the world now, use update() to render it on the next pulse
+	*/
+	public void render(int x, int y, int x1, int y1){
 		try {
-			if (x == 0 && y == 0 && x1 == 0 && y1 == 0) {
-				this.pen.clearRect(0, 0, this.width * BLOCK_WIDTH, this.height * BLOCK_WIDTH);
-				draw();
+			if (this.pixelRenderer != null){
+				renderPixels(x, y, x1, y1);
+			} else if (x == 0 && y == 0 && x1 == 0 && y1 == 0 && this.camera != null) {
+				renderCamera();
+			} else if (x == 0 && y == 0 && x1 == 0 && y1 == 0) {
+				List<int[]> areas = takeDamage();
+				if (areas == null || !getDrawingMode().equals("normal") || this.lastViewX != Integer.MIN_VALUE){
+					this.context.getRenderer().clearRect(0, 0, this.width * getBlockWidth(), this.height * getBlockWidth());
+					draw();
+				} else {
+					for (int[] a : areas){
+						drawDamaged(0, 0, Math.max(a[0], 0), Math.max(a[1], 0), Math.min(a[2], this.width-1), Math.min(a[3], this.height-1));
+					}
+				}
+				this.lastViewX = Integer.MIN_VALUE;
+				this.lastViewY = Integer.MIN_VALUE;
 			} else {
 				if (getDrawingMode().equals("engineering")){
 					return;
 				}
-				this.pen.clearRect(0, 0, this.width * BLOCK_WIDTH, this.height * BLOCK_WIDTH); //(x+y) * BLOCK_WIDTH, (x+y) * BLOCK_WIDTH);
-				draw(x, y, x1, y1);
+				List<int[]> areas = takeDamage();
+				if (areas == null || x != this.lastViewX || y != this.lastViewY){
+					this.context.getRenderer().clearRect(0, 0, this.width * getBlockWidth(), this.height * getBlockWidth()); //(x+y) * BLOCK_WIDTH, (x+y) * BLOCK_WIDTH);
+					draw(x, y, x1, y1);
+				} else {
+					// Same camera as the last frame, damaged areas are translated by the camera offset
+					for (int[] a : areas){
+						drawDamaged(x, y, Math.max(a[0], x), Math.max(a[1], y), Math.min(a[2], x1), Math.min(a[3], y1));
+					}
+				}
+				this.lastViewX = x;
+				this.lastViewY = y;
 			}
 		} catch (NullPointerException e) {
 			Logger.warning("World pen is null");
 		}
 	}
+	/**
+	  Every frame is rendered again from scratch, but on all the cores
+	*/
+	private void renderPixels(int x, int y, int x1, int y1){
+		takeDamage();
+		if (getDrawingMode().equals("engineering") && !(x == 0 && y == 0 && x1 == 0 && y1 == 0)){
+			return;
+		}
+		if (x == 0 && y == 0 && x1 == 0 && y1 == 0 && this.camera != null){
+			this.pixelRenderer.render(this.camera.getX(), this.camera.getY(), getBlockWidth());
+			this.lastCameraX = this.camera.getX();
+			this.lastCameraY = this.camera.getY();
+			this.lastViewX = Integer.MIN_VALUE;
+			this.lastViewY = Integer.MIN_VALUE;
+		} else if (x == 0 && y == 0 && x1 == 0 && y1 == 0){
+			this.pixelRenderer.render(0, 0, getBlockWidth());
+			this.lastViewX = Integer.MIN_VALUE;
+			this.lastViewY = Integer.MIN_VALUE;
+		} else {
+			this.pixelRenderer.render(x, y, getBlockWidth());
+			this.lastViewX = x;
+			this.lastViewY = y;
+		}
+	}
+
+	private void renderCamera(){
+		RenderContext ctx = this.context.withOffset(this.camera.getX(), this.camera.getY());
+		int[] area = this.camera.getVisibleArea();
+		List<int[]> areas = takeDamage();
+		if (areas == null || !getDrawingMode().equals("normal") || this.camera.getX() != this.lastCameraX || this.camera.getY() != this.lastCameraY){
+			ctx.getRenderer().clearRect(0, 0, this.camera.getViewportWidth(), this.camera.getViewportHeight());
+			drawVisible(ctx, area);
+		} else {
+			for (int[] a : areas){
+				drawDamaged(ctx, Math.max(a[0], area[0]), Math.max(a[1], area[1]), Math.min(a[2], area[2]), Math.min(a[3], area[3]));
+			}
+		}
+		this.lastCameraX = this.camera.getX();
+		this.lastCameraY = this.camera.getY();
+		this.lastViewX = Integer.MIN_VALUE;
+		this.lastViewY = Integer.MIN_VALUE;
+	}
+
+	/**
+	  Draw only the tiles and entities inside area (camera mode)
+	*/
+	private void drawVisible(RenderContext ctx, int[] area){
+		if (getDrawingMode().equals("normal")){
+			drawRegion(ctx, area[0], area[1], area[2], area[3]);
+		} else if (getDrawingMode().equals("engineering")){
+			for (int cy = area[1]; cy <= area[3]; cy++){
+				for (int cx = area[0]; cx <= area[2]; cx++){
+					EngBlock block = this.engW.getBlockAt(cx, cy);
+					if (block != null && useFlatTiles(ctx)){
+						ctx.fillTile(TilePalette.getColor(block), cx, cy);
+					} else if (block != null){
+						block.draw(ctx, this);
+					}
+				}
+			}
+			if (!(this instanceof EditableWorld)){
+				for (Entity e: this.ents) {
+					if (e.engineering && e.getX() > area[0]-1 && e.getX() < area[2]+1 && e.getY() > area[1]-1 && e.getY() < area[3]+1){
+						e.draw(ctx);
+					}
+				}
+			}
+		}
+	}
+
 	public void update(int x, int y, int x1, int y1){ update(x, y, x1, y1, false, false); }
     public void update(int x, int y, int x1, int y1, boolean s){ update(x, y, x1, y1, s, false); }
 	
-	private static String readData(BufferedReader reader){
+	private Block[][] readWorld(String path, int position) {
+		LevelData data = readLevelData(path, position);
+		return data != null ? buildWorld(data) : null;
+	}
+
+	private static LevelData readLevelData(String path, int position) {
+		LevelData journaled = EditJournal.read(path); // The editor could have edits not yet written
+		if (journaled != null){
+			return journaled;
+		}
 		try {
-			String line;
-			do {
-				line = reader.readLine();
-				if (line == null){
-					return null;
-				}
-			} while (line.startsWith("#"));
-			return line;
-		} catch (IOException ex){
+			return WorldCache.get(path, "level@"+position, () -> List.of(parseLevelData(path, position))).get(0);
+		} catch (IOException ex) {
+			Logger.error("Could not read world");
 			return null;
 		}
 	}
 
-	private Block[][] readWorld(String path, int position) {
-		File file = new File(path);
-		try {
-			BufferedReader reader = new BufferedReader(new FileReader(file));
-
+	private static LevelData parseLevelData(String path, int position) throws IOException {
+		if (LevelData.isBinary(path)){
+			try (InputStream in = new BufferedInputStream(LevelPack.openStream(path))){
+				return LevelData.readBinary(in);
+			}
+		}
+		try (BufferedReader reader = LevelPack.openReader(path)){
 			for (int i = 0; i < position; i++){
 				reader.readLine();
 			}
-			
-			// Get world information
-			this.information = readData(reader);
-
-			// Get world width and height from file
-			String data = readData(reader);
-			this.width = Integer.parseInt(data.split("x")[0]);
-			this.height = Integer.parseInt(data.split("x")[1]);
-
-			// Get world layout
-			String wData = readData(reader);
-			Block[][] Fworld = parseWorldData(wData, height, width);
-
-			String startData = readData(reader);
-			String endData = readData(reader);
-
-			start = configureFromString(startData);
-			end = configureFromString(endData);
-			
-			String lightsData = readData(reader);
-			if (lightsData.equals("1")){
-				this.setAllLights(true);
-			} else if (lightsData.equals("0")){
-				this.setAllLights(false);
-			} else {
-				System.out.println("No light data available");
+			return LevelData.readText(reader);
+		}
+	}
+	
+	/**
+	  Create the blocks, the entities and the engineering world of a level
+	*/
+	private Block[][] buildWorld(LevelData data){
+		this.information = data.information;
+		this.width = data.width;
+		this.height = data.height;
+		this.start = data.start.clone();
+		this.end = data.end.clone();
+		this.lightRadius = data.lightRadius != null ? data.lightRadius : Block.LIGHT_AREA;
+		this.lightOcclusion = data.lightOcclusion;
+		if (data.lights != null){
+			this.setAllLights(data.lights);
+		} else {
+			System.out.println("No light data available");
+		}
+		
+		Block[][] output = new Block[this.height][this.width];
+		for (int y = 0; y < this.height; y++){
+			for (int x = 0; x < this.width; x++){
+				output[y][x] = Block.fromInt(data.tiles[y*this.width+x], x, y, data.infos[y*this.width+x]);
+				addBlockEntity(output[y][x]);
 			}
-
-			String engData = readData(reader);
-			if (engData != null) {
-				if (engData.equals("engineering_mode")) {
-					Logger.info("Eng mode available");
-					String engWorldData = readData(reader);
-					EngBlock[][] engWorld = parseEngWorldData(engWorldData, this.height, this.width);  // array, y, x
-					this.engW = new EngWorld(this, engWorld, this.width, this.height);
-				} else {
-					Logger.info("Engineering mode not available (missing string)");
-					this.engW = null;
+		}
+		
+		if (data.engTiles != null){
+			Logger.info("Eng mode available");
+			EngBlock[][] engWorld = new EngBlock[this.height][this.width];  // array, y, x
+			for (int y = 0; y < this.height; y++){
+				for (int x = 0; x < this.width; x++){
+					engWorld[y][x] = EngBlock.fromInt(data.engTiles[y*this.width+x], x, y, data.engInfos[y*this.width+x]);
 				}
-			} else {
-				Logger.info("Engineering mode not available (null)");
-				this.engW = null;
 			}
-
-			reader.close();
-			return Fworld;
-
-		} catch (IOException ex) {
-			Logger.error("Could not read world");
-			return null;
+			this.engW = new EngWorld(this, engWorld, this.width, this.height);
+			applyLightOptions();
+		} else {
+			Logger.info("Engineering mode not available");
+			this.engW = null;
+		}
+		return output;
+	}
+	
+	/**
+	  Level file content of this world
+	*/
+	public LevelData toLevelData(){
+		LevelData data = new LevelData();
+		data.information = this.information;
+		data.width = this.width;
+		data.height = this.height;
+		data.start = this.start.clone();
+		data.end = this.end.clone();
+		data.lights = getAllLights();
+		if (this.lightRadius != Block.LIGHT_AREA || this.lightOcclusion){
+			data.lightRadius = this.lightRadius;
+			data.lightOcclusion = this.lightOcclusion;
+		}
+		data.tiles = new int[this.width*this.height];
+		data.infos = new String[data.tiles.length];
+		for (int y = 0; y < this.height; y++){
+			for (int x = 0; x < this.width; x++){
+				data.tiles[y*this.width+x] = this.world[y][x].toInt();
+				data.infos[y*this.width+x] = this.world[y][x].getInfo();
+			}
 		}
+		if (this.engW != null){
+			data.engTiles = new int[data.tiles.length];
+			data.engInfos = new String[data.tiles.length];
+			EngBlock[][] eng = this.engW.getWorld();
+			for (int y = 0; y < this.height; y++){
+				for (int x = 0; x < this.width; x++){
+					data.engTiles[y*this.width+x] = eng[y][x].toInt();
+					data.engInfos[y*this.width+x] = eng[y][x].getInfo();
+				}
+			}
+		}
+		return data;
 	}
 	private Block[][] readWorld(String path){
 		return readWorld(path, 0);
@@ -749,246 +1267,198 @@ public class World {
 		this.updateOnFile();
 	}
 
-	private int[] configureFromString(String data) {
-		String[] split = data.split(",");
-		int[] output = new int[2];
-		int x = 0;
-
-		for (String i: split) {
-			output[x] = Integer.parseInt(i);
-			x++;
-		}
-
-		return output;
-	}
-	
-	private EngBlock[][] parseEngWorldData(String data, int h, int w){
-		
-		// Very similar method to parseWorldData()
-		
-		String[] current = data.split(",");
-		EngBlock[][] output = new EngBlock[h][w];
-		
-		int iterator = 0;
-		int counter = 0;
-		for (String i: current) {
-			EngBlock[] x = new EngBlock[w];
-			int it2 = 0;
-
-			if (iterator + w > current.length) { // If iterator is bigger than the list length then stop
-				break;
-			}
-			for (String v: Arrays.copyOfRange(current, iterator, iterator + w)) {
-				x[it2] = EngBlock.fromInt(Integer.parseInt(v.split(":")[0]), it2, counter, v.split(":").length > 1 ? v.split(":")[1] : null);
-				it2++;
-			}
-			output[counter] = x;
-			iterator += w;
-			counter++;
-		}
-
-		return output;
-	}
-
 	/**
-	 * Parse give string from file and return an array
-	 * @param data - string with all file data
-	 * @param h - world height
-	 * @param w - world width
-	 */
-	private Block[][] parseWorldData(String data, int h, int w) {
-		String[] current = data.split(",");
-		Block[][] output = new Block[h][w];
-
-		int iterator = 0;
-		int counter = 0;
-		for (String i: current) {
-			Block[] x = new Block[w];
-			int it2 = 0;
-
-			if (iterator + w > current.length) { // If iterator is bigger than the list length then stop
-				break;
+	  Add the entity that goes with a block (bats, arrows, elevators...)
+	*/
+	private void addBlockEntity(Block b){
+		Entity e = null;
+		if (b.getType() == BAT_GEN && !b.getInfo().split(";")[b.checkInfoKey("data")].split("#")[1].equals("NoDataSet")) {
+			String[] d = b.getInfo().split(";")[b.checkInfoKey("data")].split("#")[1].split(" ");
+			e = new Bat(this, b.getX(), b.getY(), Integer.parseInt(d[0]), d[1], Integer.parseInt(d[2]), d[3].equals("t") ? true : false, (d.length >= 5) ? Integer.parseInt(d[4]) : 30);
+		} else if (b.getType() == SHOOTER) {
+			String d = Character.toString(b.getInfo().split(";")[b.checkInfoKey("direction")].split("#")[1].charAt(0));
+			e = new Arrow(this, b.getX(), b.getY(), d, b.checkInfoKey("damage") >= 0 ? Integer.parseInt(b.getInfo().split(";")[b.checkInfoKey("damage")].split("#")[1]) : 30);
+		} else if (b.getType() == ELEVATOR && !b.getInfo().split(";")[b.checkInfoKey("data")].split("#")[1].equals("NoDataSet")) {
+			String[] d = b.getInfo().split("#")[1].split(" ");
+			e = new Elevator(this, b.getX(), b.getY(), Integer.parseInt(d[0]), d[1]);
+		} else if (b.getType() == C_SPIKE) {
+			e = new CSpike(this, b.getX(), b.getY());
+		} else if (b.getType() == PARALLEL_BLOCK){
+			if (b.parallelBlockData[b.checkInfoKey("type")].equals(EngBlock.DOOR)){
+				e = new ParallelBlock(this, b.getX(), b.getY(), b.getInfo(), new int[][]{{0, 1, 2, 3},{3, 2, 1, 0}}, 3, 0);
 			}
-			for (String v: Arrays.copyOfRange(current, iterator, iterator + w)) {
-				x[it2] = Block.fromInt(Integer.parseInt(v.split(":")[0]), it2, counter, v.split(":").length > 1 ? v.split(":")[1] : null);
-				if (x[it2].getType() == BAT_GEN && !x[it2].getInfo().split(";")[x[it2].checkInfoKey("data")].split("#")[1].equals("NoDataSet")) {
-					String[] d = x[it2].getInfo().split(";")[x[it2].checkInfoKey("data")].split("#")[1].split(" ");
-					addEnt(new Bat(this, x[it2].getX(), x[it2].getY(), Integer.parseInt(d[0]), d[1], Integer.parseInt(d[2]), d[3].equals("t") ? true : false, (d.length >= 5) ? Integer.parseInt(d[4]) : 30));
-				} else if (x[it2].getType() == SHOOTER) {
-					String d = Character.toString(x[it2].getInfo().split(";")[x[it2].checkInfoKey("direction")].split("#")[1].charAt(0));
-					addEnt(new Arrow(this, x[it2].getX(), x[it2].getY(), d, x[it2].checkInfoKey("damage") >= 0 ? Integer.parseInt(x[it2].getInfo().split(";")[x[it2].checkInfoKey("damage")].split("#")[1]) : 30));
-				} else if (x[it2].getType() == ELEVATOR && !x[it2].getInfo().split(";")[x[it2].checkInfoKey("data")].split("#")[1].equals("NoDataSet")) {
-					String[] d = x[it2].getInfo().split("#")[1].split(" ");
-					addEnt(new Elevator(this, x[it2].getX(), x[it2].getY(), Integer.parseInt(d[0]), d[1]));
-				} else if (x[it2].getType() == C_SPIKE) {
-					addEnt(new CSpike(this, x[it2].getX(), x[it2].getY()));
-				} else if (x[it2].getType() == PARALLEL_BLOCK){
-					if (x[it2].parallelBlockData[x[it2].checkInfoKey("type")].equals(EngBlock.DOOR)){
-						addEnt(new ParallelBlock(this, x[it2].getX(), x[it2].getY(), x[it2].getInfo(), new int[][]{{0, 1, 2, 3},{3, 2, 1, 0}}, 3, 0));
-					}
-				}
-				it2++;
-			}
-			output[counter] = x;
-			iterator += w;
-			counter++;
 		}
-		return output;
+		if (e != null){
+			addEnt(e);
+			this.blockEnts.put(b.getY()*this.width+b.getX(), e);
+		}
 	}
 	
-	public static void drawRotatedImage(GraphicsContext pen, String img, double x, double y, int w, String d, boolean isContained, boolean exRotation, boolean complete, String attach){
+	public static void drawRotatedImage(RenderContext ctx, String img, double x, double y, String d, boolean isContained, boolean exRotation, boolean complete, String attach){
+		drawRotatedImage(ctx, img, x, y, d, isContained, exRotation, complete, attach, Block.LIGHT);
+	}
+
+	public static void drawRotatedImage(RenderContext ctx, String img, double x, double y, String d, boolean isContained, boolean exRotation, boolean complete, String attach, double brightness){
 		// NORTH: 0 - EAST: 90 - SOUTH: 180 - WEST: -90 (Square images only)
 		// isContained: in spriteSheet ?
 		// exRotation: true: give attach value and d for filename, false: no attach value needed
 		// complete: use n e s w or complete form (n e s w ne es sw ...) ?
-		Image imgFile = new Image(img+(exRotation ? "-"+d: "")+".png");
+		// img: path relative to the Images folder without extension (e.g. entities/player)
+		// x, y: tile coords, brightness: see Block.DARK and Block.LIGHT
+		String name = img+(exRotation ? "-"+d: "")+".png";
 		if (exRotation){
-			pen.drawImage(imgFile, isContained ? Block.getSpriteCoords(attach, complete, true) : 0,  isContained ? 1 : 0, isContained ? DEFAULT_BLOCK_WIDTH : imgFile.getWidth(), isContained ? DEFAULT_BLOCK_WIDTH : imgFile.getHeight(), x, y, w, w);
+			ctx.drawTile(name, brightness, isContained ? Block.getSpriteIndex(attach, complete, true) : 0, x, y);
+		} else if (isContained){
+			ctx.drawTile(name, brightness, Block.getSpriteIndex(d, complete, false), x, y);
 		} else {
-			switch (d){
-				case NORTH:
-					if (isContained){
-						pen.drawImage(imgFile, Block.getSpriteCoords(d, complete, false),  1, DEFAULT_BLOCK_WIDTH, DEFAULT_BLOCK_WIDTH, x, y, w, w);
-					} else {
-						pen.drawImage(imgFile, x, y, w, w);
-					}
-					break;
-				case EAST:
-					if (isContained){
-						pen.drawImage(imgFile, Block.getSpriteCoords(d, complete, false),  1, DEFAULT_BLOCK_WIDTH, DEFAULT_BLOCK_WIDTH, x, y, w, w);
-					} else {
-						pen.translate(x+w, y);
-						pen.rotate(90);
-						pen.drawImage(imgFile, 0, 0, w, w);
-						pen.rotate(-90);
-						pen.translate(-x-w, -y);
-					}
-					break;
-				case SOUTH:
-					if (isContained){
-						pen.drawImage(imgFile, Block.getSpriteCoords(d, complete, false),  1, DEFAULT_BLOCK_WIDTH, DEFAULT_BLOCK_WIDTH, x, y, w, w);
-					} else {
-						pen.translate(x+w, y+w);
-						pen.rotate(180);
-						pen.drawImage(imgFile, 0, 0, w, w);
-						pen.rotate(-180);
-						pen.translate(-x-w, -y-w);
-					}
-					break;
-				case WEST:
-					if (isContained){
-						pen.drawImage(imgFile, Block.getSpriteCoords(d, complete, false),  1, DEFAULT_BLOCK_WIDTH, DEFAULT_BLOCK_WIDTH, x, y, w, w);
-					} else {
-						pen.translate(x, y+w);
-						pen.rotate(-90);
-						pen.drawImage(imgFile, 0, 0, w, w);
-						pen.rotate(90);
-						pen.translate(-x, -y-w);
-					}
-					break;
-			}
+			// Rotated variants are baked once by the AssetManager
+			ctx.drawTile(ctx.getSprite(name, d, brightness), 0, x, y);
 		}
 	}
 
 	public void draw() {
+		RenderContext ctx = this.context;
+		if (this.camera != null){
+			drawVisible(ctx.withOffset(this.camera.getX(), this.camera.getY()), this.camera.getVisibleArea());
+			return;
+		}
 		if (getDrawingMode().equals("normal")){
-			for (Block[] blocks: world) {
-				for (Block block: blocks) {
-					block.draw(this.pen, this);
+			if (!this.tileCache.draw(ctx, 0, 0, this.width-1, this.height-1)){
+				for (Block[] blocks: world) {
+					for (Block block: blocks) {
+						block.draw(ctx, this);
+					}
 				}
 			}
-			drawStart(0, 0);
-			drawEnd(0, 0);
+			drawStart(ctx);
+			drawEnd(ctx);
 			for (Entity e: this.ents) {
 				if (!e.layer){
-					e.draw(this.pen);
+					e.draw(ctx);
 				}
 			}
-			this.player.draw(this.pen);
+			this.player.draw(ctx);
 			for (Entity e: this.ents) {
 				if (e.layer){
-					e.draw(this.pen);
+					e.draw(ctx);
 				}
 			}
 		} else if (getDrawingMode().equals("engineering")){
 			for (EngBlock[] blocks: engW.getWorld()) {
 				for (EngBlock block: blocks) {
-					block.draw(this.pen, this);
+					block.draw(ctx, this);
 				}
 			}
 			if (!(this instanceof EditableWorld)){
 				for (Entity e: this.ents) {
 					if (e.engineering){
-						e.draw(this.pen);
+						e.draw(ctx);
 					}
 				}
 			}
 		}
 	}
 
+	/**
+	  Draw the tiles from x, y to x1, y1 (included) with any renderer, used to render a world
+	  without a Canvas (see PngExporter)
+	*/
+	public void drawTo(RenderContext ctx, int x, int y, int x1, int y1){
+		drawVisible(ctx, new int[]{Math.max(x, 0), Math.max(y, 0), Math.min(x1, this.width-1), Math.min(y1, this.height-1)});
+	}
+
 	public void draw(int x, int y, int x1, int y1) {
 		if (getDrawingMode().equals("engineering")){
 			return;
 		}
-		int coux = 0;
-		int couy = 0;
-		for (int cy = y; cy<= y1; cy++) {
-			for (int cx = x; cx<= x1; cx++) {
+		drawRegion(this.context.withOffset(x, y), x, y, x1, y1);
+	}
+	
+	/**
+	  Clear and repaint only the tiles from sx, sy to ex, ey (world coords, included)
+	  @param x - X coord of the camera (tile drawn at 0, 0)
+	  @param y - Y coord of the camera
+	*/
+	private void drawDamaged(int x, int y, int sx, int sy, int ex, int ey){
+		drawDamaged(this.context.withOffset(x, y), sx, sy, ex, ey);
+	}
+
+	private void drawDamaged(RenderContext ctx, int sx, int sy, int ex, int ey){
+		if (sx > ex || sy > ey){
+			return;
+		}
+		TileRenderer renderer = ctx.getRenderer();
+		double px = ctx.toScreenX(sx);
+		double py = ctx.toScreenY(sy);
+		double pw = (ex - sx + 1) * ctx.getBlockWidth();
+		double ph = (ey - sy + 1) * ctx.getBlockWidth();
+		renderer.save();
+		renderer.clip(px, py, pw, ph);
+		renderer.clearRect(px, py, pw, ph);
+		drawRegion(ctx, sx, sy, ex, ey);
+		renderer.restore();
+	}
+	
+	private void drawRegion(RenderContext ctx, int sx, int sy, int ex, int ey){
+		boolean flat = useFlatTiles(ctx);
+		boolean cached = flat || this.tileCache.draw(ctx, sx, sy, ex, ey);
+		for (int cy = sy; cy<= ey; cy++) {
+			for (int cx = sx; cx<= ex; cx++) {
 				Block b = getBlockAt(cx, cy);
-				if (b != null) {
-					b.draw(this.pen, coux, couy, this);
+				if (flat){
+					ctx.fillTile(TilePalette.getColor(b), cx, cy);
+				} else if (b != null) {
+					if (!cached){
+						b.draw(ctx, cx, cy, this);
+					}
 				} else {
-					new Block(VOID, coux, couy, null).draw(this.pen, this);
+					new Block(VOID, cx, cy, null).draw(ctx, this);
 				}
-				coux++;
 			}
-			coux = 0;
-			couy++;
 		}
-		if ((start[0] >= x && start[0]<= x1) && (start[1] >= y && start[1]<= y1)) {
-			drawStart(x, y);
+		if ((start[0] >= sx && start[0]<= ex) && (start[1] >= sy && start[1]<= ey)) {
+			drawStart(ctx);
 		}
-		if ((end[0] >= x && end[0]<= x1) && (end[1] >= y && end[1]<= y1)) {
-			drawEnd(x, y);
+		if ((end[0] >= sx && end[0]<= ex) && (end[1] >= sy && end[1]<= ey)) {
+			drawEnd(ctx);
 		}
 		for (Entity e: this.ents) {
-			if (((e.getX() >= x && e.getX()<= x1) && (e.getY() >= y && e.getY()<= y1)) || (e instanceof PoisonCloud)) {
+			if ((e.getX() > sx-1 && e.getX() < ex+1 && e.getY() > sy-1 && e.getY() < ey+1) || (e instanceof PoisonCloud)) {
 				if (!e.layer){
-					e.draw(this.pen, e.getX() - x, e.getY() - y);
+					e.draw(ctx);
 				}
 			}
 		}
-		if ((this.player.getX() >= x && this.player.getX()<= x1) && (this.player.getY() >= y && this.player.getY()<= y1)) {
-			if (this.player.psx == null && this.player.psy == null) {
-				this.player.draw(this.pen, this.player.getX() - x, this.player.getY() - y);
+		// The player is drawn also if it's a bit outside (it could be moving between two tiles)
+		if (this.player != null && this.player.psx == null && this.player.psy == null) {
+			if ((this.player.getX() >= sx-2 && this.player.getX()<= ex+1) && (this.player.getY() >= sy-2 && this.player.getY()<= ey)) {
+				this.player.draw(ctx, this.player.getX(), this.player.getY());
 			}
 		}
 
-		if (this.player.psx != null && this.player.psy != null) {
-			if ((this.player.psx >= x && this.player.psx<= x1) && (this.player.psy >= y && this.player.psy<= y1)) {
-				this.player.draw(this.pen, this.player.psx - x, this.player.psy - y);
+		if (this.player != null && this.player.psx != null && this.player.psy != null) {
+			if ((this.player.psx > sx-3 && this.player.psx < ex+2) && (this.player.psy > sy-3 && this.player.psy < ey+1)) {
+				this.player.draw(ctx, this.player.psx, this.player.psy);
 			}
 		}
 		for (Entity e: this.ents) {
-			if (((e.getX() >= x && e.getX()<= x1) && (e.getY() >= y && e.getY()<= y1)) || (e instanceof PoisonCloud)) {
+			if ((e.getX() > sx-1 && e.getX() < ex+1 && e.getY() > sy-1 && e.getY() < ey+1) || (e instanceof PoisonCloud)) {
 				if (e.layer){
-					e.draw(this.pen, e.getX() - x, e.getY() - y);
+					e.draw(ctx);
 				}
 			}
 		}
 	}
 
-	private void drawStart(int x, int y) {
-		this.pen.setStroke(Color.GREEN);
-		this.pen.setFont(new Font("Arial", 23/32 * World.BLOCK_WIDTH));
-		this.pen.strokeText("S", (start[0] - x) * BLOCK_WIDTH + 2, (start[1] - y) * BLOCK_WIDTH + 22);
+	private void drawStart(RenderContext ctx) {
+		ctx.getRenderer().strokeText("S", Color.GREEN, "Arial", 23/32 * ctx.getBlockWidth(), ctx.toScreenX(start[0]) + 2, ctx.toScreenY(start[1]) + 22);
 	}
 
-	private void drawEnd(int x, int y) {
+	private void drawEnd(RenderContext ctx) {
 		if (this.showEnd){
-			this.pen.drawImage(new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/blocks/end.png"), (end[0] - x) * BLOCK_WIDTH, (end[1] - y) * BLOCK_WIDTH, BLOCK_WIDTH, BLOCK_WIDTH);
+			ctx.drawTile("blocks/end.png", Block.LIGHT, end[0], end[1]);
 			if (this.warningOnEnd){
-				this.pen.drawImage(new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/editor/warning.png"), (end[0] - x) * BLOCK_WIDTH, (end[1] - y) * BLOCK_WIDTH, BLOCK_WIDTH, BLOCK_WIDTH);
+				ctx.drawTile("editor/warning.png", Block.LIGHT, end[0], end[1]);
 			}
 		}
 	}
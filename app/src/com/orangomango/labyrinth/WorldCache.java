@@ -0,0 +1,159 @@
+package com.orangomango.labyrinth;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+  Levels already parsed, shared by the whole game. An entry is valid while its file has the same
+  real path, modification time, size and file key (a save replaces the file, so the key changes).
+  The least recently used entries are removed when the estimated size is more than MAX_BYTES.
+  The levels returned are snapshots shared with other callers: they must not be changed, use
+  LevelData.copy() to get a level that can be changed.
+*/
+public class WorldCache {
+	public static final long MAX_BYTES = 32L * 1024 * 1024;
+
+	/**
+	  Parse a file, called only when it's not in the cache
+	*/
+	public interface Loader {
+		List<LevelData> load() throws IOException;
+	}
+
+	private static class Entry {
+		private String version;
+		private List<LevelData> levels;
+		private long bytes;
+	}
+
+	private static Map<String, Entry> cache = new LinkedHashMap<>(16, 0.75f, true); // Access order
+	private static long usedBytes;
+	private static int hits, misses;
+
+	/**
+	  @param path - level file or entry of a pack
+	  @param part - what is read from the file (e.g. "arcade" or "level@0")
+	  @return the cached levels or the levels read by the loader, null if the file can't be read
+	*/
+	public static List<LevelData> get(String path, String part, Loader loader) throws IOException {
+		String[] key = getKey(path, part);
+		if (key != null){
+			synchronized (WorldCache.class){
+				Entry e = cache.get(key[0]);
+				if (e != null && e.version.equals(key[1])){
+					hits++;
+					return e.levels;
+				}
+				misses++;
+			}
+		}
+		List<LevelData> levels = loader.load();
+		if (key != null && levels != null){
+			put(key, Collections.unmodifiableList(levels));
+		}
+		return levels;
+	}
+
+	/**
+	  @return the cached levels or null, the file is never read
+	*/
+	public static List<LevelData> peek(String path, String part){
+		String[] key = getKey(path, part);
+		if (key == null){
+			return null;
+		}
+		synchronized (WorldCache.class){
+			Entry e = cache.get(key[0]);
+			if (e != null && e.version.equals(key[1])){
+				hits++;
+				return e.levels;
+			}
+			return null;
+		}
+	}
+
+	private static synchronized void put(String[] key, List<LevelData> levels){
+		Entry e = new Entry();
+		e.version = key[1];
+		e.levels = levels;
+		for (LevelData data : levels){
+			e.bytes += estimateSize(data);
+		}
+		if (e.bytes > MAX_BYTES){
+			return; // It would remove everything else
+		}
+		Entry old = cache.put(key[0], e);
+		if (old != null){
+			usedBytes -= old.bytes;
+		}
+		usedBytes += e.bytes;
+		Iterator<Entry> it = cache.values().iterator();
+		while (usedBytes > MAX_BYTES && it.hasNext()){
+			Entry eldest = it.next();
+			usedBytes -= eldest.bytes;
+			it.remove();
+		}
+	}
+
+	/**
+	  @return {real path + part, version of the file}, null if the file doesn't exist
+	*/
+	private static String[] getKey(String path, String part){
+		if (path == null){
+			return null;
+		}
+		String file = path;
+		String entry = "";
+		int sep = path.indexOf(LevelPack.EXTENSION + LevelPack.SEPARATOR);
+		if (sep >= 0){
+			sep += LevelPack.EXTENSION.length();
+			file = path.substring(0, sep);
+			entry = path.substring(sep);
+		} else {
+			FileSaver.flush(path); // A pending save changes the file
+		}
+		try {
+			Path p = Paths.get(file).toRealPath();
+			BasicFileAttributes attr = Files.readAttributes(p, BasicFileAttributes.class);
+			return new String[]{p + entry + "#" + part, attr.lastModifiedTime().toMillis() + ":" + attr.size() + ":" + attr.fileKey()};
+		} catch (IOException | RuntimeException e){
+			return null;
+		}
+	}
+
+	private static long estimateSize(LevelData data){
+		long size = 128 + (data.information != null ? data.information.length() * 2 : 0);
+		size += estimateSize(data.tiles, data.infos);
+		if (data.engTiles != null){
+			size += estimateSize(data.engTiles, data.engInfos);
+		}
+		return size;
+	}
+
+	private static long estimateSize(int[] ids, String[] infos){
+		long size = 32 + ids.length * 4L + infos.length * 8L;
+		for (String info : infos){
+			if (info != null){
+				size += 40 + info.length() * 2;
+			}
+		}
+		return size;
+	}
+
+	public static synchronized void clear(){
+		cache.clear();
+		usedBytes = 0;
+	}
+
+	public static synchronized String getStats(){
+		return String.format("%d level files, %d KB, %d hits, %d misses", cache.size(), usedBytes / 1024, hits, misses);
+	}
+}
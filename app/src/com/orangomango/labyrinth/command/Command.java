@@ -8,6 +8,10 @@ import java.io.*;
 
 import com.orangomango.labyrinth.menu.editor.*;
 import com.orangomango.labyrinth.menu.Menu;
+import com.orangomango.labyrinth.LevelData;
+import com.orangomango.labyrinth.LevelPack;
+import java.util.ArrayList;
+import java.util.List;
 
 public class Command {
 	private String command;
@@ -25,6 +29,9 @@ public class Command {
 	public static final String CURRENT_PATH = "current_path";
 	public static final String WORKING_PATH = "working_path";
 	public static final String WORLD_PATH = "world_path";
+	public static final String CONVERT = "convert";
+	public static final String PACK = "pack";
+	public static final String LIGHT = "light";
 	
 	// Those commands may be implemented as argument: "working_path -a"
 	public static final String WORKING_PATH_LIST = "working_path_list";
@@ -240,6 +247,58 @@ public class Command {
 				}
 				outputText = "File deleted successfully";
 				break;
+			case CONVERT:
+				if (args.length < 3){
+					outputText = "usage: convert <input-file> <output-file>\n(.wld and .wldb files)";
+					break;
+				}
+				try {
+					LevelData.convert(new File(args[1]), new File(args[2]));
+					outputText = "File converted";
+				} catch (IOException e){
+					outputText = "Could not convert file: "+e.getMessage();
+				}
+				break;
+			case PACK:
+				if (args.length < 3){
+					outputText = "usage: pack <output-file.lpk> <level-file> [level-file...]";
+					break;
+				}
+				try {
+					List<File> files = new ArrayList<>();
+					for (int i = 2; i < args.length; i++){
+						files.add(new File(args[i]));
+					}
+					LevelPack.create(new File(args[1]), files, true);
+					outputText = "Level pack created with "+files.size()+" levels";
+				} catch (IOException e){
+					outputText = "Could not create level pack: "+e.getMessage();
+				}
+				break;
+			case LIGHT:
+				if (this.edworld.getEngineeringWorld() == null){
+					outputText = "This level has no engineering mode";
+					break;
+				}
+				if (args.length < 2){
+					outputText = "LIGHT: radius "+this.edworld.getEngineeringWorld().getLightMap().getRadius()+", occlusion "+(this.edworld.getEngineeringWorld().getLightMap().getOcclusion() ? 1 : 0);
+					break;
+				}
+				try {
+					int radius = Integer.parseInt(args[1]);
+					if (radius < 0){
+						outputText = "Invalid radius: "+radius;
+						break;
+					}
+					boolean occlusion = args.length > 2 ? args[2].equals("1") : this.edworld.getEngineeringWorld().getLightMap().getOcclusion();
+					this.edworld.setLightOptions(radius, occlusion);
+					this.edworld.updateOnFile(); // Saved with the level
+					this.editor.unsaved();
+					outputText = "Light options changed";
+				} catch (NumberFormatException e){
+					outputText = "Invalid argument: "+e.getMessage();
+				}
+				break;
 			case HELP:
 				if (args.length > 1){
 					switch (args[1]){
@@ -250,7 +309,7 @@ public class Command {
 							outputText = "No documentation available for command \""+args[1]+"\"";
 					}
 				} else {
-					outputText = "Available commands:\nCURRENT_PATH, get current_path: current_path\nDELETE, delete a level: del <file-name>\nEXIT, exit the editor: exit\nGET_ABS_PATH, get abs path of a file: abs [file-name]\nHELP, help for a command: help [command-name]\nLIST, list worlds: list\nMODIFY, modify level: modify <command>\nNEW, create a new file: new\nOPEN, open a level file: open <file-name>\nRUN, run a level: run [level-name]\nSAVE, save current file: save\nWORKING_PATH, get working path: working_path";
+					outputText = "Available commands:\nCONVERT, convert a level between .wld and .wldb: convert <input-file> <output-file>\nCURRENT_PATH, get current_path: current_path\nDELETE, delete a level: del <file-name>\nEXIT, exit the editor: exit\nGET_ABS_PATH, get abs path of a file: abs [file-name]\nHELP, help for a command: help [command-name]\nLIGHT, light radius and occlusion of the LEDs: light [radius] [occlusion 0/1]\nLIST, list worlds: list\nMODIFY, modify level: modify <command>\nNEW, create a new file: new\nOPEN, open a level file: open <file-name>\nPACK, create a level pack: pack <output-file> <level-file...>\nRUN, run a level: run [level-name]\nSAVE, save current file: save\nWORKING_PATH, get working path: working_path";
 				}
 				break;
 			default:
@@ -3,14 +3,15 @@ package com.orangomango.labyrinth.engineering;
 import javafx.scene.canvas.*;
 import javafx.scene.paint.Color;
 import javafx.scene.image.Image;
-import javafx.animation.*;
-import javafx.util.Duration;
-import javafx.scene.effect.ColorAdjust;
 
 import java.util.Random;
 
 import com.orangomango.labyrinth.World;
 import com.orangomango.labyrinth.Block;
+import com.orangomango.labyrinth.AssetManager;
+import com.orangomango.labyrinth.RenderContext;
+import com.orangomango.labyrinth.RenderStats;
+import com.orangomango.labyrinth.AnimationClock;
 import com.orangomango.labyrinth.menu.editor.Editor;
 import com.orangomango.labyrinth.menu.editor.EditableWorld;
 import static com.orangomango.labyrinth.menu.editor.Editor.PATH;
@@ -28,9 +29,8 @@ public class EngBlock {
 	private int imageIndex;
 	private int randomImageIndexStart = -1;
 	
-	private int counter;
-	private Timeline t;
-	private int max;
+	private AnimationClock.Animated animation;
+	private int frames, frameTime;
 
 	//Categories
 	public static final String SIGNAL_EXTENDER = "signal_extender";
@@ -62,8 +62,8 @@ public class EngBlock {
 	public void setWorld(EngWorld w) {
 		this.world = w;
 		this.path = getType().equals(CABLE) ? w.getAtt(getX(), getY())[2] : ""; // Get image path
-		if (this.info == null && getType().equals(CABLE)) {
-			this.info = "attachments#" + w.getAtt(getX(), getY())[1];
+		if (getType().equals(CABLE)) {
+			this.info = "attachments#" + Block.fromConnMask(w.getMask(getX(), getY()));
 		}
 	}
 
@@ -188,6 +188,15 @@ public class EngBlock {
 				return;
 			}
 		}
+		if (this.active != a && this.world != null && this.world.getBigWorld() != null){
+			// Lighting and parallel blocks around this block depend on its state
+			int r = Math.max(this.world.getLightMap().getRadius(), Block.LIGHT_AREA);
+			if (getType().equals(LED)){
+				this.world.getLightMap().setLight(getX(), getY(), a);
+			}
+			this.world.getBigWorld().invalidateTiles(getX()-r, getY()-r, getX()+r, getY()+r);
+			this.world.getBigWorld().damageArea(getX()-r, getY()-r, getX()+r, getY()+r);
+		}
 		this.active = a;
 		if (getCategory().equals(SIGNAL_INPUT)) {
 			//doActivate = false;
@@ -256,85 +265,96 @@ public class EngBlock {
 	}
 	
 	public void makeAnimation(int images, int time){
-		counter = 0;
-		max = images;
-		t = new Timeline(new KeyFrame(Duration.millis(time), event -> {		
-			this.imageIndex = counter;
-			if (counter+1 != max){
-				counter++;
-			} else {
-				int extra = 0;
-				// Random start
-				if (this.randomImageIndexStart > 0){
-					Random rnd = new Random();
-					extra = rnd.nextInt(this.randomImageIndexStart);
-				}
-				counter = extra * images;
-				max = counter + images;
+		this.animation = new AnimationClock.Animated(){
+			@Override
+			public int getFrameTime(){
+				return time;
+			}
+			
+			@Override
+			public boolean frameChanged(long now){
+				world.getBigWorld().damageTile(getX(), getY());
+				return true;
 			}
-			this.world.getBigWorld().update(0, 0, 0, 0);
-		}));
-		t.setCycleCount(Animation.INDEFINITE);
-		t.play();
+		};
+		this.frames = images;
+		this.frameTime = time;
+		this.world.getBigWorld().getClock().register(this.animation);
 	}
 	
 	public void stopAnimation(){
-		t.stop();
+		this.world.getBigWorld().getClock().unregister(this.animation);
+		this.animation = null;
 	}
 	
-	public void drawAirBlock(GraphicsContext pen, int px, int py){
-		pen.drawImage(new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/engineering/blocks/block_air.png"), px * World.BLOCK_WIDTH, py * World.BLOCK_WIDTH, World.BLOCK_WIDTH, World.BLOCK_WIDTH);
+	/**
+	  Frame of the generator animation: every cycle of frames images starts from a random group
+	  of images (the first one always from 0)
+	*/
+	private int getImageIndex(){
+		if (this.animation == null){
+			return this.imageIndex;
+		}
+		long frame = this.world.getBigWorld().getClock().getTime() / this.frameTime;
+		long cycle = frame / this.frames;
+		int extra = 0;
+		if (cycle > 0 && this.randomImageIndexStart > 0){
+			// Same start for the whole cycle
+			extra = new Random(cycle * 31 + getX() * 7919 + getY()).nextInt(this.randomImageIndexStart);
+		}
+		return extra * this.frames + (int)(frame % this.frames);
 	}
 	
-	public void draw(GraphicsContext pen, World w){
-		
-		ColorAdjust effect = new ColorAdjust();
+	public void drawAirBlock(RenderContext ctx, int px, int py){
+		drawAirBlock(ctx, px, py, Block.LIGHT);
+	}
+	
+	public void drawAirBlock(RenderContext ctx, int px, int py, double brightness){
+		ctx.drawTile("engineering/blocks/block_air.png", brightness, px, py);
+	}
+	
+	public void draw(RenderContext ctx, World w){
+		RenderStats.tileDrawn();
 		
+		double brightness;
 		if ((getType().equals(LED) && isActive()) || this.world.getBigWorld().getBlockAt(getX(), getY()).activeBlockAround(this.world.getBigWorld())){
-			effect.setBrightness(Block.LIGHT);
+			brightness = Block.LIGHT;
 		} else {
-			effect.setBrightness(Block.DARK);
+			brightness = Block.DARK;
 		}
 		
 		if (w instanceof EditableWorld){
-			effect.setBrightness(Block.LIGHT);
+			brightness = Block.LIGHT;
 		}
 		
-		pen.setEffect(effect);
-		
-		if (getType() == CABLE){
-			this.info = "attachments#" + this.world.getAtt(getX(), getY())[1];
-		}
 		switch (getType()){
 			case AIR:
-				drawAirBlock(pen, getX(), getY());
+				drawAirBlock(ctx, getX(), getY(), brightness);
 				break;
 			case CABLE:
-				drawAirBlock(pen, getX(), getY());
-				pen.drawImage(new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/engineering/blocks/cable.png"), Integer.parseInt(this.world.getAtt(getX(), getY())[2]), 1, World.DEFAULT_BLOCK_WIDTH, World.DEFAULT_BLOCK_WIDTH, getX() * World.BLOCK_WIDTH, getY() * World.BLOCK_WIDTH, World.BLOCK_WIDTH, World.BLOCK_WIDTH);
+				drawAirBlock(ctx, getX(), getY(), brightness);
+				ctx.drawTile("engineering/blocks/cable.png", brightness, Block.getSpriteIndex(this.world.getMask(getX(), getY())), getX(), getY());
 				break;
 			case LEVER:
-				drawAirBlock(pen, getX(), getY());
-				pen.drawImage(new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/engineering/blocks/lever.png"), 1+(World.DEFAULT_BLOCK_WIDTH+2)*(isActive() ? 1 : 0), 1, World.DEFAULT_BLOCK_WIDTH, World.DEFAULT_BLOCK_WIDTH, getX() * World.BLOCK_WIDTH, getY() * World.BLOCK_WIDTH, World.BLOCK_WIDTH, World.BLOCK_WIDTH);
+				drawAirBlock(ctx, getX(), getY(), brightness);
+				ctx.drawTile("engineering/blocks/lever.png", brightness, isActive() ? 1 : 0, getX(), getY());
 				break;
 			case GENERATOR:
-				pen.drawImage(new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/engineering/blocks/generator.png"), 1+34*this.imageIndex, 1, World.DEFAULT_BLOCK_WIDTH, World.DEFAULT_BLOCK_WIDTH, getX() * World.BLOCK_WIDTH, getY() * World.BLOCK_WIDTH, World.BLOCK_WIDTH, World.BLOCK_WIDTH);
+				ctx.drawTile("engineering/blocks/generator.png", brightness, getImageIndex(), getX(), getY());
 				break;
 			case DOOR:
-				drawAirBlock(pen, getX(), getY());
+				drawAirBlock(ctx, getX(), getY(), brightness);
 				if (w instanceof EditableWorld){
-					pen.drawImage(new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/engineering/blocks/door.png"), 1+(World.DEFAULT_BLOCK_WIDTH+2)*3, 1, World.DEFAULT_BLOCK_WIDTH, World.DEFAULT_BLOCK_WIDTH, getX() * World.BLOCK_WIDTH, getY() * World.BLOCK_WIDTH, World.BLOCK_WIDTH, World.BLOCK_WIDTH);
+					ctx.drawTile("engineering/blocks/door.png", brightness, 3, getX(), getY());
 				}
 				break;
 			case LED:
-				drawAirBlock(pen, getX(), getY());
-				pen.drawImage(new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/engineering/blocks/led.png"), 1+(World.DEFAULT_BLOCK_WIDTH+2)*(isActive() ? 1 : 0), 1, World.DEFAULT_BLOCK_WIDTH, World.DEFAULT_BLOCK_WIDTH, getX() * World.BLOCK_WIDTH, getY() * World.BLOCK_WIDTH, World.BLOCK_WIDTH, World.BLOCK_WIDTH);
+				drawAirBlock(ctx, getX(), getY(), brightness);
+				ctx.drawTile("engineering/blocks/led.png", brightness, isActive() ? 1 : 0, getX(), getY());
 				break;
 			default:
-				pen.setFill(Color.RED);
-				pen.fillRect(getX() * World.BLOCK_WIDTH, getY() * World.BLOCK_WIDTH, World.BLOCK_WIDTH, World.BLOCK_WIDTH);
+				ctx.fillTile(AssetManager.adjustColor(Color.RED, brightness), getX(), getY());
 		}
-		pen.setEffect(null);
 	}
 
 	public static EngBlock fromInt(int x, int x1, int y1, String i) {
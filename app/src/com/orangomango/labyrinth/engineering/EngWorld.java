@@ -11,12 +11,15 @@ public class EngWorld {
 	private int height;
 	public EngBlock[] foundBlocks = new EngBlock[0];
 	private World bigWorld;
+	private LightMap lightMap;
+	private int[][] masks = null;
 
 	public EngWorld(World bigWorld, EngBlock[][] wo, int w, int h) {
 		this.world = wo;
 		this.height = h;
 		this.width = w;
 		this.bigWorld = bigWorld;
+		this.lightMap = new LightMap(this);
 		for (EngBlock[] r: this.world) {
 			for (EngBlock b: r) {
 				b.setWorld(this);
@@ -28,6 +31,10 @@ public class EngWorld {
 		return this.bigWorld;
 	}
 	
+	public LightMap getLightMap(){
+		return this.lightMap;
+	}
+	
 	public void startAnimations(){
 		for (EngBlock[] r: this.world) {
 			for (EngBlock b: r) {
@@ -71,6 +78,8 @@ public class EngWorld {
 	
 	public void setWorld(EngBlock[][] w){
 		this.world = w;
+		this.lightMap.invalidate();
+		this.masks = null;
 	}
 
 	public EngBlock[] getFoundBlocks() {
@@ -86,13 +95,37 @@ public class EngWorld {
 	}
 	
 	public EngBlock getBlockAtCoord(int x, int y){
-		int x1 = x / World.BLOCK_WIDTH;
-		int y1 = y / World.BLOCK_WIDTH;
+		int x1 = getBigWorld() != null ? getBigWorld().toTileX(x) : x / World.BLOCK_WIDTH;
+		int y1 = getBigWorld() != null ? getBigWorld().toTileY(y) : y / World.BLOCK_WIDTH;
 		return getBlockAt(x1, y1);
 	}
 	
 	public void setBlockOn(EngBlock block) {
 		this.world[block.getY()][block.getX()] = new EngBlock(block.getX(), block.getY(), block.getType(), block.getInfo());
+		this.lightMap.invalidate();
+		if (this.masks != null){
+			// Only the block and its neighbours can change their connections
+			updateMask(block.getX(), block.getY());
+			updateMask(block.getX(), block.getY()-1);
+			updateMask(block.getX()+1, block.getY());
+			updateMask(block.getX(), block.getY()+1);
+			updateMask(block.getX()-1, block.getY());
+		}
+	}
+
+	/**
+	  Create again the blocks of an area, like a new EngWorld does for all the blocks
+	  (setBlockOn already updated the connections)
+	*/
+	public void rebuild(int x, int y, int x1, int y1){
+		for (int ty = y; ty <= y1; ty++){
+			for (int tx = x; tx <= x1; tx++){
+				EngBlock b = this.world[ty][tx];
+				this.world[ty][tx] = EngBlock.fromInt(b.toInt(), tx, ty, b.getInfo());
+				this.world[ty][tx].setWorld(this);
+			}
+		}
+		this.lightMap.invalidate();
 	}
 
 	@Override
@@ -106,43 +139,69 @@ public class EngWorld {
 		return b.toString();
 	}
 
-	public String[] getAtt(int x, int y) {
-		boolean n = false;
-		boolean e = false;
-		boolean s = false;
-		boolean w = false;
-		if (getBlockAt(x, y - 1) != null) {
-			if (!getBlockAt(x, y - 1).getType().equals(EngBlock.AIR)) {
-				n = true;
-			}
+	private boolean isConnectable(int x, int y){
+		EngBlock b = getBlockAt(x, y);
+		return b != null && !b.getType().equals(EngBlock.AIR);
+	}
+	
+	private int computeMask(int x, int y){
+		int mask = 0;
+		mask |= isConnectable(x, y - 1) ? Block.CONN_N : 0;
+		mask |= isConnectable(x + 1, y) ? Block.CONN_E : 0;
+		mask |= isConnectable(x, y + 1) ? Block.CONN_S : 0;
+		mask |= isConnectable(x - 1, y) ? Block.CONN_W : 0;
+		return mask;
+	}
+	
+	private void updateMask(int x, int y){
+		if (y < 0 || y >= this.masks.length || x < 0 || x >= this.masks[y].length){
+			return;
 		}
-		if (getBlockAt(x + 1, y) != null) {
-			if (!getBlockAt(x + 1, y).getType().equals(EngBlock.AIR)) {
-				e = true;
-			}
+		this.masks[y][x] = computeMask(x, y);
+		EngBlock b = getBlockAt(x, y);
+		if (b != null && b.getType().equals(EngBlock.CABLE)){
+			b.setInfo("attachments#" + Block.fromConnMask(this.masks[y][x]));
 		}
-		if (getBlockAt(x, y + 1) != null) {
-			if (!getBlockAt(x, y + 1).getType().equals(EngBlock.AIR)) {
-				s = true;
-			}
+	}
+	
+	private void checkMasks(){
+		if (this.masks != null && this.masks.length == this.world.length && (this.world.length == 0 || this.masks[0].length == this.world[0].length)){
+			return;
 		}
-		if (getBlockAt(x - 1, y) != null) {
-			if (!getBlockAt(x - 1, y).getType().equals(EngBlock.AIR)) {
-				w = true;
+		this.masks = new int[this.world.length][];
+		for (int y = 0; y < this.world.length; y++){
+			this.masks[y] = new int[this.world[y].length];
+			for (int x = 0; x < this.world[y].length; x++){
+				this.masks[y][x] = computeMask(x, y);
 			}
 		}
-		int a = 0;
-		a += (n ? 1 : 0);
-		a += (e ? 1 : 0);
-		a += (s ? 1 : 0);
-		a += (w ? 1 : 0);
-
-		String d = (n ? "n" : "") + (e ? "e" : "") + (s ? "s" : "") + (w ? "w" : "");
-		if (d.equals("")){
-			d = "null";
+	}
+	
+	/**
+	  Build the masks and the light map now (they are built lazily while drawing)
+	*/
+	public void prepareRender(){
+		checkMasks();
+		this.lightMap.check();
+	}
+	
+	/**
+	  Get the connections of a tile as a 4-bit mask (see Block.CONN_N...),
+	  masks are computed once and updated when a block changes.
+	*/
+	public int getMask(int x, int y){
+		checkMasks();
+		if (y < 0 || y >= this.masks.length || x < 0 || x >= this.masks[y].length){
+			return 0;
 		}
+		return this.masks[y][x];
+	}
+
+	public String[] getAtt(int x, int y) {
+		int mask = getMask(x, y);
+		String d = Block.fromConnMask(mask);
 		return new String[] {
-			Integer.toString(a), d, Integer.toString(Block.getSpriteCoords(d, true, false))
+			Integer.toString(Integer.bitCount(mask)), d, Integer.toString(Block.getSpriteCoords(d, true, false))
 		};
 	}
 	
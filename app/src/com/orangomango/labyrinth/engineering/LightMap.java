@@ -0,0 +1,166 @@
+package com.orangomango.labyrinth.engineering;
+
+import com.orangomango.labyrinth.World;
+import com.orangomango.labyrinth.Block;
+
+/**
+  Per-tile light map of an engineering world.
+  Each tile stores the number of active LEDs that light it, the map is updated
+  incrementally when a LED changes state and rebuilt only when the world changes.
+*/
+public class LightMap {
+	private EngWorld world;
+	private int[][] light = null;
+	private boolean[][] walls = null; // Tiles that stopped the light when the map was built (only with occlusion)
+	private int radius = Block.LIGHT_AREA;
+	private boolean occlusion = false;
+	private boolean valid = false;
+
+	public LightMap(EngWorld w){
+		this.world = w;
+	}
+
+	public int getRadius(){
+		return this.radius;
+	}
+
+	/**
+	  Set how far (in tiles) a LED can light, use World.setLightOptions() to redraw the world
+	*/
+	public void setRadius(int r){
+		this.radius = r;
+		invalidate();
+	}
+
+	public boolean getOcclusion(){
+		return this.occlusion;
+	}
+
+	/**
+	  If true, light does not go through wall-category blocks, use World.setLightOptions() to redraw the world
+	*/
+	public void setOcclusion(boolean o){
+		this.occlusion = o;
+		invalidate();
+	}
+
+	/**
+	  The world changed (blocks added, removed...), rebuild the map on next request
+	*/
+	public void invalidate(){
+		this.valid = false;
+	}
+
+	/**
+	  Tiles of the world changed (e.g. while playing), the map is rebuilt if a wall has been added or removed
+	*/
+	public void checkWalls(int x, int y, int x1, int y1){
+		if (!this.valid || this.walls == null){
+			return;
+		}
+		World big = this.world.getBigWorld();
+		for (int ty = Math.max(y, 0); ty <= Math.min(y1, this.walls.length-1); ty++){
+			for (int tx = Math.max(x, 0); tx <= Math.min(x1, this.walls[ty].length-1); tx++){
+				if (this.walls[ty][tx] != isWall(big, tx, ty)){
+					invalidate();
+					return;
+				}
+			}
+		}
+	}
+
+	private static boolean isWall(World big, int x, int y){
+		Block b = big.getBlockAt(x, y);
+		return b != null && b.getCategory().equals(World.WALL);
+	}
+
+	/**
+	  Rebuild the map now if it is not valid
+	*/
+	public void check(){
+		if (!this.valid || this.light == null || this.light.length != this.world.getHeight() || (this.light.length > 0 && this.light[0].length != this.world.getWidth())){
+			rebuild();
+		}
+	}
+
+	public void rebuild(){
+		this.light = new int[this.world.getHeight()][this.world.getWidth()];
+		this.walls = null;
+		if (this.occlusion){
+			World big = this.world.getBigWorld();
+			this.walls = new boolean[this.light.length][this.light.length > 0 ? this.light[0].length : 0];
+			for (int y = 0; y < this.walls.length; y++){
+				for (int x = 0; x < this.walls[y].length; x++){
+					this.walls[y][x] = isWall(big, x, y);
+				}
+			}
+		}
+		for (EngBlock[] row : this.world.getWorld()){
+			for (EngBlock b : row){
+				if (b != null && b.getType().equals(EngBlock.LED) && b.isActive()){
+					apply(b.getX(), b.getY(), 1);
+				}
+			}
+		}
+		this.valid = true;
+	}
+
+	/**
+	  Called when a LED changes state
+	*/
+	public void setLight(int x, int y, boolean on){
+		if (!this.valid){
+			return; // It will be rebuilt with the current state
+		}
+		apply(x, y, on ? 1 : -1);
+	}
+
+	private void apply(int lx, int ly, int v){
+		for (int y = Math.max(ly-this.radius, 0); y <= Math.min(ly+this.radius, this.light.length-1); y++){
+			for (int x = Math.max(lx-this.radius, 0); x <= Math.min(lx+this.radius, this.light[y].length-1); x++){
+				if (!this.occlusion || !isOccluded(lx, ly, x, y)){
+					this.light[y][x] += v;
+				}
+			}
+		}
+	}
+
+	/**
+	  Check if there is a wall between the two tiles (the two tiles are not checked)
+	*/
+	private boolean isOccluded(int x0, int y0, int x1, int y1){
+		if (x0 == x1 && y0 == y1){
+			return false;
+		}
+		World big = this.world.getBigWorld();
+		int dx = Math.abs(x1-x0), dy = -Math.abs(y1-y0);
+		int sx = x0 < x1 ? 1 : -1, sy = y0 < y1 ? 1 : -1;
+		int err = dx + dy;
+		int x = x0, y = y0;
+		while (true){
+			int e2 = 2 * err;
+			if (e2 >= dy){
+				err += dy;
+				x += sx;
+			}
+			if (e2 <= dx){
+				err += dx;
+				y += sy;
+			}
+			if (x == x1 && y == y1){
+				return false;
+			}
+			if (isWall(big, x, y)){
+				return true;
+			}
+		}
+	}
+
+	public boolean isLit(int x, int y){
+		check();
+		if (y < 0 || y >= this.light.length || x < 0 || x >= this.light[y].length){
+			return false;
+		}
+		return this.light[y][x] > 0;
+	}
+}
@@ -19,9 +19,13 @@ import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.net.*;
+import java.util.Map;
+import java.util.LinkedHashMap;
 
 import static com.orangomango.labyrinth.menu.editor.Editor.PATH;
 import com.orangomango.labyrinth.Logger;
+import com.orangomango.labyrinth.AssetManager;
+import com.orangomango.labyrinth.LevelPack;
 
 public class LoadingScreen {
 	public static final int LEVELS = 10;
@@ -132,6 +136,16 @@ public class LoadingScreen {
 		}
 	}
 
+	private byte[] downloadBytes(String link) {
+		try (InputStream in = new URL(link).openStream()) {
+			return in.readAllBytes();
+		} catch (IOException ex) {
+			Logger.error("No internet available/Old update detected");
+			internetError(true, "Could not connect to " + ex.getMessage());
+			return null;
+		}
+	}
+
 	public LoadingScreen(Menu menu) {
 		this.menu = menu;
 		if (new File(PATH + ".labyrinthgame" + File.separator + "SystemLevels").list().length != 0) {
@@ -178,14 +192,23 @@ public class LoadingScreen {
 					progress++;
 					updateMessage("Downloading arcade");
 					updateProgress(progress, total);
-					downloadFile("https://raw.githubusercontent.com/OrangoMango/LabyrinthGame/main/app/lib/levels/arcade.arc", PATH + ".labyrinthgame" + File.separator + "SystemLevels" + File.separator + "arcade.arc.sys");
+					// All the system levels are installed as a single pack
+					Map<String, byte[]> levels = new LinkedHashMap<>();
+					levels.put("arcade.arc", downloadBytes("https://raw.githubusercontent.com/OrangoMango/LabyrinthGame/main/app/lib/levels/arcade.arc"));
 					progress++;
 					for (int x = 0; x<LEVELS; x++) {
-						updateMessage("Downloading " + "level " + (x + 1) + ".wld.sys");
+						updateMessage("Downloading " + "level " + (x + 1) + ".wld");
 						updateProgress(progress, total);
-						downloadFile(String.format("https://raw.githubusercontent.com/OrangoMango/LabyrinthGame/main/app/lib/levels/level%s.wld", x + 1), String.format(PATH + ".labyrinthgame" + File.separator + "SystemLevels" + File.separator + "level%s.wld.sys", x + 1));
+						levels.put(String.format("level%s.wld", x + 1), downloadBytes(String.format("https://raw.githubusercontent.com/OrangoMango/LabyrinthGame/main/app/lib/levels/level%s.wld", x + 1)));
 						progress++;
 					}
+					if (!levels.containsValue(null)) {
+						try {
+							LevelPack.write(new File(PATH + ".labyrinthgame" + File.separator + "SystemLevels" + File.separator + LevelPack.SYSTEM_PACK), levels, true);
+						} catch (IOException ex) {
+							Logger.error("Could not install the system levels: " + ex.getMessage());
+						}
+					}
 					for (int x = 0; x<IMAGES; x++) {
 						updateProgress(progress, total);
 						updateMessage("Downloading image " + IMGNAMES[x] + ".png");
@@ -199,6 +222,7 @@ public class LoadingScreen {
 						progress++;
 					}
 					updateMessage("Download finished.");
+					AssetManager.reload();
 					end.setDisable(false);
 					return null;
 				}
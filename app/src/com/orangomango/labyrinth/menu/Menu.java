@@ -20,6 +20,7 @@ import com.orangomango.labyrinth.menu.createdlevels.HomeWindow;
 import com.orangomango.labyrinth.menu.play.PlayScreen;
 import com.orangomango.labyrinth.menu.editor.Selection;
 import com.orangomango.labyrinth.Logger;
+import com.orangomango.labyrinth.AssetManager;
 import static com.orangomango.labyrinth.menu.editor.Editor.PATH;
 import static com.orangomango.labyrinth.menu.editor.Editor.changeSlash;
 
@@ -147,7 +148,7 @@ public class Menu {
 
 	private void updateCanvas(GraphicsContext gc, int ds) {
 		showMenu(gc);
-		gc.setFont(Font.loadFont("file://" + changeSlash(PATH) + ".labyrinthgame/Fonts/menu_font.ttf", 20));
+		gc.setFont(AssetManager.getFont("menu_font.ttf", 20));
 		for (int i = 0; i<5; i++) {
 			String text = null;
 			String imageName = null;
@@ -189,7 +190,7 @@ public class Menu {
 			effect.setBrightness(-0.2);
 			gc.setEffect(effect);
 		}
-		gc.drawImage(new Image("file://" + changeSlash(PATH) + ".labyrinthgame/Images/editor/button_news.png"), 550, 250, 50, 50);
+		AssetManager.getSprite("editor/button_news.png").draw(gc, 550, 250, 50, 50);
 		gc.setEffect(null);
 	}
 
@@ -198,7 +199,7 @@ public class Menu {
 		if (what.equals("credits")) {
 			showMenu(gc);
 			gc.setFill(Color.BLACK);
-			gc.setFont(Font.loadFont("file://" + changeSlash(PATH) + ".labyrinthgame/Fonts/credits_font.ttf", 25));
+			gc.setFont(AssetManager.getFont("credits_font.ttf", 25));
 			gc.fillText("CREDITS\n\nIMAGES: OrangoMango\nCODE: OrangoMango\nWEB PAGE: \norangomango.github.io\nFONTS: 1001fonts.com\nMIT Licence, OrangoMango\n-- February 2021 --", 160, 90);
 		} else if (what.equals("profile")) {
 			showMenu(gc);
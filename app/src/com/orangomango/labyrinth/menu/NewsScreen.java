@@ -18,6 +18,7 @@ import java.net.URL;
 
 import static com.orangomango.labyrinth.menu.editor.Editor.PATH;
 import static com.orangomango.labyrinth.menu.editor.Editor.changeSlash;
+import com.orangomango.labyrinth.AssetManager;
 
 public class NewsScreen{
 
@@ -125,7 +126,7 @@ public class NewsScreen{
 		gc.clearRect(0, 0, 450, NEWS*(50+10)+20);
 		gc.setFill(Color.YELLOW);
 		gc.fillRect(0, 0, 450, NEWS*(50+10)+20);
-		gc.setFont(Font.loadFont("file://" + changeSlash(PATH) + ".labyrinthgame/Fonts/news_font.ttf", 22));
+		gc.setFont(AssetManager.getFont("news_font.ttf", 22));
 		gc.setStroke(Color.BLACK);
 		for (int i = 0; i < NEWS; i++){
 			gc.setFill(i == s ? Color.RED : Color.LIME);
@@ -134,7 +135,7 @@ public class NewsScreen{
 		}
 		for (int i = 0; i < DATES.length; i++){
 			gc.setStroke(i == s ? Color.WHITE : Color.GRAY);
-			gc.setFont(Font.loadFont("file://" + changeSlash(PATH) + ".labyrinthgame/Fonts/news_font.ttf", 12));
+			gc.setFont(AssetManager.getFont("news_font.ttf", 12));
 			gc.strokeText(DATES[i], 360, 10+i*(50+10)+13);
 		}
 	}
@@ -5,6 +5,7 @@ import java.util.Arrays;
 
 import static com.orangomango.labyrinth.menu.editor.Editor.PATH;
 import com.orangomango.labyrinth.Logger;
+import com.orangomango.labyrinth.FileSaver;
 
 public class CreatedWorldFiles {
 	private String[] paths;
@@ -45,6 +46,7 @@ public class CreatedWorldFiles {
 				writer.write("0");
 				writer.close();
 			}
+			FileSaver.flush(f.getPath());
 			BufferedReader reader = new BufferedReader(new FileReader(f));
 			int files = Integer.parseInt(reader.readLine());
 			this.paths = new String[files];
@@ -59,24 +61,20 @@ public class CreatedWorldFiles {
 
 	private void updateFile() {
 		File f = new File(PATH + ".labyrinthgame" + File.separator + "Editor" + File.separator + "Cache" + File.separator + "createdWorldFiles.data");
-		try {
-			BufferedWriter writer = new BufferedWriter(new FileWriter(f));
-			writer.write(String.format("%s", this.paths.length));
-			if (this.paths.length > 0) {
-				writer.newLine();
-			}
-			int counter = 0;
-			for (String p: this.paths) {
-				writer.write(p);
-				if (counter != this.paths.length - 1) {
-					writer.newLine();
-				}
-				counter++;
+		StringBuilder sb = new StringBuilder();
+		sb.append(this.paths.length);
+		if (this.paths.length > 0) {
+			sb.append(System.lineSeparator());
+		}
+		int counter = 0;
+		for (String p: this.paths) {
+			sb.append(p);
+			if (counter != this.paths.length - 1) {
+				sb.append(System.lineSeparator());
 			}
-			writer.close();
-		} catch (IOException ex) {
-			Logger.error("IOException caught on createdWorldFiles.data update: "+ex.getMessage());
+			counter++;
 		}
+		FileSaver.save(f.getAbsolutePath(), sb.toString()); // Written in background
 	}
 
 	public void addToList(String path) {
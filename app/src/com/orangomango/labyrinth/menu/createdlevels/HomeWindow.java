@@ -26,8 +26,8 @@ import static com.orangomango.labyrinth.menu.editor.Editor.PATH;
 import static com.orangomango.labyrinth.menu.editor.Editor.changeSlash;
 import com.orangomango.labyrinth.menu.editor.LevelExe;
 import com.orangomango.labyrinth.menu.Menu;
-import com.orangomango.labyrinth.World;
-import com.orangomango.labyrinth.Player;
+import com.orangomango.labyrinth.LevelHeader;
+import com.orangomango.labyrinth.ThumbnailService;
 
 public class HomeWindow {
 	
@@ -78,130 +78,117 @@ public class HomeWindow {
 			Accordion acc = new Accordion();
 			for (String p: cwf.getPaths()) {
 				File file = new File(p);
-				World temp = new World(p);
-				temp.previewMode = true;
+				final TitledPane tp = new TitledPane(file.getName(), new Label("Loading..."));
+				acc.getPanes().add(tp);
+				// Only the header is read (in background), the level is not built
+				ThumbnailService.loadHeader(p, temp -> {
+					if (temp == null){
+						tp.setContent(new Label("Could not read this level"));
+						return;
+					}
 
-				GridPane innerpane = new GridPane();
-				innerpane.setHgap(10);
-				innerpane.setVgap(6);
-				Label plabel = new Label(p);
-				Button edit = new Button();
-				edit.setTooltip(new Tooltip("Edit level"));
-				edit.setGraphic(new ImageView(new Image("file://" + changeSlash(PATH) + ".labyrinthgame/Images/editor/pattern_edit.png")));
-				edit.setOnAction(event -> {
-					Editor editor = new Editor(p, stage);
-				});
-				SimpleDateFormat format = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
-				Label mod = new Label("Last modified: " + format.format(file.lastModified()));
-				Label size = new Label(String.format("Size: %d bytes (Dim.: %dx%d) %s", file.length(), temp.width, temp.height, getDim(temp.width, temp.height)));
-				Label author = new Label("Author: -");
-				Label information = new Label("Information:\n"+temp.getWorldInformation().replace("\\n", "\n"));
-				Button del = new Button();
-				del.setTooltip(new Tooltip("Delete level"));
-				del.setGraphic(new ImageView(new Image("file://" + changeSlash(PATH) + ".labyrinthgame/Images/editor/pattern_delete.png")));
-				Button run = new Button();
-				run.setTooltip(new Tooltip("Run level"));
-				run.setGraphic(new ImageView(new Image("file://" + changeSlash(PATH) + ".labyrinthgame/Images/editor/menu_run.png")));
-				Button pub = new Button("Publish");
-				pub.setDisable(true);
-				run.setOnAction(event -> {
-					new LevelExe(p, file.getName(), true, "normal");LevelExe.setOnFinish(null);
-				});
-				ToggleGroup tg = new ToggleGroup();
-				RadioButton nm = new RadioButton("Normal Mode");
-				nm.setToggleGroup(tg);
-				nm.setSelected(true);
-				RadioButton em = new RadioButton("Engineering mode");
-				em.setDisable(temp.getEngineeringWorld() == null);
-				em.setToggleGroup(tg);
-				HBox hb = new HBox();
-				hb.setSpacing(5);
-				hb.getChildren().addAll(nm, em);
-				
-				World.BLOCK_WIDTH = PREVIEW_BLOCK_WIDTH;
-				Canvas canvas = new Canvas(temp.width*World.BLOCK_WIDTH, temp.height*World.BLOCK_WIDTH);
-				GraphicsContext pen = canvas.getGraphicsContext2D();
-				temp.setPen(pen);
-				temp.setPlayer(new Player(temp.start[0], temp.start[1], temp));
-				temp.draw();
-				World.BLOCK_WIDTH = World.DEFAULT_BLOCK_WIDTH;
-				
-				Pagination pages = new Pagination();
-				if (World.getArcadeLevels(temp.getFilePath()) > 0){
-					pages.setPageCount(World.getArcadeLevels(temp.getFilePath()));
-					pages.setCurrentPageIndex(0);
-					pages.setMaxPageIndicatorCount(3);
-					pages.setPageFactory(index -> {
-						temp.worldList.getWorldAt(index).previewMode = true;
-						temp.worldList.getWorldAt(index).setDrawingMode(nm.isSelected() ? "normal" : "engineering");
-						World.BLOCK_WIDTH = PREVIEW_BLOCK_WIDTH;
-						Canvas PCanvas = new Canvas(temp.worldList.getWorldAt(index).width*World.BLOCK_WIDTH, temp.worldList.getWorldAt(index).height*World.BLOCK_WIDTH);
-						GraphicsContext PPen = PCanvas.getGraphicsContext2D();
-						temp.worldList.getWorldAt(index).setPen(PPen);
-						temp.worldList.getWorldAt(index).setPlayer(new Player(temp.worldList.getWorldAt(index).start[0], temp.worldList.getWorldAt(index).start[1], temp.worldList.getWorldAt(index)));
-						temp.worldList.getWorldAt(index).draw();
-						World.BLOCK_WIDTH = World.DEFAULT_BLOCK_WIDTH;
-						return PCanvas;
+					GridPane innerpane = new GridPane();
+					innerpane.setHgap(10);
+					innerpane.setVgap(6);
+					Label plabel = new Label(p);
+					Button edit = new Button();
+					edit.setTooltip(new Tooltip("Edit level"));
+					edit.setGraphic(new ImageView(new Image("file://" + changeSlash(PATH) + ".labyrinthgame/Images/editor/pattern_edit.png")));
+					edit.setOnAction(event -> {
+						Editor editor = new Editor(p, stage);
+					});
+					SimpleDateFormat format = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
+					Label mod = new Label("Last modified: " + format.format(file.lastModified()));
+					Label size = new Label(String.format("Size: %d bytes (Dim.: %dx%d) %s", file.length(), temp.width, temp.height, getDim(temp.width, temp.height)));
+					Label author = new Label("Author: -");
+					Label information = new Label("Information:\n"+temp.information.replace("\\n", "\n"));
+					Button del = new Button();
+					del.setTooltip(new Tooltip("Delete level"));
+					del.setGraphic(new ImageView(new Image("file://" + changeSlash(PATH) + ".labyrinthgame/Images/editor/pattern_delete.png")));
+					Button run = new Button();
+					run.setTooltip(new Tooltip("Run level"));
+					run.setGraphic(new ImageView(new Image("file://" + changeSlash(PATH) + ".labyrinthgame/Images/editor/menu_run.png")));
+					Button pub = new Button("Publish");
+					pub.setDisable(true);
+					run.setOnAction(event -> {
+						new LevelExe(p, file.getName(), true, "normal");LevelExe.setOnFinish(null);
 					});
-				}
+					ToggleGroup tg = new ToggleGroup();
+					RadioButton nm = new RadioButton("Normal Mode");
+					nm.setToggleGroup(tg);
+					nm.setSelected(true);
+					RadioButton em = new RadioButton("Engineering mode");
+					em.setDisable(!temp.engineering);
+					em.setToggleGroup(tg);
+					HBox hb = new HBox();
+					hb.setSpacing(5);
+					hb.getChildren().addAll(nm, em);
 				
-				nm.setOnAction(event -> {
-					World.BLOCK_WIDTH = PREVIEW_BLOCK_WIDTH;
-					if (World.getArcadeLevels(temp.getFilePath()) < 0){
-						temp.setDrawingMode("normal");
-						temp.update(0, 0, 0, 0);
-					} else {
-						temp.worldList.getWorldAt(pages.getCurrentPageIndex()).setDrawingMode("normal");
-						temp.worldList.getWorldAt(pages.getCurrentPageIndex()).update(0, 0, 0, 0);
-					}
-					World.BLOCK_WIDTH = World.DEFAULT_BLOCK_WIDTH;
-				});
+					// Previews are rendered in background, a placeholder is shown until they are ready
+					ImageView preview = ThumbnailService.getThumbnail(p, 0, temp, "normal", PREVIEW_BLOCK_WIDTH);
 				
-				em.setOnAction(event -> {
-					World.BLOCK_WIDTH = PREVIEW_BLOCK_WIDTH;
-					if (World.getArcadeLevels(temp.getFilePath()) < 0){
-						temp.setDrawingMode("engineering");
-						temp.update(0, 0, 0, 0);
-					} else {
-						temp.worldList.getWorldAt(pages.getCurrentPageIndex()).setDrawingMode("engineering");
-						temp.worldList.getWorldAt(pages.getCurrentPageIndex()).update(0, 0, 0, 0);
+					Pagination pages = new Pagination();
+					ImageView[] pagePreview = new ImageView[1];
+					if (temp.isArcade()){
+						pages.setPageCount(temp.patterns.length);
+						pages.setCurrentPageIndex(0);
+						pages.setMaxPageIndicatorCount(3);
+						pages.setPageFactory(index -> {
+							pagePreview[0] = ThumbnailService.getThumbnail(p, index, temp.patterns[index], nm.isSelected() ? "normal" : "engineering", PREVIEW_BLOCK_WIDTH);
+							return pagePreview[0];
+						});
 					}
-					World.BLOCK_WIDTH = World.DEFAULT_BLOCK_WIDTH;
-				});
 				
-				innerpane.add(plabel, 0, 0);
-				innerpane.add(World.getArcadeLevels(temp.getFilePath()) > 0 ? pages : canvas, 1, 0, 1, 5);
-				innerpane.add(edit, 2, 0);
-				innerpane.add(mod, 0, 1);
-				innerpane.add(size, 0, 2);
-				innerpane.add(del, 2, 1);
-				innerpane.add(run, 2, 2);
-				innerpane.add(author, 0, 3);
-				innerpane.add(information, 0, 4);
-				innerpane.add(pub, 2, 3);
-				innerpane.add(hb, 0, 5, 2, 1);
-
-				final TitledPane tp = new TitledPane(file.getName(), innerpane);
+					nm.setOnAction(event -> {
+						if (!temp.isArcade()){
+							ThumbnailService.load(preview, p, 0, temp.width*PREVIEW_BLOCK_WIDTH, temp.height*PREVIEW_BLOCK_WIDTH, "normal", PREVIEW_BLOCK_WIDTH);
+						} else if (pagePreview[0] != null){
+							LevelHeader w = temp.patterns[pages.getCurrentPageIndex()];
+							ThumbnailService.load(pagePreview[0], p, pages.getCurrentPageIndex(), w.width*PREVIEW_BLOCK_WIDTH, w.height*PREVIEW_BLOCK_WIDTH, "normal", PREVIEW_BLOCK_WIDTH);
+						}
+					});
+				
+					em.setOnAction(event -> {
+						if (!temp.isArcade()){
+							ThumbnailService.load(preview, p, 0, temp.width*PREVIEW_BLOCK_WIDTH, temp.height*PREVIEW_BLOCK_WIDTH, "engineering", PREVIEW_BLOCK_WIDTH);
+						} else if (pagePreview[0] != null){
+							LevelHeader w = temp.patterns[pages.getCurrentPageIndex()];
+							ThumbnailService.load(pagePreview[0], p, pages.getCurrentPageIndex(), w.width*PREVIEW_BLOCK_WIDTH, w.height*PREVIEW_BLOCK_WIDTH, "engineering", PREVIEW_BLOCK_WIDTH);
+						}
+					});
+				
+					innerpane.add(plabel, 0, 0);
+					innerpane.add(temp.isArcade() ? pages : preview, 1, 0, 1, 5);
+					innerpane.add(edit, 2, 0);
+					innerpane.add(mod, 0, 1);
+					innerpane.add(size, 0, 2);
+					innerpane.add(del, 2, 1);
+					innerpane.add(run, 2, 2);
+					innerpane.add(author, 0, 3);
+					innerpane.add(information, 0, 4);
+					innerpane.add(pub, 2, 3);
+					innerpane.add(hb, 0, 5, 2, 1);
 
-				del.setOnAction(event -> {
-					File f = new File(p);
-					f.delete();
-					if (Editor.getCurrentFilePath().equals(p)) {
-						File f2 = new File(Editor.PATH + ".labyrinthgame" + File.separator + "Editor" + File.separator + "Cache" + File.separator + "currentFile.data");
-						f2.delete();
-					}
-					cwf.removeFromList(p);
-					Alert alert = new Alert(Alert.AlertType.INFORMATION);
-					alert.setHeaderText("File deleted successfully");
-					alert.setTitle("File deleted");
-					alert.setContentText("File deleted successfully.");
-					alert.showAndWait();
-					acc.getPanes().remove(tp);
-					if (cwf.getPaths().length == 0) {
-						pane.setContent(new Label("You did not create any levels yet :(\n Create one in the editor"));
-					}
+					del.setOnAction(event -> {
+						File f = new File(p);
+						f.delete();
+						if (Editor.getCurrentFilePath().equals(p)) {
+							File f2 = new File(Editor.PATH + ".labyrinthgame" + File.separator + "Editor" + File.separator + "Cache" + File.separator + "currentFile.data");
+							f2.delete();
+						}
+						cwf.removeFromList(p);
+						Alert alert = new Alert(Alert.AlertType.INFORMATION);
+						alert.setHeaderText("File deleted successfully");
+						alert.setTitle("File deleted");
+						alert.setContentText("File deleted successfully.");
+						alert.showAndWait();
+						acc.getPanes().remove(tp);
+						if (cwf.getPaths().length == 0) {
+							pane.setContent(new Label("You did not create any levels yet :(\n Create one in the editor"));
+						}
+					});
+					tp.setContent(innerpane);
 				});
-				acc.getPanes().add(tp);
 			}
 			pane.setContent(acc);
 		}
@@ -0,0 +1,449 @@
+package com.orangomango.labyrinth.menu.editor;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import com.orangomango.labyrinth.LevelData;
+import com.orangomango.labyrinth.Logger;
+import com.orangomango.labyrinth.World;
+import com.orangomango.labyrinth.Block;
+import com.orangomango.labyrinth.engineering.EngBlock;
+import static com.orangomango.labyrinth.menu.editor.Editor.PATH;
+
+/**
+  Append-only log of the tile edits made on a working file (Editor/Cache). An edit appends only
+  the changed tiles, the working file is written again in background (compaction) every
+  COMPACT_EDITS tiles and when the size, start/end, lights or description change. Reads of the
+  working file get the state in memory (read), so they never wait for a compaction.
+  <pre>
+  #Journal level file
+  #Base working file
+  t x y id[:info]     (e for the engineering layer)
+  </pre>
+  The journal is deleted when the level is saved, so a journal found when the level is opened
+  again contains the work that was not saved (working file + edits). Journals of levels never
+  opened again are deleted by cleanUp after MAX_AGE, at most MAX_JOURNALS are kept.
+*/
+public class EditJournal {
+	public static final int COMPACT_EDITS = 500;
+	public static final int MAX_JOURNALS = 20;
+	public static final long MAX_AGE = 30L * 24 * 60 * 60 * 1000; // 30 days
+	private static Map<String, EditJournal> journals = new HashMap<>(); // Working file path -> journal
+
+	private String levelPath, workingPath;
+	private File file;
+	private LevelData state; // Content of the working file plus the edits
+	private BufferedWriter writer;
+	private int edits;
+	private int version; // Changed by every edit
+	private boolean dirty;
+	private int lines; // Tiles written in the journal file since it was created
+	private int dropped; // Tiles removed from the start of the journal file
+	private int epoch; // Changed when the journal file is deleted
+	private boolean closed;
+
+	private EditJournal(String levelPath, String workingPath, LevelData state){
+		this.levelPath = levelPath;
+		this.workingPath = workingPath;
+		this.file = getJournalFile(levelPath);
+		this.state = state;
+	}
+
+	private static File getJournalFile(String levelPath){
+		File level = new File(levelPath);
+		return new File(getCacheDir(), "journal[" + level.getName() + "]" + Integer.toHexString(level.getAbsolutePath().hashCode()) + ".wlj");
+	}
+
+	private static File getCacheDir(){
+		return new File(PATH + ".labyrinthgame" + File.separator + "Editor" + File.separator + "Cache");
+	}
+
+	/**
+	  Delete the journals of the levels not opened for MAX_AGE, the oldest if there are more than
+	  MAX_JOURNALS and those without a working file
+	  @return the working files of the journals kept, they must not be deleted
+	*/
+	public static synchronized Set<String> cleanUp(){
+		Set<String> bases = new HashSet<>();
+		Set<File> active = new HashSet<>();
+		for (EditJournal journal : journals.values()){
+			bases.add(journal.workingPath);
+			active.add(journal.file);
+		}
+		File[] files = getCacheDir().listFiles((dir, name) -> name.endsWith(".wlj"));
+		if (files == null){
+			return bases;
+		}
+		Arrays.sort(files, Comparator.comparingLong(File::lastModified).reversed());
+		int kept = 0;
+		for (File file : files){
+			if (active.contains(file)){
+				continue;
+			}
+			String base = readBase(file);
+			if (base != null && new File(base).exists() && kept < MAX_JOURNALS && System.currentTimeMillis()-file.lastModified() < MAX_AGE){
+				bases.add(base);
+				kept++;
+			} else {
+				Logger.info("Deleting old edit journal "+file.getName());
+				file.delete();
+			}
+		}
+		return bases;
+	}
+
+	/**
+	  @return the working file written in the header of a journal, null if it can't be read
+	*/
+	private static String readBase(File file){
+		try (BufferedReader reader = new BufferedReader(new FileReader(file))){
+			String journal = reader.readLine();
+			String base = reader.readLine();
+			if (journal == null || base == null || !journal.startsWith("#Journal ") || !base.startsWith("#Base ")){
+				return null;
+			}
+			return base.substring("#Base ".length());
+		} catch (IOException e){
+			return null;
+		}
+	}
+
+	/**
+	  Start journaling the edits of a working file
+	  @param levelPath - file opened by the user
+	  @param workingPath - copy in the cache where the edits are made
+	  @param unsaved - the working file already contains unsaved work (recovered)
+	  @return null if the working file can't be read
+	*/
+	public static synchronized EditJournal start(String levelPath, String workingPath, boolean unsaved){
+		journals.values().removeIf(j -> {
+			if (j.levelPath.equals(levelPath)){
+				j.closeWriter();
+				j.closed = true;
+				return true;
+			}
+			return false;
+		});
+		try {
+			EditJournal journal = new EditJournal(levelPath, workingPath, LevelData.read(new File(workingPath)));
+			if (unsaved){
+				journal.compact();
+			}
+			journals.put(workingPath, journal);
+			return journal;
+		} catch (IOException e){
+			Logger.error("Could not start the edit journal of "+levelPath+": "+e.getMessage());
+			return null;
+		}
+	}
+
+	public static synchronized EditJournal get(String workingPath){
+		return journals.get(workingPath);
+	}
+
+	/**
+	  Content of a working file with all its edits, also those not yet written on it
+	  @return null if the file has no journal
+	*/
+	public static synchronized LevelData read(String workingPath){
+		EditJournal journal = journals.get(workingPath);
+		if (journal == null){
+			return null;
+		}
+		synchronized (journal){
+			return journal.state.copy();
+		}
+	}
+
+	/**
+	  Write all the working files, the journals are kept for the next start
+	*/
+	public static synchronized void closeAll(){
+		for (EditJournal journal : journals.values()){
+			synchronized (journal){
+				if (journal.dirty){
+					journal.compact();
+				}
+				journal.closeWriter();
+				journal.closed = true;
+			}
+		}
+		journals.clear();
+	}
+
+	/**
+	  Save the new content of the working file, only the changed tiles are written
+	*/
+	public synchronized void record(LevelData data){
+		if (data.width != this.state.width || data.height != this.state.height || !Objects.equals(data.information, this.state.information)
+				|| !Arrays.equals(data.start, this.state.start) || !Arrays.equals(data.end, this.state.end)
+				|| !Objects.equals(data.lights, this.state.lights) || !Objects.equals(data.lightRadius, this.state.lightRadius)
+				|| data.lightOcclusion != this.state.lightOcclusion || (data.engTiles == null) != (this.state.engTiles == null)){
+			setState(data);
+			compact();
+			return;
+		}
+		try {
+			int changed = append('t', data.tiles, data.infos, this.state.tiles, this.state.infos);
+			if (data.engTiles != null){
+				changed += append('e', data.engTiles, data.engInfos, this.state.engTiles, this.state.engInfos);
+			}
+			appended(changed);
+		} catch (IOException e){
+			Logger.error("Could not write the edit journal: "+e.getMessage());
+			setState(data);
+			compact();
+		}
+	}
+
+	/**
+	  Save the new content of the tiles of an area, the caller knows that the other tiles have not
+	  changed, so the work doesn't depend on the size of the level
+	*/
+	public synchronized void record(World world, int x, int y, int x1, int y1){
+		if (world.width != this.state.width || world.height != this.state.height || (world.getEngineeringWorld() != null) != (this.state.engTiles != null)
+				|| !Arrays.equals(world.start, this.state.start) || !Arrays.equals(world.end, this.state.end)){
+			record(world.toLevelData());
+			return;
+		}
+		try {
+			int changed = 0;
+			for (int ty = Math.max(0, y); ty <= Math.min(world.height-1, y1); ty++){
+				for (int tx = Math.max(0, x); tx <= Math.min(world.width-1, x1); tx++){
+					int i = ty*world.width+tx;
+					Block b = world.getBlockAt(tx, ty);
+					changed += append('t', i, b.toInt(), b.getInfo(), this.state.tiles, this.state.infos);
+					if (this.state.engTiles != null){
+						EngBlock eb = world.getEngineeringWorld().getBlockAt(tx, ty);
+						changed += append('e', i, eb.toInt(), eb.getInfo(), this.state.engTiles, this.state.engInfos);
+					}
+				}
+			}
+			appended(changed);
+		} catch (IOException e){
+			Logger.error("Could not write the edit journal: "+e.getMessage());
+			setState(world.toLevelData());
+			compact();
+		}
+	}
+
+	private void appended(int changed) throws IOException {
+		if (changed > 0){
+			this.version++;
+			this.writer.flush();
+			this.dirty = true;
+			this.edits += changed;
+			if (this.edits >= COMPACT_EDITS){
+				compact();
+			}
+		}
+	}
+
+	private void setState(LevelData data){
+		this.version++;
+		this.state = data;
+		this.state.start = data.start.clone(); // The arrays of the world can change
+		this.state.end = data.end.clone();
+	}
+
+	/**
+	  Append the tiles that differ from the state and update the state
+	  @return number of changed tiles
+	*/
+	private int append(char layer, int[] ids, String[] infos, int[] oldIds, String[] oldInfos) throws IOException {
+		int changed = 0;
+		for (int i = 0; i < ids.length; i++){
+			changed += append(layer, i, ids[i], infos[i], oldIds, oldInfos);
+		}
+		return changed;
+	}
+
+	/**
+	  Append a tile if it differs from the state and update the state
+	  @return 1 if the tile changed, 0 otherwise
+	*/
+	private int append(char layer, int i, int id, String info, int[] oldIds, String[] oldInfos) throws IOException {
+		if (id == oldIds[i] && Objects.equals(info, oldInfos[i])){
+			return 0;
+		}
+		if (this.writer == null){
+			openWriter(true);
+		}
+		this.writer.write(layer + " " + (i % this.state.width) + " " + (i / this.state.width) + " " + id + (info != null ? ":" + info : ""));
+		this.writer.newLine();
+		this.lines++;
+		oldIds[i] = id;
+		oldInfos[i] = info;
+		return 1;
+	}
+
+	private void openWriter(boolean append) throws IOException {
+		boolean header = !append || !this.file.exists();
+		this.writer = new BufferedWriter(new FileWriter(this.file, append));
+		if (header){
+			this.writer.write("#Journal " + this.levelPath);
+			this.writer.newLine();
+			this.writer.write("#Base " + this.workingPath);
+			this.writer.newLine();
+			this.writer.flush();
+		}
+	}
+
+	private void closeWriter(){
+		if (this.writer != null){
+			try {
+				this.writer.close();
+			} catch (IOException e){}
+			this.writer = null;
+		}
+	}
+
+	/**
+	  Write the state on the working file in background. When it is on disk the tiles written in the
+	  journal before are removed (the journal remains as a mark of unsaved work); the newer ones are
+	  kept, applied again on the new working file they give the same level.
+	*/
+	public synchronized void compact(){
+		try {
+			if (this.writer == null){
+				openWriter(true);
+			}
+			int compactEpoch = this.epoch, mark = this.lines;
+			// The state changes with the next edits. Not on the writer thread, it must not wait for the lock
+			this.state.copy().save(this.workingPath).thenRunAsync(() -> dropLines(compactEpoch, mark));
+			this.edits = 0;
+			this.dirty = false;
+		} catch (IOException e){
+			Logger.error("Could not compact the edit journal: "+e.getMessage());
+		}
+	}
+
+	/**
+	  Remove the first tiles of the journal file, they are in the working file
+	  @param compactEpoch - epoch when the tiles were counted
+	  @param mark - tiles written when the working file was compacted
+	*/
+	private synchronized void dropLines(int compactEpoch, int mark){
+		if (this.closed || compactEpoch != this.epoch || mark <= this.dropped || !this.file.exists()){
+			return; // The journal has been closed, deleted or already made shorter
+		}
+		int count = mark - this.dropped;
+		File temp = new File(this.file.getPath() + ".tmp");
+		try {
+			if (this.writer != null){
+				this.writer.flush();
+			}
+			try (BufferedReader reader = new BufferedReader(new FileReader(this.file)); FileOutputStream fos = new FileOutputStream(temp)){
+				BufferedWriter out = new BufferedWriter(new OutputStreamWriter(fos));
+				String line;
+				int n = 0;
+				while ((line = reader.readLine()) != null){
+					if (line.startsWith("#") || n++ >= count){
+						out.write(line);
+						out.newLine();
+					}
+				}
+				out.flush();
+				fos.getFD().sync();
+			}
+			closeWriter();
+			Files.move(temp.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			this.dropped = mark;
+		} catch (IOException e){
+			Logger.warning("Could not remove the compacted tiles from the edit journal: "+e.getMessage());
+			temp.delete();
+		}
+	}
+
+	/**
+	  Replace all the content of the working file (e.g. undo)
+	*/
+	public synchronized void replace(LevelData data){
+		setState(data);
+		compact();
+	}
+
+	/**
+	  The working file is being copied on the level file, the journal is deleted when the copy
+	  is on disk, if there are no new edits
+	  @param copy - write of the level file
+	*/
+	public synchronized void saved(CompletableFuture<Void> copy){
+		int savedVersion = this.version;
+		// Not on the writer thread, it must not wait for the lock
+		copy.thenRunAsync(() -> {
+			synchronized (this){
+				if (this.version == savedVersion){
+					closeWriter();
+					this.lines = 0;
+					this.dropped = 0;
+					this.epoch++;
+					this.file.delete();
+					this.edits = 0;
+				}
+			}
+		});
+	}
+
+	/**
+	  Content not saved the last time the level was edited
+	  @return null if there is nothing to recover
+	*/
+	public static LevelData recover(String levelPath){
+		File file = getJournalFile(levelPath);
+		if (!file.exists()){
+			return null;
+		}
+		try (BufferedReader reader = new BufferedReader(new FileReader(file))){
+			String journal = reader.readLine();
+			String base = reader.readLine();
+			if (journal == null || base == null || !journal.equals("#Journal " + levelPath) || !base.startsWith("#Base ")){
+				return null;
+			}
+			File baseFile = new File(base.substring("#Base ".length()));
+			if (!baseFile.exists()){
+				Logger.warning("Unsaved work of "+levelPath+" lost, the working file has been deleted");
+				return null;
+			}
+			LevelData data = LevelData.read(baseFile);
+			String line;
+			while ((line = reader.readLine()) != null){
+				String[] parts = line.split(" ", 4);
+				if (parts.length < 4){
+					continue; // Incomplete line
+				}
+				int x = Integer.parseInt(parts[1]);
+				int y = Integer.parseInt(parts[2]);
+				int sep = parts[3].indexOf(':');
+				int id = Integer.parseInt(sep < 0 ? parts[3] : parts[3].substring(0, sep));
+				String info = sep < 0 ? null : parts[3].substring(sep+1);
+				int[] ids = parts[0].equals("e") ? data.engTiles : data.tiles;
+				String[] infos = parts[0].equals("e") ? data.engInfos : data.infos;
+				if (ids != null && x >= 0 && x < data.width && y >= 0 && y < data.height){
+					ids[y*data.width+x] = id;
+					infos[y*data.width+x] = info;
+				}
+			}
+			return data;
+		} catch (IOException | RuntimeException e){
+			Logger.error("Could not read the edit journal of "+levelPath+": "+e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	  Delete the journal of a level without recovering it
+	*/
+	public static void discard(String levelPath){
+		getJournalFile(levelPath).delete();
+	}
+}
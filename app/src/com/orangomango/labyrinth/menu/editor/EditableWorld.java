@@ -5,24 +5,119 @@ import javafx.scene.canvas.*;
 import java.io.*;
 
 import com.orangomango.labyrinth.World;
+import com.orangomango.labyrinth.LevelData;
 import com.orangomango.labyrinth.Block;
+import com.orangomango.labyrinth.RenderContext;
 import com.orangomango.labyrinth.Logger;
 import com.orangomango.labyrinth.engineering.EngBlock;
 
 public class EditableWorld extends World {
+	private EditorView view;
+	private int pattern = -1; // Pattern of the worldList edited, -1 if the file is not an arcade file
 
 	public EditableWorld(String path) {
 		super(path);
+		if (getArcadeLevels(path) > 0){
+			this.pattern = 0;
+		}
 	}
 
 	public Block getBlockAtCoord(int x, int y) {
-		int x1 = x / World.BLOCK_WIDTH;
-		int y1 = y / World.BLOCK_WIDTH;
-		return super.getBlockAt(x1, y1);
+		return super.getBlockAt(toTileX(x), toTileY(y));
+	}
+	
+	public void setView(EditorView v){
+		this.view = v;
+	}
+	
+	public EditorView getView(){
+		return this.view;
+	}
+	
+	@Override
+	protected boolean useFlatTiles(RenderContext ctx){
+		return ctx.getBlockWidth() < EditorView.FLAT_BLOCK_WIDTH;
+	}
+	
+	public int getPattern(){
+		return this.pattern;
+	}
+	
+	/**
+	  Edit another pattern of the arcade file, the patterns are in memory
+	  @param index - index of the pattern in the worldList
+	*/
+	public void editPattern(int index){
+		this.pattern = index;
+		changeToWorld(this.worldList.getWorldAt(index).toLevelData(), this.filePath);
+	}
+	
+	/**
+	  When the working file has a journal only the changed tiles are written. In an arcade file
+	  the pattern is copied in the worldList and the whole list is written
+	*/
+	@Override
+	public void updateOnFile(boolean change){
+		if (this.pattern >= 0){
+			this.worldList.setWorldAt(this.pattern, new World(null, toLevelData()));
+			this.worldList.updateOnFile(this.filePath);
+			if (change){
+				rebuild();
+			}
+			return;
+		}
+		EditJournal journal = this.filePath != null ? EditJournal.get(this.filePath) : null;
+		if (journal == null){
+			super.updateOnFile(change);
+			return;
+		}
+		journal.record(toLevelData());
+		if (change){
+			rebuild();
+		}
+	}
+	
+	/**
+	  Save an edit that changed only the tiles of an area: only their blocks are created again and
+	  only they are compared with the journal
+	*/
+	public void updateOnFile(int x, int y, int x1, int y1){
+		EditJournal journal = this.filePath != null && this.pattern < 0 ? EditJournal.get(this.filePath) : null;
+		if (journal == null){
+			updateOnFile(); // The whole level is written anyway
+			return;
+		}
+		rebuild(x, y, x1, y1); // Before, cables take their connections from the neighbours
+		journal.record(this, x, y, x1, y1);
+	}
+
+	/**
+	  The list of patterns is read again with the file
+	*/
+	@Override
+	public void changeToWorld(String path){
+		if (getArcadeLevels(path) > 0){
+			updateWorldList(path);
+			this.pattern = 0;
+			changeToWorld(this.worldList.getWorldAt(0).toLevelData(), path);
+		} else {
+			this.pattern = -1;
+			super.changeToWorld(path);
+		}
+	}
+
+	@Override
+	public void changeToWorld(LevelData data, String path){
+		super.changeToWorld(data, path);
+		if (this.view != null){
+			this.view.updateSize(); // Rows or columns could have been added
+		}
 	}
 
 	public void setBlockOn(EditableBlock block) {
 		this.world[block.getY()][block.getX()] = new Block(block.getType(), block.getX(), block.getY(), block.getInfo());
+		invalidateTiles(block.getX()-1, block.getY()-1, block.getX()+1, block.getY()+1); // Also the light map, walls can block the light
+		damageArea(block.getX()-1, block.getY()-1, block.getX()+1, block.getY()+1);
 	}
 	
 	// private (addRow, removeRow, addColumn, removeColumn) for engineering mode
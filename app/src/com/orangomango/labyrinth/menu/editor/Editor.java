@@ -8,6 +8,7 @@ import javafx.scene.layout.TilePane;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
+import javafx.scene.layout.StackPane;
 import javafx.geometry.*;
 import javafx.event.EventHandler;
 import javafx.event.ActionEvent;
@@ -27,6 +28,8 @@ import java.util.Random;
 import java.util.Arrays;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import com.orangomango.labyrinth.Player;
 import com.orangomango.labyrinth.Block;
@@ -36,6 +39,10 @@ import static com.orangomango.labyrinth.World.getArcadeLevels;
 import com.orangomango.labyrinth.menu.createdlevels.CreatedWorldFiles;
 import com.orangomango.labyrinth.command.Command;
 import com.orangomango.labyrinth.Logger;
+import com.orangomango.labyrinth.RenderStats;
+import com.orangomango.labyrinth.StatsOverlay;
+import com.orangomango.labyrinth.LevelData;
+import com.orangomango.labyrinth.FileSaver;
 import com.orangomango.labyrinth.engineering.*;
 
 public class Editor {
@@ -121,7 +128,7 @@ public class Editor {
 		System.out.println("Edoworld: "+(editableworld == null));
 		editableworld.warningOnEnd = CURRENT_FILE_PATH.endsWith(".arc") || CURRENT_FILE_PATH.endsWith(".arc.sys");
 
-		Canvas canvas = new Canvas(editableworld.width * EditableWorld.BLOCK_WIDTH, editableworld.height * EditableWorld.BLOCK_WIDTH);
+		Canvas canvas = new Canvas(); // Sized by the EditorView
 		canvas.setFocusTraversable(true);
 
 		canvas.setOnMousePressed(new EventHandler<MouseEvent> () {
@@ -523,9 +530,11 @@ public class Editor {
 						alert.showAndWait();
 						return;
 					}
+					boolean farChange = false; // A block far from this one changes too
 					if (edblock.getType() == EditableWorld.PORTAL && !edblock.getInfo().split(";")[edblock.checkInfoKey("point")].split("#")[1].equals("NoPointSet")) {
 						String[] data = editableworld.getBlockAtCoord((int) event.getX(), (int) event.getY()).getInfo().split("#")[1].split(" ");
 						editableworld.getBlockAt(Integer.parseInt(data[0]), Integer.parseInt(data[1])).addInfoParam("point#NoPointSet");
+						farChange = true;
 					}
 					// Check clone on EditableWorld class
 					if (edblock.getType() == EditableWorld.WALL) {
@@ -549,7 +558,6 @@ public class Editor {
 								editableworld.getBlockAt(edblock.getX() - 1, edblock.getY()).removeConn("e");
 							}
 						}
-						editableworld.updateOnFile();
 					}
 					if (edblock.getType().equals(EditableWorld.PARALLEL_BLOCK)) {
 						Logger.warning("Could not place block on a parallel block");
@@ -682,7 +690,13 @@ public class Editor {
 					}
 
 					editableworld.setBlockOn(edblock);
-					editableworld.updateWalls();
+					if (farChange) {
+						editableworld.updateWalls();
+					} else {
+						// Only the walls around the block can change their connections
+						editableworld.connectWalls(edblock.getX() - 1, edblock.getY() - 1, edblock.getX() + 1, edblock.getY() + 1);
+						editableworld.updateOnFile(edblock.getX() - 2, edblock.getY() - 2, edblock.getX() + 2, edblock.getY() + 2);
+					}
 					unsaved();
 				} else if (event.getButton() == MouseButton.PRIMARY && mode.equals("engineering")) {
 					if ((editableworld.getBlockAt(engblock.getX(), engblock.getY()).getType() != EditableWorld.AIR && !editableworld.getBlockAt(engblock.getX(), engblock.getY()).getType().equals(EditableWorld.PARALLEL_BLOCK)) && (SELECTED_BLOCK == 2 || SELECTED_BLOCK == 4) && engblock.getType().equals(EngBlock.AIR)) {
@@ -727,19 +741,13 @@ public class Editor {
 					}
 
 					editableworld.getEngineeringWorld().setBlockOn(engblock);
-					editableworld.updateOnFile();
+					editableworld.updateOnFile(engblock.getX() - 1, engblock.getY() - 1, engblock.getX() + 1, engblock.getY() + 1); // The cables around connect to the block
 					unsaved();
 				}
 			}
 		});
 
-		scrollpane.setContent(canvas);
-
-		GraphicsContext pen = canvas.getGraphicsContext2D();
-		editableworld.setPen(pen);
-		editableworld.setCanvas(canvas);
 		editableworld.setPlayer(new Player(editableworld.start[0], editableworld.start[1], editableworld));
-		editableworld.draw();
 
 		canvas.setOnMouseMoved(event -> {
 			Block block = editableworld.getBlockAtCoord((int) event.getX(), (int) event.getY());
@@ -765,8 +773,11 @@ public class Editor {
 
 		this.stage.widthProperty().addListener((obs, oldVal, newVal) -> scrollpane.setPrefSize((double) newVal, this.stage.getHeight()));
 		this.stage.heightProperty().addListener((obs, oldVal, newVal) -> scrollpane.setPrefSize(this.stage.getWidth(), (double) newVal));
+		new EditorView(editableworld, scrollpane, canvas);
 
-		layout.add(scrollpane, 0, 0);
+		StatsOverlay overlay = new StatsOverlay();
+		StackPane.setAlignment(overlay, Pos.TOP_LEFT);
+		layout.add(new StackPane(scrollpane, overlay), 0, 0);
 		this.edworld = editableworld;
 		if (OPENED_TABS > 0) {
 			WORLDS.add(editableworld);
@@ -809,6 +820,8 @@ public class Editor {
 
 	public void exit() {
 		this.workLoop.stop();
+		EditJournal.closeAll(); // Unsaved work can be recovered the next time
+
 		WORKING_FILE_PATHS = new ArrayList<String>();
 		CURRENT_FILE_PATHS = new ArrayList<String>();
 		WORKING_LISTS = new ArrayList<List<String>>();
@@ -867,7 +880,7 @@ public class Editor {
 				FileChooser chooser = new FileChooser();
 				chooser.setInitialDirectory(new File(PATH + ".labyrinthgame" + File.separator + "Editor" + File.separator + "Levels" + File.separator));
 				chooser.setTitle("Open world");
-				chooser.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("World file", "*.wld"), new FileChooser.ExtensionFilter("Arcade file", "*.arc"));
+				chooser.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("World file", "*.wld"), new FileChooser.ExtensionFilter("Binary world file", "*.wldb"), new FileChooser.ExtensionFilter("Arcade file", "*.arc"));
 				File f = chooser.showOpenDialog(this.stage);
 				if (f.equals(null)) {
 					throw new Exception("Null file opened");
@@ -936,8 +949,7 @@ public class Editor {
 		mRunPattern.setAccelerator(new KeyCodeCombination(KeyCode.R, KeyCombination.CONTROL_DOWN, KeyCombination.SHIFT_DOWN));
 		mRunPattern.setOnAction(e -> {
 			// Clone of toolbar button
-			new LevelExe(this.edworld.getFilePath(), "Arcade pattern (" + getFileName() + ")", saved, this.mode);
-			LevelExe.setOnFinish(null);
+			runPattern();
 		});
 		this.mUndo = new MenuItem("Undo");
 		mUndo.setAccelerator(new KeyCodeCombination(KeyCode.Z, KeyCombination.CONTROL_DOWN));
@@ -945,9 +957,8 @@ public class Editor {
 			try {
 				File tempFile = File.createTempFile("temp-world-" + (new Random()).nextInt(), ".wld");
 				tempFile.deleteOnExit();
-				BufferedWriter writer = new BufferedWriter(new FileWriter(tempFile));
-				writer.write(workingList.get(HISTORY_POINT-2));      // (-1) - 1
-				writer.close();
+				String history = workingList.get(HISTORY_POINT-2);      // (-1) - 1
+				FileSaver.save(tempFile.getAbsolutePath(), history);
 				HISTORY_POINT--;
 				if (HISTORY_POINT < 2){
 					this.mUndo.setDisable(true);
@@ -957,8 +968,13 @@ public class Editor {
 				if (this.arcade){
 					this.edworld.updateWorldList(tempFile.getAbsolutePath());
 					this.edworld.worldList.updateOnFile(WORKING_FILE_PATH);
-					this.edworld.changeToWorld(this.edworld.getFilePath());
+					SELECTED_PATTERN = Math.min(SELECTED_PATTERN, this.edworld.worldList.getLength());
+					this.edworld.editPattern(SELECTED_PATTERN - 1);
 					//System.out.println("EDWORLD_WORLDLIST: "+this.edworld.worldList.getLength());
+				} else if (EditJournal.get(WORKING_FILE_PATH) != null) {
+					// The working file (and its journal) is kept
+					EditJournal.get(WORKING_FILE_PATH).replace(LevelData.readText(new StringReader(history)));
+					this.edworld.changeToWorld(WORKING_FILE_PATH);
 				} else {
 					WORKING_FILE_PATH = tempFile.getAbsolutePath();
 					WORKING_FILE_PATHS.set(this.tabs.getSelectionModel().getSelectedIndex(), WORKING_FILE_PATH);
@@ -977,9 +993,8 @@ public class Editor {
 			try {
 				File tempFile = File.createTempFile("temp-world-" + (new Random()).nextInt(), ".wld");
 				tempFile.deleteOnExit();
-				BufferedWriter writer = new BufferedWriter(new FileWriter(tempFile));
-				writer.write(workingList.get(HISTORY_POINT));     // (+1) - 1
-				writer.close();
+				String history = workingList.get(HISTORY_POINT);     // (+1) - 1
+				FileSaver.save(tempFile.getAbsolutePath(), history);
 				HISTORY_POINT++;
 				if (HISTORY_POINT == workingList.size()){
 					this.mRedo.setDisable(true);
@@ -993,8 +1008,13 @@ public class Editor {
 					//	Thread.sleep(60000);
 					//} catch (InterruptedException ex){}
 					this.edworld.worldList.updateOnFile(WORKING_FILE_PATH);
-					this.edworld.changeToWorld(this.edworld.getFilePath());
+					SELECTED_PATTERN = Math.min(SELECTED_PATTERN, this.edworld.worldList.getLength());
+					this.edworld.editPattern(SELECTED_PATTERN - 1);
 					//System.out.println("EDWORLD_WORLDLIST: "+this.edworld.worldList.getLength());
+				} else if (EditJournal.get(WORKING_FILE_PATH) != null) {
+					// The working file (and its journal) is kept
+					EditJournal.get(WORKING_FILE_PATH).replace(LevelData.readText(new StringReader(history)));
+					this.edworld.changeToWorld(WORKING_FILE_PATH);
 				} else {
 					WORKING_FILE_PATH = tempFile.getAbsolutePath();
 					WORKING_FILE_PATHS.set(this.tabs.getSelectionModel().getSelectedIndex(), WORKING_FILE_PATH);
@@ -1047,10 +1067,11 @@ public class Editor {
 		mLights = new CheckMenuItem("Turn on lights on all level");
 		mLights.setOnAction(evt -> {
 			if (this.arcade) {
-				for (int i = 0; i<World.getArcadeLevels(CURRENT_FILE_PATH); i++) {
+				for (int i = 0; i<this.edworld.worldList.getLength(); i++) {
 					this.edworld.worldList.getWorldAt(i).setAllLights(mLights.isSelected());
-					this.edworld.worldList.getWorldAt(i).updateOnFile(false);
 				}
+				this.edworld.setAllLights(mLights.isSelected());
+				this.edworld.updateOnFile(); // Also writes the list on the working file
 				this.edworld.worldList.updateOnFile(CURRENT_FILE_PATH);
 			} else {
 				this.edworld.setAllLights(mLights.isSelected());
@@ -1118,7 +1139,7 @@ public class Editor {
 				FileChooser chooser = new FileChooser();
 				chooser.setInitialDirectory(new File(PATH + ".labyrinthgame" + File.separator + "Editor" + File.separator + "Levels" + File.separator));
 				chooser.setTitle("Open world");
-				chooser.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("World file", "*.wld"), new FileChooser.ExtensionFilter("Arcade file", "*.arc"));
+				chooser.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("World file", "*.wld"), new FileChooser.ExtensionFilter("Binary world file", "*.wldb"), new FileChooser.ExtensionFilter("Arcade file", "*.arc"));
 				File f = chooser.showOpenDialog(this.stage);
 				if (f.equals(null)) {
 					throw new Exception("Null file opened");
@@ -1184,8 +1205,7 @@ public class Editor {
 		runArcBtn.setGraphic(new ImageView(new Image("file://" + changeSlash(PATH) + ".labyrinthgame/Images/editor/run.png")));
 		runArcBtn.setOnAction(event -> {
 			// Clone of menu button
-			new LevelExe(this.edworld.getFilePath(), "Arcade pattern (" + getFileName() + ")", saved, this.mode);
-			LevelExe.setOnFinish(null);
+			runPattern();
 		});
 		runArcBtn.setDisable(!this.arcade);
 
@@ -1524,13 +1544,18 @@ public class Editor {
 
 		Scene scene = new Scene(layout, 1000, 550);
 		scene.getStylesheets().add("file://" + changeSlash(PATH) + ".labyrinthgame/Editor/style.css");
+		scene.addEventFilter(KeyEvent.KEY_PRESSED, event -> {
+			if (event.getCode() == KeyCode.F3){
+				RenderStats.toggle();
+				event.consume();
+			}
+		});
 		this.stage.setScene(scene);
 		this.workLoop = new Timeline(new KeyFrame(Duration.seconds(1), e -> {
 			try {
 				StringWriter sw = new StringWriter();
 				BufferedWriter writer = new BufferedWriter(sw);
 				if (this.arcade){
-					this.edworld.worldList.sync();
 					this.edworld.worldList.updateOnFile(writer);
 				} else {
 					this.edworld.writeToFile(writer);
@@ -1558,6 +1583,7 @@ public class Editor {
 			}
 			System.out.println("\n");*/
 		}));
+		RenderStats.track(this.workLoop);
 		this.workLoop.setCycleCount(Animation.INDEFINITE);
 		this.workLoop.play();
 	}
@@ -1568,14 +1594,7 @@ public class Editor {
 	 */
 	public static void updateCurrentWorldFile(String currentPath) {
 		File f = new File(PATH + ".labyrinthgame" + File.separator + "Editor" + File.separator + "Cache" + File.separator + "currentFile.data");
-		try {
-			if (!f.exists()) {
-				f.createNewFile();
-			}
-			BufferedWriter writer = new BufferedWriter(new FileWriter(f));
-			writer.write(currentPath);
-			writer.close();
-		} catch (IOException e) {}
+		FileSaver.save(f.getAbsolutePath(), currentPath);
 	}
 
 	/**
@@ -1584,6 +1603,7 @@ public class Editor {
 	 */
 	public static String getCurrentFilePath() {
 		File f = new File(PATH + ".labyrinthgame" + File.separator + "Editor" + File.separator + "Cache" + File.separator + "currentFile.data");
+		FileSaver.flush(f.getPath());
 		if (!f.exists()) {
 			return null;
 		}
@@ -1603,14 +1623,13 @@ public class Editor {
 
 	private void checkAndDeleteCache() {
 		File f = new File(PATH + ".labyrinthgame" + File.separator + "Editor" + File.separator + "Cache");
-		String[] fPaths = f.list();
-		if (fPaths.length > 22) { // 20 cached files + 2 default files
+		Set<String> inUse = EditJournal.cleanUp(); // Unsaved work of the journals
+		inUse.addAll(WORKING_FILE_PATHS);
+		File[] cached = f.listFiles((dir, name) -> name.startsWith("cache") && !inUse.contains(new File(dir, name).getPath()));
+		if (cached != null && cached.length > 20) {
 			Logger.warning("More than 20 cached files! Deleting some of them");
-			for (String fp: fPaths) {
-				if (fp.startsWith("cache")) {
-					File toDel = new File(PATH + ".labyrinthgame" + File.separator + "Editor" + File.separator + "Cache" + File.separator + fp);
-					toDel.delete();
-				}
+			for (File toDel: cached) {
+				toDel.delete();
 			}
 		}
 	}
@@ -1646,8 +1665,25 @@ public class Editor {
 
 			Logger.info(CURRENT_FILE_PATHS.toString() + " " + WORKING_FILE_PATHS.toString());
 
+			LevelData recovered = EditJournal.recover(CURRENT_FILE_PATH); // Before the cache is cleaned
+			if (recovered != null) {
+				Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+				alert.setTitle("Recover");
+				alert.setHeaderText("Unsaved changes found");
+				alert.setContentText("The last changes made to " + getFileName() + " were not saved.\nDo you want to recover them?");
+				if (alert.showAndWait().orElse(ButtonType.CANCEL) != ButtonType.OK) {
+					recovered = null;
+				}
+			}
+			EditJournal.discard(CURRENT_FILE_PATH);
 			checkAndDeleteCache();
 			copyWorld(CURRENT_FILE_PATH, WORKING_FILE_PATH);
+			if (recovered != null) {
+				recovered.save(WORKING_FILE_PATH);
+			}
+			if (getArcadeLevels(WORKING_FILE_PATH) <= 0) { // Arcade patterns are written by the WorldList
+				EditJournal.start(CURRENT_FILE_PATH, WORKING_FILE_PATH, recovered != null);
+			}
 			if (this.tabs != null && getCurrentFilePath() != null) {
 				Tab newTab;
 				if (oldPathIn) {
@@ -1674,6 +1710,9 @@ public class Editor {
 			//prepareArcadeMode(CURRENT_FILE_PATH.endsWith(".arc") || CURRENT_FILE_PATH.endsWith(".arc.sys")); // Currently not needed
 			System.out.println(">>>> "+this.edworld.worldList.getLength());
 			saved(false);
+			if (recovered != null) {
+				unsaved();
+			}
 		} catch (Exception e) {
 			Logger.error("Could not load world file");
 			Alert alert = new Alert(Alert.AlertType.ERROR);
@@ -1751,10 +1790,13 @@ public class Editor {
 		this.saved = true;
 		if (save){
 			if (this.arcade) {
-				this.edworld.worldList.sync();
 				this.edworld.worldList.updateOnFile(WORKING_FILE_PATH);
 			}
-			copyWorld(WORKING_FILE_PATH, CURRENT_FILE_PATH);
+			CompletableFuture<Void> copy = copyWorld(WORKING_FILE_PATH, CURRENT_FILE_PATH);
+			EditJournal journal = EditJournal.get(WORKING_FILE_PATH);
+			if (journal != null){
+				journal.saved(copy);
+			}
 		}
 		try {
 			SAVES[this.tabs.getSelectionModel().getSelectedIndex()] = saved;
@@ -1826,18 +1868,32 @@ public class Editor {
 	 * Copies a world to a given path
 	 * @param path1 the original world file path
 	 * @param path2 the destination path
+	 * @return completed when the copy is on disk
 	 */
-	private void copyWorld(String path1, String path2) {
-		try {
-			File second = new File(path2); // Delete second file if exists for replacement
-			if (second.exists()) {
-				second.delete();
+	private CompletableFuture<Void> copyWorld(String path1, String path2) {
+		LevelData journaled = EditJournal.read(path1); // Also the edits not yet written on the working file
+		// Copied in background, the old file is replaced only when the copy is complete
+		CompletableFuture<Void> copy = FileSaver.save(path2, out -> {
+			if (journaled != null || LevelData.isBinary(path1) != LevelData.isBinary(path2)){
+				LevelData data = journaled != null ? journaled : LevelData.read(new File(path1)); // The cache is always a text file
+				if (LevelData.isBinary(path2)){
+					data.writeBinary(out);
+				} else {
+					Writer writer = new BufferedWriter(new OutputStreamWriter(out));
+					data.writeText(writer);
+					writer.flush();
+				}
+			} else {
+				Files.copy(new File(path1).toPath(), out);
 			}
-			Files.copy(new File(path1).toPath(), new File(path2).toPath());
-			Logger.info("World copied from cache to file");
-		} catch (IOException e) {
-			Logger.warning("Unable to copy world from cache to file");
-		}
+		}).whenComplete((v, e) -> {
+			if (e == null) {
+				Logger.info("World copied from cache to file");
+			} else {
+				Logger.warning("Unable to copy world from cache to file");
+			}
+		});
+		return copy;
 	}
 
 	/**
@@ -1858,6 +1914,16 @@ public class Editor {
 		open(f);
 	}
 
+	/**
+	 * Run the pattern being edited, it is written on a file of the cache folder because it's only in memory
+	 */
+	private void runPattern() {
+		String path = PATH + ".labyrinthgame" + File.separator + "Editor" + File.separator + "Cache" + File.separator + "pattern.wld";
+		this.edworld.toLevelData().save(path);
+		new LevelExe(path, "Arcade pattern (" + getFileName() + ")", saved, this.mode);
+		LevelExe.setOnFinish(null);
+	}
+
 	private void prepareArcadeMode(boolean arc) {
 		this.arcade = arc;
 		//System.out.println("Arcade mode: "+arc);
@@ -1870,24 +1936,25 @@ public class Editor {
 		tilePane.setHgap(10);
 		tilePane.setVgap(10);
 		final int PREVIEW_BLOCK_WIDTH = 10;
-		World.BLOCK_WIDTH = PREVIEW_BLOCK_WIDTH;
 		//System.out.println("W_F_P: "+WORKING_FILE_PATH);
 		//System.out.println("C_F_P: "+CURRENT_FILE_PATH);
 		//System.out.println("gAL(W): "+getArcadeLevels(WORKING_FILE_PATH));
 		//System.out.println("gAL(C): "+getArcadeLevels(CURRENT_FILE_PATH));
-		for (int i = 1; i<= getArcadeLevels(WORKING_FILE_PATH); i++) {
+		if (this.arcade && this.edworld.getPattern() >= 0) {
+			SELECTED_PATTERN = this.edworld.getPattern() + 1; // Each tab edits its own pattern
+		}
+		for (int i = 1; this.arcade && i<= this.edworld.worldList.getLength(); i++) {
 			final int now = i;
 			GridPane miniP = new GridPane();
 			miniP.setVgap(3);
 			Label title = new Label("Pattern " + i);
 			Button btn = new Button();
 			btn.setGraphic(new ImageView(new Image("file://" + changeSlash(PATH) + ".labyrinthgame/Images/editor/pattern_edit.png")));
-			btn.setTooltip(new Tooltip(this.edworld.worldList.getLength() > 1 ? this.edworld.worldList.getWorldAt(i - 1).getFilePath() : WORKING_FILE_PATH));
+			btn.setTooltip(new Tooltip("Edit pattern " + i));
 			btn.setOnAction(e -> {
 				SELECTED_PATTERN = now;
-				System.out.println(World.getArcadeLevels(WORKING_FILE_PATH)+" "+WORKING_FILE_PATH+" "+this.edworld.worldList.getLength());
 				this.stage.setTitle("LabyrinthGame - Editor (" + getFileName() + ((saved) ? "" : "*") + (this.arcade ? "/"+SELECTED_PATTERN : "") + ")");
-				this.edworld.changeToWorld(this.edworld.worldList.getWorldAt(now - 1).getFilePath());
+				this.edworld.editPattern(now - 1);
 				this.setMode("normal");
 			});
 			Button dBtn = new Button();
@@ -1897,24 +1964,18 @@ public class Editor {
 			dBtn.setOnAction(delEvent -> {
 				this.edworld.worldList.deleteWorld(now - 1);
 				this.edworld.worldList.updateOnFile(WORKING_FILE_PATH);
-				this.edworld.changeToWorld(WORKING_FILE_PATH);
+				this.edworld.editPattern(0);
 				unsaved();
 				prepareArcadeMode(this.arcade);
 			});
-			World tW;
-			if (this.edworld.worldList.getLength() > 1) {
-				tW = this.edworld.worldList.getWorldAt(now - 1);
-			} else {
-				tW = new World(WORKING_FILE_PATH);
-				tW.setEngineeringWorld(this.edworld.getEngineeringWorld());
-			}
+			World tW = this.edworld.worldList.getWorldAt(now - 1);
 			tW.previewMode = true;
 			if (tW.getEngineeringWorld() != null) {
 				tW.setDrawingMode(this.mode);
 			}
 			Canvas prevCanvas = new Canvas(tW.width * PREVIEW_BLOCK_WIDTH, tW.height * PREVIEW_BLOCK_WIDTH);
 			GraphicsContext pen = prevCanvas.getGraphicsContext2D();
-			tW.setPen(pen);
+			tW.setPen(pen, PREVIEW_BLOCK_WIDTH);
 			tW.setPlayer(new Player(tW.start[0], tW.start[1], tW));
 			tW.draw();
 			if (i == SELECTED_PATTERN){
@@ -1931,12 +1992,11 @@ public class Editor {
 		addBtn.setTooltip(new Tooltip("Add new pattern"));
 		addBtn.setOnAction(addEvent -> {
 			try {
-				File file = File.createTempFile("temp-world-" + (new Random()).nextInt(), ".wld");
-				file.deleteOnExit();
-				BufferedWriter writer = new BufferedWriter(new FileWriter(file));
+				StringWriter sw = new StringWriter();
+				BufferedWriter writer = new BufferedWriter(sw);
 				World.writeNewFile(writer, this.edworld.width, this.edworld.height, this.edworld.start, this.edworld.end, this.edworld.getAllLights(), "Arcade pattern description");
 				writer.close();
-				World newWorld = new World(file.getAbsolutePath());
+				World newWorld = new World(null, LevelData.readText(new StringReader(sw.toString())));
 				this.edworld.worldList.addWorld(newWorld);
 				this.edworld.worldList.updateOnFile(WORKING_FILE_PATH);
 				unsaved();
@@ -1960,18 +2020,17 @@ public class Editor {
 
 			Button generate = new Button("Generate combined world");
 			generate.setOnAction(c -> {
-				World temp = new World(this.edworld.worldList.getWorldAt(Integer.parseInt(Character.toString(selPatterns.getItems().get(0).charAt(8))) - 1).getFilePath());
+				World temp = new World(null, this.edworld.worldList.getWorldAt(Integer.parseInt(Character.toString(selPatterns.getItems().get(0).charAt(8))) - 1).toLevelData());
 				for (int i = 1; i<selPatterns.getItems().size(); i++) {
 					temp.changeToWorld(World.combineWorlds(temp, this.edworld.worldList.getWorldAt(Integer.parseInt(Character.toString(selPatterns.getItems().get(i).charAt(8))) - 1)));
 				}
-				World.BLOCK_WIDTH = 20;
-				Canvas cv = new Canvas(temp.width * World.BLOCK_WIDTH, temp.height * World.BLOCK_WIDTH);
-				temp.setPen(cv.getGraphicsContext2D());
+				final int COMBINED_BLOCK_WIDTH = 20;
+				Canvas cv = new Canvas(temp.width * COMBINED_BLOCK_WIDTH, temp.height * COMBINED_BLOCK_WIDTH);
+				temp.setPen(cv.getGraphicsContext2D(), COMBINED_BLOCK_WIDTH);
 				temp.previewMode = true;
 				temp.setPlayer(new Player(temp.start[0], temp.start[1], temp));
 				temp.draw();
 				pane.setContent(cv);
-				World.BLOCK_WIDTH = World.DEFAULT_BLOCK_WIDTH;
 			});
 			generate.setDisable(true);
 
@@ -2036,7 +2095,6 @@ public class Editor {
 			sp.setFitToHeight(true);
 			this.personalViewTab.setContent(sp);
 		}
-		World.BLOCK_WIDTH = World.DEFAULT_BLOCK_WIDTH;
 	}
 
 	private void setMode(String m) {
@@ -2046,10 +2104,10 @@ public class Editor {
 				this.edworld.setEngineeringWorld(EngWorld.createNewEngWorld(this.edworld, this.edworld.width, this.edworld.height));
 				this.edworld.updateOnFile();
 				if (this.arcade) {
-					for (int i = 0; i<World.getArcadeLevels(WORKING_FILE_PATH); i++) {
+					for (int i = 0; i<this.edworld.worldList.getLength(); i++) {
 						this.edworld.worldList.getWorldAt(i).setEngineeringWorld(EngWorld.createNewEngWorld(this.edworld.worldList.getWorldAt(i), this.edworld.worldList.getWorldAt(i).width, this.edworld.worldList.getWorldAt(i).height));
-						this.edworld.worldList.getWorldAt(i).updateOnFile(false);
 					}
+					this.edworld.worldList.updateOnFile(WORKING_FILE_PATH);
 				}
 				unsaved();
 				Logger.info("Engineering mode created successfully");
@@ -0,0 +1,121 @@
+package com.orangomango.labyrinth.menu.editor;
+
+import javafx.scene.canvas.*;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.layout.Pane;
+import javafx.scene.input.ScrollEvent;
+import javafx.geometry.Bounds;
+import javafx.geometry.Point2D;
+
+import com.orangomango.labyrinth.World;
+import com.orangomango.labyrinth.Camera;
+
+/**
+  Zoomable view of the world in the editor. The canvas is only as big as the visible part of the
+  ScrollPane and it's moved with the scrollbars, a camera draws the tiles under it.
+  Ctrl + mouse wheel zooms, below FLAT_BLOCK_WIDTH the tiles are drawn as flat colours.
+*/
+public class EditorView {
+	public static final int[] ZOOM_LEVELS = {2, 4, 8, 16, 24, 32, 48, 64};
+	public static final int FLAT_BLOCK_WIDTH = 12;
+
+	private EditableWorld world;
+	private ScrollPane scrollpane;
+	private Pane content;
+	private Canvas canvas;
+	private Camera camera;
+	private int zoom;
+
+	/**
+	  EditorView class constructor
+	  @param w - World to edit
+	  @param sp - ScrollPane showing the world
+	  @param canvas - Canvas where the world is drawn
+	*/
+	public EditorView(EditableWorld w, ScrollPane sp, Canvas canvas){
+		this.world = w;
+		this.scrollpane = sp;
+		this.canvas = canvas;
+		this.zoom = ZOOM_LEVELS.length-1;
+		for (int i = 0; i < ZOOM_LEVELS.length; i++){
+			if (ZOOM_LEVELS[i] >= World.BLOCK_WIDTH){
+				this.zoom = i;
+				break;
+			}
+		}
+		this.content = new Pane(canvas);
+		sp.setContent(this.content);
+
+		this.camera = new Camera(w, canvas.getWidth(), canvas.getHeight());
+		w.setPen(canvas.getGraphicsContext2D(), getBlockWidth());
+		w.setCanvas(canvas);
+		w.setCamera(this.camera);
+		w.setView(this);
+
+		sp.hvalueProperty().addListener((ob, oldV, newV) -> sync());
+		sp.vvalueProperty().addListener((ob, oldV, newV) -> sync());
+		sp.viewportBoundsProperty().addListener((ob, oldV, newV) -> updateSize());
+		sp.addEventFilter(ScrollEvent.SCROLL, event -> {
+			if (event.isControlDown()){
+				Point2D p = canvas.sceneToLocal(event.getSceneX(), event.getSceneY());
+				zoom(event.getDeltaY() > 0 ? 1 : -1, p.getX(), p.getY());
+				event.consume();
+			}
+		});
+		updateSize();
+	}
+
+	public int getBlockWidth(){
+		return ZOOM_LEVELS[this.zoom];
+	}
+
+	/**
+	  Resize the scrollable area and the canvas (zoom, window or world size changed)
+	*/
+	public void updateSize(){
+		int bw = getBlockWidth();
+		double cw = this.world.width * bw;
+		double ch = this.world.height * bw;
+		this.content.setPrefSize(cw, ch);
+		Bounds vp = this.scrollpane.getViewportBounds();
+		double vw = vp.getWidth() > 0 ? vp.getWidth() : this.scrollpane.getPrefWidth();
+		double vh = vp.getHeight() > 0 ? vp.getHeight() : this.scrollpane.getPrefHeight();
+		this.canvas.setWidth(Math.max(bw, Math.min(cw, vw)));
+		this.canvas.setHeight(Math.max(bw, Math.min(ch, vh)));
+		this.camera.setViewport(this.canvas.getWidth(), this.canvas.getHeight());
+		sync();
+	}
+
+	/**
+	  Move the camera and the canvas where the scrollbars are
+	*/
+	private void sync(){
+		int bw = getBlockWidth();
+		double ox = Math.max(0, this.world.width * bw - this.canvas.getWidth()) * this.scrollpane.getHvalue();
+		double oy = Math.max(0, this.world.height * bw - this.canvas.getHeight()) * this.scrollpane.getVvalue();
+		this.camera.scrollTo(ox / bw, oy / bw);
+		this.canvas.relocate(Math.max(0, this.camera.getX() * bw), Math.max(0, this.camera.getY() * bw));
+		this.world.update(0, 0, 0, 0);
+	}
+
+	/**
+	  Zoom in (dir > 0) or out keeping the tile under mx, my (canvas coords) in the same place
+	*/
+	public void zoom(int dir, double mx, double my){
+		int next = Math.max(0, Math.min(ZOOM_LEVELS.length-1, this.zoom + dir));
+		if (next == this.zoom){
+			return;
+		}
+		double tx = this.camera.toWorldX(mx);
+		double ty = this.camera.toWorldY(my);
+		this.zoom = next;
+		int bw = getBlockWidth();
+		this.world.setPen(this.canvas.getGraphicsContext2D(), bw);
+		updateSize();
+		double rangeX = this.world.width * bw - this.canvas.getWidth();
+		double rangeY = this.world.height * bw - this.canvas.getHeight();
+		this.scrollpane.setHvalue(rangeX > 0 ? Math.max(0, Math.min(1, (tx * bw - mx) / rangeX)) : 0);
+		this.scrollpane.setVvalue(rangeY > 0 ? Math.max(0, Math.min(1, (ty * bw - my) / rangeY)) : 0);
+		sync();
+	}
+}
@@ -3,11 +3,15 @@ package com.orangomango.labyrinth.menu.editor;
 import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.StackPane;
+import javafx.geometry.Pos;
 import javafx.geometry.Insets;
 import javafx.stage.Stage;
 import javafx.scene.control.Label;
 import javafx.scene.canvas.*;
 import javafx.scene.input.KeyCode;
+import javafx.stage.Screen;
+import javafx.geometry.Rectangle2D;
 import javafx.scene.control.Alert;
 
 import java.io.*;
@@ -17,6 +21,11 @@ import java.util.Random;
 import com.orangomango.labyrinth.World;
 import com.orangomango.labyrinth.Block;
 import com.orangomango.labyrinth.Player;
+import com.orangomango.labyrinth.Camera;
+import com.orangomango.labyrinth.PixelBufferRenderer;
+import com.orangomango.labyrinth.StatsOverlay;
+import com.orangomango.labyrinth.Minimap;
+import com.orangomango.labyrinth.RenderStats;
 import com.orangomango.labyrinth.menu.play.entity.*;
 import com.orangomango.labyrinth.engineering.*;
 import static com.orangomango.labyrinth.menu.editor.Editor.PATH;
@@ -30,6 +39,9 @@ public class LevelExe {
 	private int yGap = 0;
 	private String mode;
 	public static final int PWS = 4;  // Player World Space(right)
+	private static final int VIEW_BORDER_X = 20; // Space around the canvas
+	private static final int VIEW_BORDER_Y = 60;
+	public static boolean PIXEL_BUFFER = false; // Render with the multi-threaded PixelBufferRenderer (F4 to switch)
 	private boolean pressedKeys = false;
 	private boolean releasedKeys = true;
 	private boolean arcade;
@@ -49,15 +61,12 @@ public class LevelExe {
 		Random rnd = new Random();
 				
 		if (this.arcade){
-			world = World.combineWorlds((new World(path)).worldList.getWorldAt(rnd.nextInt(World.getArcadeLevels(path))), (new World(path)).worldList.getWorldAt(rnd.nextInt(World.getArcadeLevels(path))));
+			world = World.combineWorlds(World.readArcadeLevel(path, rnd.nextInt(World.getArcadeLevels(path))), World.readArcadeLevel(path, rnd.nextInt(World.getArcadeLevels(path))));
 		} else {
 			world = new World(path);
 		}
-		if (this.mode.equals("engineering")){
-			this.playerViewEnabled = false;
-		} else {
-			this.playerViewEnabled = world.width > NewWidget.MAX_PLAYER_VIEW_SIZE || world.height > NewWidget.MAX_PLAYER_VIEW_SIZE || this.arcade;
-		}
+		// Only arcade runs use the fixed player view, other levels bigger than the window are shown through a camera
+		this.playerViewEnabled = this.arcade && this.mode.equals("normal");
 		world.setPlayerView(this.playerViewEnabled);
 		world.setDrawingMode(this.mode);
 		world.setPsStage(stage);
@@ -84,7 +93,17 @@ public class LevelExe {
 			OPEN = false;
 		});
 
-		Canvas canvas = new Canvas((!this.playerViewEnabled ? world.width : PWS*2+1) * World.BLOCK_WIDTH, (!this.playerViewEnabled ? world.height : PWS*2+1) * World.BLOCK_WIDTH);
+		double viewWidth, viewHeight;
+		if (!this.playerViewEnabled){
+			// Levels bigger than the screen are shown through a camera
+			Rectangle2D screen = Screen.getPrimary().getVisualBounds();
+			viewWidth = Math.min(world.width * World.BLOCK_WIDTH, screen.getWidth() - 2*VIEW_BORDER_X);
+			viewHeight = Math.min(world.height * World.BLOCK_WIDTH, screen.getHeight() - 2*VIEW_BORDER_Y);
+		} else {
+			viewWidth = (PWS*2+1) * World.BLOCK_WIDTH;
+			viewHeight = (PWS*2+1) * World.BLOCK_WIDTH;
+		}
+		Canvas canvas = new Canvas(viewWidth, viewHeight);
 		Label label = new Label(filename + ((saved) ? " \n(Level is currently synchronized)" : "\n(Level not synchronized, unsaved)"));
 
 		canvas.setFocusTraversable(true);
@@ -93,29 +112,52 @@ public class LevelExe {
 		layout.setVgap(5);
 		layout.setPadding(new Insets(10, 10, 10, 10));
 		layout.add(label, 0, 0);
-		layout.add(canvas, 0, 1);
+		// Level stats have their own canvas, they are repainted without repainting the world
+		Canvas hud = new Canvas(viewWidth, viewHeight);
+		hud.setMouseTransparent(true);
+		hud.widthProperty().bind(canvas.widthProperty());
+		hud.heightProperty().bind(canvas.heightProperty());
+		StatsOverlay overlay = new StatsOverlay();
+		StackPane.setAlignment(overlay, Pos.TOP_LEFT);
+		PixelBufferRenderer pixels = new PixelBufferRenderer(world, (int)viewWidth, (int)viewHeight);
+		pixels.getView().setVisible(false);
+		StackPane view = new StackPane(canvas, pixels.getView(), hud, overlay);
+		if (this.playerViewEnabled){
+			// Only a small part of the level is visible
+			Minimap minimap = new Minimap(world);
+			StackPane.setAlignment(minimap.getCanvas(), Pos.TOP_RIGHT);
+			view.getChildren().add(minimap.getCanvas());
+			world.setMinimap(minimap);
+		}
+		layout.add(view, 0, 1);
 
 		GraphicsContext pen = canvas.getGraphicsContext2D();
 		world.setPen(pen);
+		if (PIXEL_BUFFER){
+			setPixelBuffer(true, canvas, pixels);
+		}
 
-		Scene scene;
+		Scene scene = new Scene(layout, viewWidth + VIEW_BORDER_X, viewHeight + VIEW_BORDER_Y);
 		if (!this.playerViewEnabled){
-			scene = new Scene(layout, World.BLOCK_WIDTH * world.width + 20, World.BLOCK_WIDTH * world.height + 60);
-		} else {
-			scene = new Scene(layout, PWS*2*World.BLOCK_WIDTH+20+World.BLOCK_WIDTH, PWS*2*World.BLOCK_WIDTH+60+World.BLOCK_WIDTH);
+			Camera camera = new Camera(world, viewWidth, viewHeight);
+			camera.jumpTo(world.start[0], world.start[1]);
+			world.setCamera(camera);
+			scene.widthProperty().addListener((ob, oldV, newV) -> resizeView(canvas, pixels, world, scene));
+			scene.heightProperty().addListener((ob, oldV, newV) -> resizeView(canvas, pixels, world, scene));
 		}
 		scene.getStylesheets().add("file://" + changeSlash(PATH) + ".labyrinthgame/Editor/style.css");
 		stage.setScene(scene);
 
 		final Player player = new Player(world.start[0], world.start[1], world);
-		player.draw(pen);
 		if (this.arcade){
 			player.setPsFilePath(path);
 		}
 		world.setPlayer(player);
 		
-		LevelStats levelStats = new LevelStats(world, pen);
+		LevelStats levelStats = new LevelStats(world, hud.getGraphicsContext2D());
 		world.setLevelStats(levelStats);
+		hud.widthProperty().addListener((ob, oldV, newV) -> levelStats.invalidate());
+		hud.heightProperty().addListener((ob, oldV, newV) -> levelStats.invalidate());
 		
 		if (this.arcade){
 			world.addEnt(new PoisonCloud(world, world.width, 2, -2));
@@ -132,15 +174,31 @@ public class LevelExe {
 		}
 		
 		if (world.getPlayerView()){
-			world.draw(world.start[0]-PWS, world.start[1]-PWS, world.start[0]+PWS, world.start[1]+PWS);
+			world.render(world.start[0]-PWS, world.start[1]-PWS, world.start[0]+PWS, world.start[1]+PWS);
 		} else {
-			world.draw();
+			world.render(0, 0, 0, 0);
+		}
+		levelStats.refresh();
+		if (world.getMinimap() != null){
+			world.getMinimap().refresh();
 		}
 		
 		//System.out.println(World.combineWorlds(world, new World("/home/paul/.labyrinthgame/SystemLevels/level1.wld.sys")));
 		
 		// Handle movement
 		canvas.setOnKeyPressed(event -> {
+			if (event.getCode() == KeyCode.F3){
+				RenderStats.toggle();
+				return;
+			} else if (event.getCode() == KeyCode.F4){
+				setPixelBuffer(world.getPixelBufferRenderer() == null, canvas, pixels);
+				if (world.getPlayerView() && world.getPlayer() != null){
+					world.update(world.getPlayer().getX()-PWS, world.getPlayer().getY()-PWS, world.getPlayer().getX()+PWS, world.getPlayer().getY()+PWS);
+				} else {
+					world.update(0, 0, 0, 0);
+				}
+				return;
+			}
 			if (this.mode.equals("normal")){
 				if (!PLAYER_MOVEMENT){
 					return;
@@ -210,8 +268,13 @@ public class LevelExe {
 		
 		canvas.setOnMousePressed(event -> {
 			if (this.mode.equals("engineering")){
-				EngBlock engblock = world.getEngineeringWorld().getBlockAtCoord((int)event.getX(), (int)event.getY());
-				if (engblock.getCategory().equals(EngBlock.SIGNAL_INPUT)){
+				EngBlock engblock;
+				if (world.getCamera() != null){
+					engblock = world.getEngineeringWorld().getBlockAt((int)Math.floor(world.getCamera().toWorldX(event.getX())), (int)Math.floor(world.getCamera().toWorldY(event.getY())));
+				} else {
+					engblock = world.getEngineeringWorld().getBlockAtCoord((int)event.getX(), (int)event.getY());
+				}
+				if (engblock != null && engblock.getCategory().equals(EngBlock.SIGNAL_INPUT)){
 					engblock.toggleActive();
 				}
 				world.update(0, 0, 0, 0);
@@ -232,11 +295,33 @@ public class LevelExe {
 			world.viewFrom(world.end[0], world.end[1], world.start[0], world.start[1]);
 		}
 		stage.setScene(scene);
-		stage.setResizable(false);
+		stage.setResizable(!this.playerViewEnabled);
 		stage.show();
 	}
 
 	public static void setOnFinish(Stage stage) {
 		exStage = stage;
 	}
+
+	/**
+	  Switch between the canvas and the PixelBuffer backend
+	*/
+	private void setPixelBuffer(boolean on, Canvas canvas, PixelBufferRenderer pixels){
+		PIXEL_BUFFER = on;
+		canvas.getGraphicsContext2D().clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+		pixels.getView().setVisible(on);
+		this.world.setPixelBufferRenderer(on ? pixels : null);
+	}
+
+	/**
+	  The window has been resized, the camera viewport follows it
+	*/
+	private static void resizeView(Canvas canvas, PixelBufferRenderer pixels, World world, Scene scene){
+		canvas.setWidth(Math.max(World.BLOCK_WIDTH, scene.getWidth() - VIEW_BORDER_X));
+		canvas.setHeight(Math.max(World.BLOCK_WIDTH, scene.getHeight() - VIEW_BORDER_Y));
+		pixels.resize((int)canvas.getWidth(), (int)canvas.getHeight());
+		world.getCamera().setViewport(canvas.getWidth(), canvas.getHeight());
+		world.damageAll();
+		world.update(0, 0, 0, 0);
+	}
 }
@@ -1,5 +1,6 @@
 package com.orangomango.labyrinth.menu.editor;
 
+import javafx.application.Platform;
 import javafx.scene.canvas.*;
 import javafx.scene.paint.Color;
 import javafx.scene.image.Image;
@@ -8,23 +9,74 @@ import com.orangomango.labyrinth.*;
 import static com.orangomango.labyrinth.menu.editor.Editor.PATH;
 import com.orangomango.labyrinth.menu.editor.Editor;
 
+/**
+  Health and oxygen bars under the player. They are drawn on their own canvas (stacked
+  over the world canvas) and repainted only when health, oxygen or their position change.
+*/
 public class LevelStats {
 	private GraphicsContext pen;
 	private World world;
+	private double lastX = Double.NaN, lastY = Double.NaN;
+	private int lastHealth = -1, lastOx = -1;
 	
 	private static final int BAR_WIDTH = 50;
 	private static final int BAR_HEIGHT = 10;
 	public static final int ICON_SIZE = 10;
 	public static final double GAP_FACTOR = 1.3;
 	
+	/**
+	  LevelStats class constructor
+	  @param w - World of the player
+	  @param pen - GraphicsContext of the HUD canvas (same size of the world canvas)
+	*/
 	public LevelStats(World w, GraphicsContext pen){
 		this.pen = pen;
 		this.world = w;
 	}
 	
-	public void draw(double x, double y){
-		pen.drawImage(new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/entities/health.png"), x, y, ICON_SIZE, ICON_SIZE);
-		pen.drawImage(new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/entities/oxygen.png"), x, y+ICON_SIZE*GAP_FACTOR, ICON_SIZE, ICON_SIZE);
+	/**
+	  Repaint the bars if something changed, cheap to call on every frame
+	*/
+	public void refresh(){
+		if (!Platform.isFxApplicationThread()){
+			Platform.runLater(() -> refresh());
+			return;
+		}
+		Player player = this.world.getPlayer();
+		if (player == null || this.world.getRenderContext() == null){
+			return;
+		}
+		int bw = this.world.getRenderContext().getBlockWidth();
+		double px = player.psx != null ? player.psx : player.getX();
+		double py = player.psy != null ? player.psy : player.getY();
+		double x = Math.round((px - this.world.getViewX()) * bw) - ICON_SIZE/2*(2+GAP_FACTOR)/2;
+		double y = Math.round((py - this.world.getViewY()) * bw) + ICON_SIZE*(2+GAP_FACTOR);
+		if (x == this.lastX && y == this.lastY && player.getHealth() == this.lastHealth && player.getOx() == this.lastOx){
+			return;
+		}
+		clear();
+		draw(x, y);
+	}
+	
+	/**
+	  Force a repaint on the next refresh (the HUD canvas has been resized or cleared)
+	*/
+	public void invalidate(){
+		this.lastX = Double.NaN;
+		this.lastY = Double.NaN;
+	}
+	
+	private void clear(){
+		if (Double.isNaN(this.lastX)){
+			this.pen.clearRect(0, 0, this.pen.getCanvas().getWidth(), this.pen.getCanvas().getHeight());
+		} else {
+			this.pen.clearRect(this.lastX-1, this.lastY-1, ICON_SIZE*GAP_FACTOR+BAR_WIDTH+2, ICON_SIZE*GAP_FACTOR+BAR_HEIGHT+2);
+		}
+	}
+	
+	private void draw(double x, double y){
+		AssetManager.getSprite("entities/health.png").draw(pen, x, y, ICON_SIZE, ICON_SIZE);
+		AssetManager.getSprite("entities/oxygen.png").draw(pen, x, y+ICON_SIZE*GAP_FACTOR, ICON_SIZE, ICON_SIZE);
 		int health = this.world.getPlayer().getHealth();
 		
 		/* RED - ORANGE - YELLOW - GREEN - LIME
@@ -51,12 +103,17 @@ public class LevelStats {
 		}
 		
 		this.pen.fillRect(x+ICON_SIZE*GAP_FACTOR, y, (int)Math.round(health/100.0*BAR_WIDTH), BAR_HEIGHT);
+		this.pen.setStroke(Color.BLACK);
 		this.pen.strokeRect(x+ICON_SIZE*GAP_FACTOR, y, BAR_WIDTH, BAR_HEIGHT);
 		
 		int ox = this.world.getPlayer().getOx();
 		this.pen.setFill(Color.CYAN);
 		this.pen.fillRect(x+ICON_SIZE*GAP_FACTOR, y+ICON_SIZE*GAP_FACTOR, (int)Math.round(ox/100.0*BAR_WIDTH), BAR_HEIGHT);
 		this.pen.strokeRect(x+ICON_SIZE*GAP_FACTOR, y+ICON_SIZE*GAP_FACTOR, BAR_WIDTH, BAR_HEIGHT);
+		
+		this.lastX = x;
+		this.lastY = y;
+		this.lastHealth = health;
+		this.lastOx = ox;
 	}
 }
-
@@ -11,7 +11,7 @@ import javafx.scene.canvas.*;
 import javafx.scene.control.Button;
 import javafx.scene.control.CheckBox;
 import javafx.scene.control.Spinner;
-import javafx.scene.control.Slider;
+import javafx.scene.control.SpinnerValueFactory;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Tooltip;
@@ -36,8 +36,9 @@ public class NewWidget {
 	private static Scene SCENE_2;
 	private static Scene SCENE_3;
 	private static Scene SCENE_4;
-	public static final int MAX_WORLD_SIZE = 30;
-	public static final int MAX_PLAYER_VIEW_SIZE = 15;
+	private static final int PREVIEW_SIZE = 30; // Smaller levels are drawn in scale with a 30x30 level
+	public static final int MAX_WORLD_SIZE = 256; // 256 * BLOCK_WIDTH fits in a 8192px texture (editor canvas)
+	public static final int MAX_PLAYER_VIEW_SIZE = 15; // Bigger levels scroll when played (camera)
 	private static boolean FIRST_TIME = false;
 
 	private Spinner spinner1, spinner2, spinner3, spinner4;
@@ -133,40 +134,35 @@ public class NewWidget {
 		Label sX = new Label("Width:");
 		Label sY = new Label("Height:");
 		Canvas preview = new Canvas(100, 100);
-		Slider sl1 = new Slider(2, MAX_WORLD_SIZE, 2);
-		Slider sl2 = new Slider(2, MAX_WORLD_SIZE, 2);
+		// Spinners, a slider can't pick every size up to MAX_WORLD_SIZE
+		Spinner<Integer> sl1 = new Spinner<>(new SpinnerValueFactory.IntegerSpinnerValueFactory(2, MAX_WORLD_SIZE, 2));
+		Spinner<Integer> sl2 = new Spinner<>(new SpinnerValueFactory.IntegerSpinnerValueFactory(2, MAX_WORLD_SIZE, 2));
 		sl1.setMaxWidth(90);
 		sl2.setMaxWidth(90);
-		sl1.setShowTickMarks(true);
-		sl2.setShowTickMarks(true);
-		sl1.setShowTickLabels(true);
-		sl2.setShowTickLabels(true);
-		sl1.setMajorTickUnit(5);
-		sl2.setMajorTickUnit(5);
-		sl1.setSnapToTicks(true);
-		sl2.setSnapToTicks(true);
+		sl1.setEditable(true);
+		sl2.setEditable(true);
 		GraphicsContext pen = preview.getGraphicsContext2D();
 		pen.setFill(Color.WHITE);
 		pen.fillRect(0, 0, 100, 100);
 		Label cPreview = new Label("preview (0x0)");
-		Label playerView = new Label("Player view disabled (?)");
-		playerView.setTooltip(new Tooltip("When this option is enabled, width or height is greater than "+MAX_PLAYER_VIEW_SIZE+",\nyou will se the player at the center and the level \"moving\".\nOtherwise the player will move normally.\nThe orange square is your view when you play your level"));
-		sl1.setOnMouseDragged(event -> {
-			this.pWidth = (int) sl1.getValue();
+		Label playerView = new Label("Scrolling view disabled (?)");
+		playerView.setTooltip(new Tooltip("When this option is enabled, width or height is greater than "+MAX_PLAYER_VIEW_SIZE+",\nthe level could not fit the window: the view follows the player\nand the level scrolls. The window can be resized when you play."));
+		sl1.valueProperty().addListener((ob, oldV, newV) -> {
+			this.pWidth = newV;
 			updateCanvas(pen, cPreview);
 			if (this.pWidth > MAX_PLAYER_VIEW_SIZE){
-				playerView.setText("Player view enabled (?)");
+				playerView.setText("Scrolling view enabled (?)");
 			} else if (this.pHeight <= MAX_PLAYER_VIEW_SIZE) {
-				playerView.setText("Player view disabled (?)");
+				playerView.setText("Scrolling view disabled (?)");
 			}
 		});
-		sl2.setOnMouseDragged(event -> {
-			this.pHeight = (int) sl2.getValue();
+		sl2.valueProperty().addListener((ob, oldV, newV) -> {
+			this.pHeight = newV;
 			updateCanvas(pen, cPreview);
 			if (this.pHeight > MAX_PLAYER_VIEW_SIZE){
-				playerView.setText("Player view enabled (?)");
+				playerView.setText("Scrolling view enabled (?)");
 			} else if (this.pWidth <= MAX_PLAYER_VIEW_SIZE){
-				playerView.setText("Player view disabled (?)");
+				playerView.setText("Scrolling view disabled (?)");
 			}
 		});
 		l2.add(lvlSize, 0, 0, 2, 2);
@@ -283,11 +279,8 @@ public class NewWidget {
 		pen.setFill(Color.WHITE);
 		pen.fillRect(0, 0, 100, 100);
 		pen.setStroke(Color.RED);
-		pen.strokeRect(10, 10, this.pWidth * 80 / MAX_WORLD_SIZE, this.pHeight * 80 / MAX_WORLD_SIZE); // x : 80 = width : 30
-		if (this.pWidth > MAX_PLAYER_VIEW_SIZE || this.pHeight > MAX_PLAYER_VIEW_SIZE){
-			pen.setStroke(Color.ORANGE);
-			pen.strokeRect(10, 10, (this.pWidth > LevelExe.PWS*2+1 ? LevelExe.PWS*2+1 : this.pWidth) * 80 / MAX_WORLD_SIZE, (this.pHeight > LevelExe.PWS*2+1 ? LevelExe.PWS*2+1 : this.pHeight) * 80 / MAX_WORLD_SIZE);
-		}
+		int scale = Math.max(PREVIEW_SIZE, Math.max(this.pWidth, this.pHeight)); // x : 80 = width : scale
+		pen.strokeRect(10, 10, this.pWidth * 80 / scale, this.pHeight * 80 / scale);
 		this.sizeL.setText(String.format("Size: %sx%s", this.pWidth, this.pHeight));
 	}
 
@@ -23,8 +23,9 @@ import javafx.scene.text.TextAlignment;
 import java.io.*;
 
 import com.orangomango.labyrinth.LabyrinthMain;
-import com.orangomango.labyrinth.World;
-import com.orangomango.labyrinth.Player;
+import com.orangomango.labyrinth.AssetManager;
+import com.orangomango.labyrinth.ThumbnailService;
+import com.orangomango.labyrinth.LevelPack;
 import com.orangomango.labyrinth.menu.Menu;
 import com.orangomango.labyrinth.menu.editor.LevelExe;
 import static com.orangomango.labyrinth.menu.createdlevels.HomeWindow.PREVIEW_BLOCK_WIDTH;
@@ -60,27 +61,27 @@ public class PlayScreen {
 					this.pen.strokeLine(180+240*(i-3)/4, 70, 300+240*(i-3)/4, 70);
 			}
 		}
-		this.pen.setFont(Font.loadFont("file://" + changeSlash(PATH) + ".labyrinthgame/Fonts/play_font.ttf", 24));
+		this.pen.setFont(AssetManager.getFont("play_font.ttf", 24));
 		this.pen.setTextAlign(TextAlignment.CENTER);
 		for (int i = 0; i < num; i++){
 			switch (i % 4){
 				case 0:
-					this.pen.drawImage(new Image("file://" + changeSlash(PATH) + ".labyrinthgame/Images/editor/level_select.png"), 60+240*i/4-BUTTON_WIDTH/2, 70-BUTTON_WIDTH/2, BUTTON_WIDTH, BUTTON_WIDTH);
+					AssetManager.getSprite("editor/level_select.png").draw(this.pen, 60+240*i/4-BUTTON_WIDTH/2, 70-BUTTON_WIDTH/2, BUTTON_WIDTH, BUTTON_WIDTH);
 					this.pen.setFill(Color.WHITE);
 					this.pen.fillText(""+(i+1), 60+240*i/4, 70+5);
 					break;
 				case 1:
-					this.pen.drawImage(new Image("file://" + changeSlash(PATH) + ".labyrinthgame/Images/editor/level_select.png"), 60+240*(i-1)/4-BUTTON_WIDTH/2, 190-BUTTON_WIDTH/2, BUTTON_WIDTH, BUTTON_WIDTH);
+					AssetManager.getSprite("editor/level_select.png").draw(this.pen, 60+240*(i-1)/4-BUTTON_WIDTH/2, 190-BUTTON_WIDTH/2, BUTTON_WIDTH, BUTTON_WIDTH);
 					this.pen.setFill(Color.WHITE);
 					this.pen.fillText(""+(i+1), 60+240*(i-1)/4, 190+5);
 					break;
 				case 2:
-					this.pen.drawImage(new Image("file://" + changeSlash(PATH) + ".labyrinthgame/Images/editor/level_select.png"), 180+240*(i-2)/4-BUTTON_WIDTH/2, 190-BUTTON_WIDTH/2, BUTTON_WIDTH, BUTTON_WIDTH);
+					AssetManager.getSprite("editor/level_select.png").draw(this.pen, 180+240*(i-2)/4-BUTTON_WIDTH/2, 190-BUTTON_WIDTH/2, BUTTON_WIDTH, BUTTON_WIDTH);
 					this.pen.setFill(Color.WHITE);
 					this.pen.fillText(""+(i+1), 180+240*(i-2)/4, 190+5);
 					break;
 				case 3:
-					this.pen.drawImage(new Image("file://" + changeSlash(PATH) + ".labyrinthgame/Images/editor/level_select.png"), 180+240*(i-3)/4-BUTTON_WIDTH/2, 70-BUTTON_WIDTH/2, BUTTON_WIDTH, BUTTON_WIDTH);
+					AssetManager.getSprite("editor/level_select.png").draw(this.pen, 180+240*(i-3)/4-BUTTON_WIDTH/2, 70-BUTTON_WIDTH/2, BUTTON_WIDTH, BUTTON_WIDTH);
 					this.pen.setFill(Color.WHITE);
 					this.pen.fillText(""+(i+1), 180+240*(i-3)/4, 70+5);
 			}
@@ -90,7 +91,7 @@ public class PlayScreen {
 	public void openLevel(int levelNum, Stage stage, TabPane tabpane){
 	
 		String level = "level"+ levelNum + ".wld.sys"; 
-		String lPath = PATH + ".labyrinthgame" + File.separator + "SystemLevels" + File.separator + level;
+		String lPath = LevelPack.getSystemLevel("level"+ levelNum + ".wld");
 	
 		Tab LevelInfoTab = new Tab(level);
 		LevelInfoTab.setOnClosed(closeEvent -> LEVELS_OPEN[getLevelIndex(level) - 1] = 0);
@@ -104,17 +105,17 @@ public class PlayScreen {
 		}
 		LEVELS_OPEN[getLevelIndex(level) - 1] = 1;
 		
-		World temp = new World(lPath);
-		temp.previewMode = true;
-		World.BLOCK_WIDTH = PREVIEW_BLOCK_WIDTH;
-		Canvas Tcanvas = new Canvas(temp.width*World.BLOCK_WIDTH, temp.height*World.BLOCK_WIDTH);
-		GraphicsContext pen = Tcanvas.getGraphicsContext2D();
-		temp.setPen(pen);
-		temp.setPlayer(new Player(temp.start[0], temp.start[1], temp));
-		temp.draw();
-		World.BLOCK_WIDTH = World.DEFAULT_BLOCK_WIDTH;
-		
-		Label information = new Label(temp.getWorldInformation().replace("\\n", "\n"));
+		// Only the header is read (in background), the level is built when it's played
+		ImageView preview = new ImageView();
+		Label information = new Label("Loading...");
+		ThumbnailService.loadHeader(lPath, header -> {
+			if (header == null){
+				information.setText("Could not read this level");
+				return;
+			}
+			information.setText(header.information.replace("\\n", "\n"));
+			ThumbnailService.load(preview, lPath, 0, header.width * PREVIEW_BLOCK_WIDTH, header.height * PREVIEW_BLOCK_WIDTH, "normal", PREVIEW_BLOCK_WIDTH);
+		});
 
 		Button playBtn = new Button();
 		playBtn.setGraphic(new ImageView(new Image("file://" + changeSlash(PATH) + ".labyrinthgame/Images/editor/menu_run.png")));
@@ -126,7 +127,7 @@ public class PlayScreen {
 		});
 		grid.add(information, 0, 0);
 		grid.add(playBtn, 1, 0);
-		grid.add(Tcanvas, 0, 1);
+		grid.add(preview, 0, 1);
 		ScrollPane sp = new ScrollPane(grid);
 		sp.setFitToHeight(true);
 		sp.setFitToWidth(true);
@@ -153,7 +154,7 @@ public class PlayScreen {
         arcadeContent.setPadding(new Insets(20, 20, 20, 20));
         Button playSysArcade = new Button("Play arcade");
         playSysArcade.setOnAction(e -> {
-			new LevelExe(PATH + ".labyrinthgame" + File.separator + "SystemLevels" + File.separator + "arcade.arc.sys", "arcade.arc.sys", true, "normal");
+			new LevelExe(LevelPack.getSystemLevel("arcade.arc"), "arcade.arc.sys", true, "normal");
 			LevelExe.setOnFinish(stage);
 			stage.hide();
 		});
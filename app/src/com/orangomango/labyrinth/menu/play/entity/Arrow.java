@@ -5,13 +5,15 @@ import javafx.animation.*;
 import javafx.util.Duration;
 
 import com.orangomango.labyrinth.World;
+import com.orangomango.labyrinth.RenderContext;
+import com.orangomango.labyrinth.RenderStats;
 import com.orangomango.labyrinth.menu.editor.Editor;
 import static com.orangomango.labyrinth.menu.editor.Editor.PATH;
 import static com.orangomango.labyrinth.menu.editor.LevelExe.PWS;
 
 public class Arrow extends Entity{
 	private String direction = "";
-	private String image = "file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/entities/arrow";
+	private String image = "entities/arrow";
 	private Timeline t;
 	private boolean SHOW = false;
 	private double stepX = 0.0;
@@ -84,6 +86,7 @@ public class Arrow extends Entity{
 				w.update(0, 0, 0, 0);
 			}
 		}));
+		RenderStats.track(t);
 		t.setCycleCount(Animation.INDEFINITE);
 	}
 	
@@ -92,6 +95,7 @@ public class Arrow extends Entity{
 		super.start();
 		if (!SHOW){
 			SHOW = true;
+			damage();
 		}
 		this.t.play();
 	}
@@ -103,9 +107,9 @@ public class Arrow extends Entity{
 	}
 	
 	@Override
-	public void draw(GraphicsContext pen, double px, double py){
+	public void draw(RenderContext ctx, double px, double py){
 		if (SHOW){
-			World.drawRotatedImage(pen, this.image, px * World.BLOCK_WIDTH, py * World.BLOCK_WIDTH, World.BLOCK_WIDTH, this.direction, false, false, false, null);
+			World.drawRotatedImage(ctx, this.image, px, py, this.direction, false, false, false, null);
 		}
 	}
 }
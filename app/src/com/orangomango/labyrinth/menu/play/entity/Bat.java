@@ -6,18 +6,21 @@ import javafx.scene.image.*;
 import javafx.util.Duration;
 
 import com.orangomango.labyrinth.World;
+import com.orangomango.labyrinth.Block;
+import com.orangomango.labyrinth.RenderContext;
+import com.orangomango.labyrinth.RenderStats;
+import com.orangomango.labyrinth.AnimationClock;
 import com.orangomango.labyrinth.menu.editor.Editor;
 import static com.orangomango.labyrinth.menu.editor.Editor.PATH;
 import static com.orangomango.labyrinth.menu.editor.LevelExe.PWS;
 
-public class Bat extends Entity {
+public class Bat extends Entity implements AnimationClock.Animated {
 	private int M = 0;
 	private double startX = 0;
 	private double startY = 0;
-	private int suff = 1;
-	private Image image = new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/entities/bat_side.png");
+	private int frames;
+	private String image;
 	private Timeline t;
-	private Timeline t2;
 	private String direction;
 	private int speed;
 
@@ -52,46 +55,42 @@ public class Bat extends Entity {
 				w.getPlayer().removeHealth(dmg);
 			}
 		}));
+		RenderStats.track(t);
 		t.setCycleCount(Animation.INDEFINITE);
 
-		t2 = new Timeline(new KeyFrame(Duration.millis(this.speed / 2 * 3), event -> {
-			if (this.direction.equals(HORIZONTAL)) {
-				this.image = new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/entities/bat_side.png");
-				this.suff = (this.suff == 1) ? 2 : 1;
-			} else if (this.direction.equals(VERTICAL)) {
-				this.image = this.image = new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/entities/bat_front.png");
-				if (this.suff == 3) {
-					this.suff = 1;
-				} else {
-					this.suff++;
-				}
-			}
-			if (w.getPlayerView()){
-				w.update(w.getPlayer().getX()-PWS,w.getPlayer().getY()-PWS, w.getPlayer().getX()+PWS, w.getPlayer().getY()+PWS);
-			} else {
-				w.update(0, 0, 0, 0);
-			}
-		}));
-		t2.setCycleCount(Animation.INDEFINITE);
+		this.image = this.direction.equals(VERTICAL) ? "entities/bat_front.png" : "entities/bat_side.png";
+		this.frames = this.direction.equals(VERTICAL) ? 3 : 2;
 	}
 
 	public void stop() {
 		super.stop();
 		this.t.stop();
-		this.t2.stop();
+		this.world.getClock().unregister(this);
 	}
 
 	public void start() {
 		super.start();
 		this.t.play();
-		this.t2.play();
+		this.world.getClock().register(this);
+	}
+
+	@Override
+	public int getFrameTime(){
+		return this.speed / 2 * 3;
+	}
+	
+	@Override
+	public boolean frameChanged(long time){
+		damage();
+		return true;
 	}
 
-	public void draw(GraphicsContext p, double px, double py) {
+	public void draw(RenderContext ctx, double px, double py) {
+		int frame = this.world.getClock().getFrame(this.frames, getFrameTime());
 		if (M == 1 && this.direction.equals(HORIZONTAL)) {
-			p.drawImage(this.image, 1+(World.DEFAULT_BLOCK_WIDTH+2)*(this.suff-1+2), 1, World.DEFAULT_BLOCK_WIDTH, World.DEFAULT_BLOCK_WIDTH, px * World.BLOCK_WIDTH, py * World.BLOCK_WIDTH, World.BLOCK_WIDTH, World.BLOCK_WIDTH);
+			ctx.drawTile(this.image, Block.LIGHT, frame+2, px, py);
 		} else if (isStarted()) {
-			p.drawImage(this.image, 1+(World.DEFAULT_BLOCK_WIDTH+2)*(this.suff-1), 1, World.DEFAULT_BLOCK_WIDTH, World.DEFAULT_BLOCK_WIDTH, px * World.BLOCK_WIDTH, py * World.BLOCK_WIDTH, World.BLOCK_WIDTH, World.BLOCK_WIDTH);
+			ctx.drawTile(this.image, Block.LIGHT, frame, px, py);
 		}
 	}
 }
@@ -6,13 +6,16 @@ import javafx.animation.*;
 import javafx.util.Duration;
 
 import com.orangomango.labyrinth.World;
+import com.orangomango.labyrinth.Block;
+import com.orangomango.labyrinth.RenderContext;
+import com.orangomango.labyrinth.RenderStats;
 import static com.orangomango.labyrinth.menu.editor.Editor.PATH;
 import com.orangomango.labyrinth.menu.editor.Editor;
 import static com.orangomango.labyrinth.menu.editor.LevelExe.PWS;
 
 public class CSpike extends Entity{
 	private Timeline t;
-	private Image image = new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/blocks/block_spike_closed.png");
+	private String image = "blocks/block_spike_closed.png";
 	private int timeOnSpike = 0;
 	private boolean opened = false;
 
@@ -25,8 +28,9 @@ public class CSpike extends Entity{
 			if (isOnPlayer(w.getPlayer()) || this.timeOnSpike != 0){
 				this.timeOnSpike++;
 				if (this.timeOnSpike == 15){
-					this.image = new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/blocks/block_spike.png");
+					this.image = "blocks/block_spike.png";
 					this.opened = true;
+					damage();
 					if (w.getPlayerView()){
 						w.update(w.getPlayer().getX()-PWS,w.getPlayer().getY()-PWS, w.getPlayer().getX()+PWS, w.getPlayer().getY()+PWS);
 					} else {
@@ -41,8 +45,9 @@ public class CSpike extends Entity{
 				if (this.timeOnSpike < 0){
 					this.timeOnSpike++;
 				}
-				this.image = new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/blocks/block_spike_closed.png");
+				this.image = "blocks/block_spike_closed.png";
 				this.opened = false;
+				damage();
 				if (w.getPlayerView()){
 					w.update(w.getPlayer().getX()-PWS,w.getPlayer().getY()-PWS, w.getPlayer().getX()+PWS, w.getPlayer().getY()+PWS);
 				} else {
@@ -50,6 +55,7 @@ public class CSpike extends Entity{
 				}
 			}
 		}));
+		RenderStats.track(this.t);
 		this.t.setCycleCount(Animation.INDEFINITE);
 	}
 	
@@ -67,7 +73,7 @@ public class CSpike extends Entity{
 		this.t.stop();
 	}
 	
-	public void draw(GraphicsContext p, double px, double py){
-		p.drawImage(this.image, px * World.BLOCK_WIDTH, py * World.BLOCK_WIDTH, World.BLOCK_WIDTH, World.BLOCK_WIDTH);
+	public void draw(RenderContext ctx, double px, double py){
+		ctx.drawTile(this.image, Block.LIGHT, px, py);
 	}
 }
@@ -6,6 +6,9 @@ import javafx.scene.image.*;
 import javafx.util.Duration;
 
 import com.orangomango.labyrinth.World;
+import com.orangomango.labyrinth.Block;
+import com.orangomango.labyrinth.RenderContext;
+import com.orangomango.labyrinth.RenderStats;
 import static com.orangomango.labyrinth.menu.editor.Editor.PATH;
 import com.orangomango.labyrinth.menu.editor.Editor;
 import static com.orangomango.labyrinth.menu.editor.LevelExe.PWS;
@@ -56,6 +59,7 @@ public class Elevator extends Entity {
 						w.getPlayer().psy = this.getY();
 					}
 					inRound = true;
+					w.getPlayer().damage();
 				}
 			} else {
 				inRound = false;
@@ -70,6 +74,7 @@ public class Elevator extends Entity {
 				w.update(0, 0, 0, 0, true);
 			}
 		}));
+		RenderStats.track(this.t);
 		this.t.setCycleCount(Animation.INDEFINITE);
 	}
 
@@ -83,8 +88,8 @@ public class Elevator extends Entity {
 		this.t.stop();
 	}
 	
-	public void draw(GraphicsContext p, double px, double py) {
+	public void draw(RenderContext ctx, double px, double py) {
 		if (M != 0)
-			p.drawImage(new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/entities/move_block.png"), px * World.BLOCK_WIDTH, py * World.BLOCK_WIDTH, World.BLOCK_WIDTH, World.BLOCK_WIDTH);
+			ctx.drawTile("entities/move_block.png", Block.LIGHT, px, py);
 	}
 }
@@ -4,6 +4,8 @@ import javafx.scene.paint.Color;
 import javafx.scene.canvas.*;
 
 import com.orangomango.labyrinth.World;
+import com.orangomango.labyrinth.RenderContext;
+import com.orangomango.labyrinth.RenderStats;
 import com.orangomango.labyrinth.Player;
 
 public abstract class Entity{
@@ -26,11 +28,24 @@ public abstract class Entity{
 	}
 	
 	public void setX(double v){
+		damage();
 		x = v;
+		damage();
 	}
 	
 	public void setY(double v){
+		damage();
 		y = v;
+		damage();
+	}
+	
+	/**
+	  Tell the world that the area where this entity is drawn must be repainted
+	*/
+	public void damage(){
+		if (this.world != null){
+			this.world.damageEntity(getX(), getY());
+		}
 	}
 	
 	public boolean isStarted(){
@@ -41,13 +56,16 @@ public abstract class Entity{
 		this.world = w;
 	}
 	
-	public void draw(GraphicsContext p){
-		draw(p, x, y);
+	public void draw(RenderContext ctx){
+		RenderStats.entityDrawn();
+		draw(ctx, x, y);
 	}
 
-	public void draw(GraphicsContext p, double px, double py){
-		p.setFill(Color.BLACK);
-		p.fillRect(px*World.BLOCK_WIDTH, py*World.BLOCK_WIDTH, World.BLOCK_WIDTH, World.BLOCK_WIDTH);
+	/**
+	  Draw the entity at px, py (world coords, the context applies the camera offset and the scale)
+	*/
+	public void draw(RenderContext ctx, double px, double py){
+		ctx.fillTile(Color.BLACK, px, py);
 	}
 	
 	public boolean isOnPlayer(Player pl, double px, double py){
@@ -67,12 +85,14 @@ public abstract class Entity{
 	public void start(){
 		if (!started){
 			this.started = true;
+			damage();
 		}
 	}
 	
 	public void stop(){
 		if (started){
 			this.started = false;
+			damage();
 		}
 	}
 	
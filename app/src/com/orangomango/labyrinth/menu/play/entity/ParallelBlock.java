@@ -1,27 +1,27 @@
 package com.orangomango.labyrinth.menu.play.entity;
 
 import javafx.scene.canvas.*;
-import javafx.animation.*;
 import javafx.scene.image.*;
-import javafx.util.Duration;
 
 import com.orangomango.labyrinth.World;
+import com.orangomango.labyrinth.RenderContext;
 import com.orangomango.labyrinth.Block;
+import com.orangomango.labyrinth.RenderStats;
+import com.orangomango.labyrinth.AnimationClock;
 import com.orangomango.labyrinth.menu.editor.Editor;
 import static com.orangomango.labyrinth.menu.editor.Editor.PATH;
 import static com.orangomango.labyrinth.menu.editor.LevelExe.PWS;
 
-public class ParallelBlock extends Entity{
-	private final Image image;
+public class ParallelBlock extends Entity implements AnimationClock.Animated {
+	private final String image;
 	public String[] parallelBlockData;
 	private String info;
 	private int[][] imageFrames;
-	private int internalCounter = 0;
-	private Timeline t;
 	private boolean active = false;
-	private boolean doing = false;
+	private long changeTime = -1;
 	private int activeImageIndex, inactiveImageIndex;
 	private int currentImageIndex;
+	private static final int FRAME_TIME = 150;
 	
 	public ParallelBlock(World w, double x, double y, String info, int[][] imageFrames, int activeImageIndex, int inactiveImageIndex){
 		setData(w);
@@ -40,75 +40,53 @@ public class ParallelBlock extends Entity{
 			counter++;
 		}
 		
-		this.image = new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/"+parallelBlockData[Block.checkInfoKey(this.info, "imagePath")]);
+		this.image = parallelBlockData[Block.checkInfoKey(this.info, "imagePath")];
 		
-		t = new Timeline(new KeyFrame(Duration.millis(150), event -> {
-			boolean updateRequest = false;
-			if (w.getEngineeringWorld().getBlockAt((int)getX(), (int)getY()).isActive()){
-				if (!active){
-					this.currentImageIndex = imageFrames[0][internalCounter];
-					updateRequest = true;
-					if (internalCounter+1 != imageFrames[0].length){
-						internalCounter++;
-					} else {
-						internalCounter = 0;
-						if (active != true){
-							active = true;
-						}
-					}
-				} else {
-					if (this.currentImageIndex != this.activeImageIndex){
-						internalCounter = 0;
-						updateRequest = true;
-					}
-					this.currentImageIndex = this.activeImageIndex;
-				}
-			} else {
-				if (active){
-					this.currentImageIndex = imageFrames[1][internalCounter];
-					updateRequest = true;
-					if (internalCounter+1 != imageFrames[1].length){
-						internalCounter++;
-					} else {
-						internalCounter = 0;
-						if (active != false){
-							active = false;
-						}
-					}
-				} else {
-					if (this.currentImageIndex != this.inactiveImageIndex){
-						internalCounter = 0;
-						updateRequest = true;
-					}
-					this.currentImageIndex = this.inactiveImageIndex;
-				}
-			}
-			if (updateRequest){
-				if (w.getPlayerView()){
-					w.update(w.getPlayer().getX()-PWS,w.getPlayer().getY()-PWS, w.getPlayer().getX()+PWS, w.getPlayer().getY()+PWS);
-				} else {
-					if (w.getPlayerView()){
-						w.update(w.getPlayer().getX()-PWS, w.getPlayer().getY()-PWS, w.getPlayer().getX()+PWS, w.getPlayer().getY()+PWS);
-					} else {
-						w.update(0, 0, 0, 0);
-					}
-				}
-			}
-		}));
-		t.setCycleCount(Animation.INDEFINITE);
+		this.currentImageIndex = inactiveImageIndex;
 	}
 	
 	public void stop() {
 		super.stop();
-		this.t.stop();
+		this.world.getClock().unregister(this);
 	}
 
 	public void start() {
 		super.start();
-		this.t.play();
+		this.world.getClock().register(this);
 	}
 
-	public void draw(GraphicsContext p, double px, double py) {
-		p.drawImage(this.image, 1+(World.DEFAULT_BLOCK_WIDTH+2)*this.currentImageIndex, 1, World.DEFAULT_BLOCK_WIDTH, World.DEFAULT_BLOCK_WIDTH, px * World.BLOCK_WIDTH, py * World.BLOCK_WIDTH, World.BLOCK_WIDTH, World.BLOCK_WIDTH);
+	@Override
+	public int getFrameTime(){
+		return FRAME_TIME;
+	}
+	
+	/**
+	  When the engineering block changes state the frames of imageFrames are shown (0: activation, 1: deactivation)
+	*/
+	@Override
+	public boolean frameChanged(long time){
+		boolean on = this.world.getEngineeringWorld().getBlockAt((int)getX(), (int)getY()).isActive();
+		if (on != this.active){
+			this.active = on;
+			this.changeTime = time;
+		}
+		int[] frames = this.imageFrames[this.active ? 0 : 1];
+		int frame = (int)((time - this.changeTime) / FRAME_TIME);
+		int index;
+		if (this.changeTime >= 0 && frame < frames.length){
+			index = frames[frame];
+		} else {
+			index = this.active ? this.activeImageIndex : this.inactiveImageIndex;
+		}
+		if (index == this.currentImageIndex){
+			return false;
+		}
+		this.currentImageIndex = index;
+		damage();
+		return true;
+	}
+
+	public void draw(RenderContext ctx, double px, double py) {
+		ctx.drawTile(this.image, Block.LIGHT, this.currentImageIndex, px, py);
 	}
 }
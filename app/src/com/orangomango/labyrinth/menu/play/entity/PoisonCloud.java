@@ -6,14 +6,18 @@ import javafx.animation.*;
 import javafx.util.Duration;
 
 import com.orangomango.labyrinth.World;
+import com.orangomango.labyrinth.RenderContext;
+import com.orangomango.labyrinth.Sprite;
+import com.orangomango.labyrinth.RenderStats;
+import com.orangomango.labyrinth.AnimationClock;
 import static com.orangomango.labyrinth.menu.editor.LevelExe.PWS;
 import static com.orangomango.labyrinth.menu.editor.Editor.PATH;
 import com.orangomango.labyrinth.menu.editor.Editor;
 
-public class PoisonCloud extends Entity{
+public class PoisonCloud extends Entity implements AnimationClock.Animated {
 	private int width, height;
-	private Timeline t, t2;
-	private int index = 0; // Max index: 3, from 0 to 3
+	private Timeline t;
+	private static final int FRAMES = 4;
 	private static final int DELAY = 2100;
 	
 	public PoisonCloud(World w, int width, int height, int yH){
@@ -26,6 +30,7 @@ public class PoisonCloud extends Entity{
 		
 		t = new Timeline(new KeyFrame(Duration.millis(DELAY), e -> {
 			this.height++;
+			damage();
 			if ((int)Math.round(getY()+this.height*World.BLOCK_WIDTH) >= w.getPlayer().getY()*World.BLOCK_WIDTH || (w.getPlayer().psy != null && w.getPlayer().psy*World.BLOCK_WIDTH <= getY()+this.height*World.BLOCK_WIDTH)){
 				w.getPlayer().removeHealth(25);
 			}
@@ -35,16 +40,15 @@ public class PoisonCloud extends Entity{
 				w.update(0, 0, 0, 0);
 			}
 		}));
+		RenderStats.track(t);
 		t.setCycleCount(Animation.INDEFINITE);
-		
-		t2 = new Timeline(new KeyFrame(Duration.millis(DELAY/4), e -> {
-			if (index == 3){
-				index = 0;
-			} else {
-				index++;
-			}
-		}));
-		t2.setCycleCount(Animation.INDEFINITE);
+	}
+	
+	@Override
+	public void damage(){
+		if (this.world != null){
+			this.world.damageArea(0, (int)Math.floor(getY()), this.width, (int)Math.ceil(getY())+this.height);
+		}
 	}
 	
 	public int getHeight(){
@@ -55,21 +59,34 @@ public class PoisonCloud extends Entity{
 	public void start(){
 		super.start();
 		this.t.play();
-		this.t2.play();
+		this.world.getClock().register(this);
 	}
 	
 	@Override
 	public void stop(){
 		super.stop();
 		this.t.stop();
-		this.t2.stop();
+		this.world.getClock().unregister(this);
+	}
+	
+	@Override
+	public int getFrameTime(){
+		return DELAY / FRAMES;
+	}
+	
+	@Override
+	public boolean frameChanged(long time){
+		damage();
+		return true;
 	}
 	
 	@Override
-	public void draw(GraphicsContext pen, double px, double py){
+	public void draw(RenderContext ctx, double px, double py){
+		Sprite cloud = ctx.getSprite("entities/poison_cloud.png");
+		int index = this.world.getClock().getFrame(FRAMES, getFrameTime());
 		for (int y = 0; y < this.height; y++){
 			for (int x = 0; x < this.width; x++){
-				pen.drawImage(new Image("file://" + Editor.changeSlash(PATH) + ".labyrinthgame/Images/entities/poison_cloud.png"), 1+(World.DEFAULT_BLOCK_WIDTH+2)*this.index, 1, World.DEFAULT_BLOCK_WIDTH, World.DEFAULT_BLOCK_WIDTH, (px+x)*World.BLOCK_WIDTH, (py+y)*World.BLOCK_WIDTH, World.BLOCK_WIDTH, World.BLOCK_WIDTH);
+				ctx.drawTile(cloud, index, px+x, py+y);
 			}
 		}
 	}
@@ -0,0 +1,15 @@
+# Change the next line with your javafx/lib path
+export FX_PATH=/usr/share/openjfx/lib
+# Checks that run without a display (no FX toolkit), pass options with JAVA_OPTS
+# (JAVA_OPTS=-Dupdate=true sh test.sh writes the reference images again)
+TESTS="HeadlessRenderTest BandRenderTest ArcadeSaveTest"
+BIN=$(mktemp -d)
+echo "Compiling..."
+javac --module-path $FX_PATH --add-modules javafx.controls -d $BIN $(find src test -name "*.java") || exit 1
+FAILED=0
+for t in $TESTS; do
+	echo "Running $t..."
+	java $JAVA_OPTS -cp $BIN --module-path $FX_PATH --add-modules javafx.controls com.orangomango.labyrinth.$t || FAILED=1
+done
+rm -r $BIN
+exit $FAILED
@@ -0,0 +1,43 @@
+package com.orangomango.labyrinth;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.orangomango.labyrinth.TestSupport.check;
+
+/**
+  Save an arcade file through FileSaver (as the editor does) and read it back, whole and
+  pattern by pattern with its index.
+*/
+public class ArcadeSaveTest {
+	public static void main(String[] args) throws IOException {
+		Path home = TestSupport.setUpHome();
+		AssetManager.setHeadless(true);
+		String path = home.resolve("test.arc").toString();
+		World.WorldList list = new World.WorldList();
+		for (String level : HeadlessRenderTest.LEVELS){
+			list.addWorld(new World(TestSupport.level(level)));
+		}
+		list.updateOnFile(path);
+		FileSaver.flush(path);
+
+		check(new File(path).exists(), "the arcade file has not been saved");
+		List<LevelData> all = ArcadeIndex.readAll(path);
+		ArcadeIndex index = ArcadeIndex.read(path);
+		check(all.size() == list.getLength(), "read "+all.size()+" patterns, expected "+list.getLength());
+		check(index != null && index.getCount() == list.getLength(), "wrong index");
+		for (int k = 0; k < list.getLength(); k++){
+			LevelData expected = list.getWorldAt(k).toLevelData();
+			for (LevelData read : new LevelData[]{all.get(k), index.readLevel(path, k)}){
+				check(read.width == expected.width && read.height == expected.height, "pattern "+(k+1)+" has a wrong size");
+				check(Arrays.equals(read.tiles, expected.tiles), "pattern "+(k+1)+" has different tiles");
+			}
+		}
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(home, "*.tmp")){
+			check(!files.iterator().hasNext(), "a temporary file has not been removed");
+		}
+		System.out.println("test.arc: OK");
+	}
+}
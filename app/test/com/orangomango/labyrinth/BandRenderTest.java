@@ -0,0 +1,52 @@
+package com.orangomango.labyrinth;
+
+import java.io.*;
+
+import static com.orangomango.labyrinth.TestSupport.check;
+
+/**
+  The frame rendered in parallel bands (PixelBufferRenderer) must be the same, pixel by pixel,
+  of the frame rendered by a single ImageRenderer. Views that don't start on a tile border
+  and tiles that cross the border of a band are checked too.
+*/
+public class BandRenderTest {
+	// viewX, viewY, blockWidth, width, height
+	private static final double[][] VIEWS = {
+		{0, 0, 32, 320, 192},
+		{1.5, 0.25, 20, 150, 130},
+		{-0.5, 2.75, 24, 200, 67}
+	};
+
+	public static void main(String[] args) throws IOException {
+		TestSupport.setUpHome();
+		AssetManager.setHeadless(true);
+		for (String level : HeadlessRenderTest.LEVELS){
+			World world = new World(TestSupport.level(level));
+			for (double[] v : VIEWS){
+				double viewX = v[0], viewY = v[1];
+				int blockWidth = (int)v[2], width = (int)v[3], height = (int)v[4];
+
+				ImageRenderer[] bands = PixelBufferRenderer.createBands(new int[width * height], width, height);
+				check(bands.length > 1 || height <= PixelBufferRenderer.BAND_HEIGHT, "expected more than one band");
+				PixelBufferRenderer.renderBands(world, bands, viewX, viewY, blockWidth);
+
+				ImageRenderer single = new ImageRenderer(width, height);
+				int tx = (int)Math.floor(viewX);
+				int ty = (int)Math.floor(viewY);
+				int tx1 = (int)Math.ceil(viewX + (double)width / blockWidth) - 1;
+				int ty1 = (int)Math.ceil(viewY + (double)height / blockWidth) - 1;
+				world.prepareRender(tx, ty, tx1, ty1);
+				world.drawTo(new RenderContext(single, blockWidth, viewX, viewY), tx, ty, tx1, ty1);
+				single.premultiply();
+
+				int[] a = bands[0].getPixels();
+				int[] b = single.getPixels();
+				check(a[a.length / 2] != 0, level+": nothing has been rendered");
+				for (int i = 0; i < a.length; i++){
+					check(a[i] == b[i], String.format("%s view %.2f,%.2f: pixel %d,%d is %08x, expected %08x", level, viewX, viewY, i % width, i / width, a[i], b[i]));
+				}
+			}
+			System.out.println(level+": OK");
+		}
+	}
+}
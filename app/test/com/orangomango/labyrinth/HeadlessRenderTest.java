@@ -0,0 +1,52 @@
+package com.orangomango.labyrinth;
+
+import java.awt.image.BufferedImage;
+import java.io.*;
+import javax.imageio.ImageIO;
+
+import static com.orangomango.labyrinth.TestSupport.check;
+
+/**
+  Render levels with PngExporter without the FX toolkit and compare every pixel with
+  the reference images in test/reference. Run with -Dupdate=true to write the references
+  again after a change of the sprites or of the renderer.
+*/
+public class HeadlessRenderTest {
+	public static final String[] LEVELS = {"level2.wld", "level3.wld"};
+	public static final int BLOCK_WIDTH = 32;
+
+	public static void main(String[] args) throws IOException {
+		TestSupport.setUpHome();
+		AssetManager.setHeadless(true);
+		boolean update = Boolean.getBoolean("update");
+		for (String level : LEVELS){
+			World world = new World(TestSupport.level(level));
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			PngExporter.export(world, BLOCK_WIDTH, PngExporter.STRIP_ROWS, out);
+			BufferedImage image = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+			check(image != null, level+": PngExporter output is not a valid PNG");
+			check(image.getWidth() == world.width * BLOCK_WIDTH && image.getHeight() == world.height * BLOCK_WIDTH, level+": wrong image size");
+
+			File reference = new File("test" + File.separator + "reference" + File.separator + level.replace(".wld", ".png"));
+			if (update){
+				reference.getParentFile().mkdirs();
+				try (OutputStream file = new FileOutputStream(reference)){
+					out.writeTo(file);
+				}
+				System.out.println("Reference written: "+reference);
+				continue;
+			}
+			BufferedImage expected = ImageIO.read(reference);
+			check(expected != null, level+": missing reference "+reference);
+			check(expected.getWidth() == image.getWidth() && expected.getHeight() == image.getHeight(), level+": size differs from the reference");
+			for (int y = 0; y < image.getHeight(); y++){
+				for (int x = 0; x < image.getWidth(); x++){
+					int a = image.getRGB(x, y);
+					int b = expected.getRGB(x, y);
+					check(a == b, String.format("%s: pixel %d,%d is %08x, expected %08x", level, x, y, a, b));
+				}
+			}
+			System.out.println(level+": OK");
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package com.orangomango.labyrinth;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.stream.Stream;
+
+/**
+  Helpers of the checks run by test.sh. A check is a class with a main method that throws
+  an AssertionError when something is wrong. Run them from the app/ folder.
+*/
+public class TestSupport {
+	public static final String LIB = "lib" + File.separator;
+	private static Path home = null;
+
+	/**
+	  Use a temporary home with the images of lib/images, call it before using the game classes
+	  (Editor.PATH is read from user.home only once)
+	*/
+	public static synchronized Path setUpHome() throws IOException {
+		if (home != null){
+			return home;
+		}
+		home = Files.createTempDirectory("labyrinth-test");
+		System.setProperty("user.home", home.toString());
+		Path images = Paths.get(LIB + "images");
+		Path target = home.resolve(".labyrinthgame").resolve("Images");
+		try (Stream<Path> files = Files.walk(images)){
+			for (Path p : (Iterable<Path>)files::iterator){
+				Path t = target.resolve(images.relativize(p).toString());
+				if (Files.isDirectory(p)){
+					Files.createDirectories(t);
+				} else {
+					Files.copy(p, t);
+				}
+			}
+		}
+		return home;
+	}
+
+	public static void check(boolean condition, String message){
+		if (!condition){
+			throw new AssertionError(message);
+		}
+	}
+
+	public static String level(String name){
+		return new File(LIB + "levels" + File.separator + name).getAbsolutePath();
+	}
+}